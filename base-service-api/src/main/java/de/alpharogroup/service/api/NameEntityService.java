@@ -24,8 +24,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import de.alpharogroup.collections.list.ListExtensions;
 import de.alpharogroup.db.entity.name.BasicNameEntity;
+import de.alpharogroup.db.metadata.EntityMetadataRegistry;
 import de.alpharogroup.db.service.api.BusinessService;
-import de.alpharogroup.lang.TypeArgumentsExtensions;
 
 public interface NameEntityService<T extends BasicNameEntity<PK>, PK extends Serializable>
 	extends
@@ -55,8 +55,7 @@ public interface NameEntityService<T extends BasicNameEntity<PK>, PK extends Ser
 	 */
 	default List<T> findEntities(final String nameValue)
 	{
-		@SuppressWarnings("unchecked")
-		Class<T> type = (Class<T>)TypeArgumentsExtensions.getFirstTypeArgument(this.getClass());
+		final Class<T> type = EntityMetadataRegistry.getFirstTypeArgument(this.getClass());
 		final String hqlString = JpqlStringFactory.forNameEntity(type, nameValue);
 		final Query query = getQuery(hqlString);
 		if (nameValue != null && !nameValue.isEmpty())
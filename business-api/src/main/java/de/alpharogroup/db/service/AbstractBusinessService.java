@@ -16,14 +16,22 @@
 package de.alpharogroup.db.service;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 
 import org.springframework.transaction.annotation.Transactional;
 
+import de.alpharogroup.db.criteria.PredicateFactory;
 import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.metrics.MetricsRegistry;
+import de.alpharogroup.db.metrics.OperationMetrics;
+import de.alpharogroup.db.paging.Page;
 import de.alpharogroup.db.repository.api.GenericRepository;
 import de.alpharogroup.db.service.api.BusinessService;
 import lombok.Getter;
@@ -47,11 +55,23 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	/** The Constant serialVersionUID. */
 	private static final long serialVersionUID = 1L;
 
+	/** The metrics of the crud methods of this service that are created on the first call. */
+	private transient OperationMetrics operationMetrics;
+
 	/** The repository reference. */
 	@Getter
 	@Setter
 	private REPOSITORY repository;
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long count()
+	{
+		return measure("count", () -> getRepository().count());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -87,10 +107,7 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Transactional
 	public void delete(List<T> objects)
 	{
-		for (final T t : objects)
-		{
-			delete(t.getId());
-		}
+		measure("delete(List)", () -> getRepository().delete(objects));
 	}
 
 	/**
@@ -100,7 +117,7 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Transactional
 	public void delete(PK id)
 	{
-		getRepository().delete(id);
+		measure("delete(PK)", () -> getRepository().delete(id));
 	}
 
 	/**
@@ -110,7 +127,36 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Transactional
 	public void delete(T object)
 	{
-		getRepository().delete(object);
+		measure("delete(T)", () -> getRepository().delete(object));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public boolean deleteById(PK id)
+	{
+		return measure("deleteById", () -> getRepository().deleteById(id));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public int deleteByIds(Collection<PK> ids)
+	{
+		return measure("deleteByIds", () -> getRepository().deleteByIds(ids));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimatedCount()
+	{
+		return measure("estimatedCount", () -> getRepository().estimatedCount());
 	}
 
 	/**
@@ -128,7 +174,16 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Override
 	public boolean exists(PK id)
 	{
-		return getRepository().exists(id);
+		return measure("exists", () -> getRepository().exists(id));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Set<PK> existsAll(Collection<PK> ids)
+	{
+		return measure("existsAll", () -> getRepository().existsAll(ids));
 	}
 
 	/**
@@ -137,7 +192,57 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Override
 	public List<T> findAll()
 	{
-		return getRepository().findAll();
+		return measure("findAll", () -> getRepository().findAll());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <P> List<P> findAllProjected(Class<P> projection, PredicateFactory<T> predicateFactory,
+		String... attributePaths)
+	{
+		return measure("findAllProjected",
+			() -> getRepository().findAllProjected(projection, predicateFactory, attributePaths));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <P> List<P> findAllProjected(Class<P> projection, String... attributePaths)
+	{
+		return measure("findAllProjected",
+			() -> getRepository().findAllProjected(projection, attributePaths));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<T> findAllReadOnly()
+	{
+		return measure("findAllReadOnly", () -> getRepository().findAllReadOnly());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<T> findByAttribute(String attributeName, Object value)
+	{
+		return measure("findByAttribute",
+			() -> getRepository().findByAttribute(attributeName, value));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Page<T, PK> findPageAfter(PK lastId, int limit)
+	{
+		return measure("findPageAfter", () -> getRepository().findPageAfter(lastId, limit));
 	}
 
 	/**
@@ -146,7 +251,25 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Override
 	public T get(PK id)
 	{
-		return getRepository().get(id);
+		return measure("get", () -> getRepository().get(id));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<T> getAll(Collection<PK> ids)
+	{
+		return measure("getAll", () -> getRepository().getAll(ids));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<PK, T> getAllAsMap(Collection<PK> ids)
+	{
+		return measure("getAllAsMap", () -> getRepository().getAllAsMap(ids));
 	}
 
 	/**
@@ -167,13 +290,32 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 		return getRepository().getQuery(jpqlString);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Query getQueryReadOnly(String jpqlString)
+	{
+		return getRepository().getQueryReadOnly(jpqlString);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public T getReadOnly(PK id)
+	{
+		return measure("getReadOnly", () -> getRepository().getReadOnly(id));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public T load(PK id)
 	{
-		return getRepository().load(id);
+		return measure("load", () -> getRepository().load(id));
 	}
 
 	/**
@@ -183,7 +325,7 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Transactional
 	public List<T> merge(List<T> objects)
 	{
-		return getRepository().merge(objects);
+		return measure("merge(List)", () -> getRepository().merge(objects));
 	}
 
 	/**
@@ -193,7 +335,7 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Transactional
 	public T merge(T object)
 	{
-		return getRepository().merge(object);
+		return measure("merge(T)", () -> getRepository().merge(object));
 	}
 
 	/**
@@ -213,7 +355,7 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Transactional
 	public List<PK> save(List<T> objects)
 	{
-		return getRepository().save(objects);
+		return measure("save(List)", () -> getRepository().save(objects));
 	}
 
 	/**
@@ -223,7 +365,7 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Transactional
 	public PK save(T newInstance)
 	{
-		return getRepository().save(newInstance);
+		return measure("save(T)", () -> getRepository().save(newInstance));
 	}
 
 	/**
@@ -233,7 +375,7 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Transactional
 	public void saveOrUpdate(List<T> objects)
 	{
-		getRepository().saveOrUpdate(objects);
+		measure("saveOrUpdate(List)", () -> getRepository().saveOrUpdate(objects));
 	}
 
 	/**
@@ -243,6 +385,72 @@ public abstract class AbstractBusinessService<T extends BaseEntity<PK>, PK exten
 	@Transactional
 	public void saveOrUpdate(T object)
 	{
-		getRepository().saveOrUpdate(object);
+		measure("saveOrUpdate(T)", () -> getRepository().saveOrUpdate(object));
+	}
+
+	/**
+	 * Gets the {@link OperationMetrics} that record the calls, errors and latencies of the crud
+	 * methods of this service. The metrics are shared between all services of the same entity type
+	 * and exposed over jmx.
+	 *
+	 * @return the {@link OperationMetrics} or null if no repository is set
+	 */
+	public OperationMetrics getOperationMetrics()
+	{
+		if (operationMetrics == null && getRepository() != null)
+		{
+			operationMetrics = MetricsRegistry.getOperationMetrics(MetricsRegistry.LAYER_SERVICE,
+				getRepository().getType());
+		}
+		return operationMetrics;
 	}
+
+	/**
+	 * Executes the given operation and records its call, latency and error in the operation
+	 * metrics of this service. If the current transaction was started for the called method,
+	 * the call is recorded after the completion of the transaction, so the flush and the commit
+	 * are included.
+	 *
+	 * @param methodName
+	 *            the name of the method
+	 * @param operation
+	 *            the operation
+	 */
+	protected void measure(final String methodName, final Runnable operation)
+	{
+		final OperationMetrics metrics = getOperationMetrics();
+		if (metrics != null)
+		{
+			metrics.record(getClass(), methodName, operation);
+		}
+		else
+		{
+			operation.run();
+		}
+	}
+
+	/**
+	 * Executes the given operation and records its call, latency and error in the operation
+	 * metrics of this service. If the current transaction was started for the called method,
+	 * the call is recorded after the completion of the transaction, so the flush and the commit
+	 * are included.
+	 *
+	 * @param <R>
+	 *            the generic type of the result
+	 * @param methodName
+	 *            the name of the method
+	 * @param operation
+	 *            the operation
+	 * @return the result of the operation
+	 */
+	protected <R> R measure(final String methodName, final Supplier<R> operation)
+	{
+		final OperationMetrics metrics = getOperationMetrics();
+		if (metrics != null)
+		{
+			return metrics.record(getClass(), methodName, operation);
+		}
+		return operation.get();
+	}
+
 }
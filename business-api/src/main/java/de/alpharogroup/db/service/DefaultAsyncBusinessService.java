@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.service.api.AsyncBusinessService;
+import de.alpharogroup.db.service.api.BusinessService;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link DefaultAsyncBusinessService} is the default implementation of the
+ * {@link AsyncBusinessService} that delegates to a {@link BusinessService}. The repository of the
+ * given service has to use a shared spring {@link javax.persistence.EntityManager}, so every task
+ * gets the {@link javax.persistence.EntityManager} of its own transaction.
+ *
+ * @param <T>
+ *            the generic type of the domain object
+ * @param <PK>
+ *            the generic type of the primary key from the domain object
+ */
+public class DefaultAsyncBusinessService<T extends BaseEntity<PK>, PK extends Serializable>
+	implements
+		AsyncBusinessService<T, PK>
+{
+
+	/** The service. */
+	@Getter
+	private final BusinessService<T, PK> service;
+
+	/** The executor that runs every task in its own transaction. */
+	@Getter
+	private final TransactionalTaskExecutor taskExecutor;
+
+	/**
+	 * Instantiates a new {@link DefaultAsyncBusinessService}.
+	 *
+	 * @param service
+	 *            the service
+	 * @param taskExecutor
+	 *            the executor that runs every task in its own transaction
+	 */
+	public DefaultAsyncBusinessService(@NonNull final BusinessService<T, PK> service,
+		@NonNull final TransactionalTaskExecutor taskExecutor)
+	{
+		this.service = service;
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<Void> delete(final List<T> objects)
+	{
+		return taskExecutor.runAsync(() -> service.delete(objects));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<Void> delete(final PK id)
+	{
+		return taskExecutor.runAsync(() -> service.delete(id));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<Void> delete(final T object)
+	{
+		return taskExecutor.runAsync(() -> service.delete(object));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<List<T>> findAll()
+	{
+		return taskExecutor.supplyAsync(service::findAll, true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<T> get(final PK id)
+	{
+		return taskExecutor.supplyAsync(() -> service.get(id), true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<List<T>> merge(final List<T> objects)
+	{
+		return taskExecutor.supplyAsync(() -> service.merge(objects), false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<T> merge(final T object)
+	{
+		return taskExecutor.supplyAsync(() -> service.merge(object), false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<List<PK>> save(final List<T> objects)
+	{
+		return taskExecutor.supplyAsync(() -> service.save(objects), false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<PK> save(final T object)
+	{
+		return taskExecutor.supplyAsync(() -> service.save(object), false);
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service.api;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import de.alpharogroup.db.entity.BaseEntity;
+
+/**
+ * The interface {@link AsyncBusinessService} is the asynchronous counterpart of the
+ * {@link BusinessService}. Every operation runs on a worker thread in its own transaction and
+ * returns a {@link CompletableFuture} that completes after the commit.
+ *
+ * @param <T>
+ *            the generic type of the domain object
+ * @param <PK>
+ *            the generic type of the primary key from the domain object
+ */
+public interface AsyncBusinessService<T extends BaseEntity<PK>, PK extends Serializable>
+{
+
+	/**
+	 * Delete all persistent objects in the given list.
+	 *
+	 * @param objects
+	 *            the list with the persistent objects to delete
+	 * @return the {@link CompletableFuture} that completes after the deletion
+	 */
+	CompletableFuture<Void> delete(List<T> objects);
+
+	/**
+	 * Deletes an object of a given Id.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the {@link CompletableFuture} that completes after the deletion
+	 */
+	CompletableFuture<Void> delete(PK id);
+
+	/**
+	 * Deletes the given object from persistent storage in the database.
+	 *
+	 * @param object
+	 *            the persistent object
+	 * @return the {@link CompletableFuture} that completes after the deletion
+	 */
+	CompletableFuture<Void> delete(T object);
+
+	/**
+	 * Returns a list of all persistent objects.
+	 *
+	 * @return the {@link CompletableFuture} with the list of all persistent objects
+	 */
+	CompletableFuture<List<T>> findAll();
+
+	/**
+	 * Retrieve a persisted object with a given id from the database.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the {@link CompletableFuture} with the object or null if not found
+	 */
+	CompletableFuture<T> get(PK id);
+
+	/**
+	 * Merges all objects in the given list.
+	 *
+	 * @param objects
+	 *            the list to merge
+	 * @return the {@link CompletableFuture} with the list of the merged objects
+	 */
+	CompletableFuture<List<T>> merge(List<T> objects);
+
+	/**
+	 * Merges the given object.
+	 *
+	 * @param object
+	 *            the object
+	 * @return the {@link CompletableFuture} with the merged object
+	 */
+	CompletableFuture<T> merge(T object);
+
+	/**
+	 * Save all new objects in the given list.
+	 *
+	 * @param objects
+	 *            the list to save
+	 * @return the {@link CompletableFuture} with the list of the ids of the saved objects
+	 */
+	CompletableFuture<List<PK>> save(List<T> objects);
+
+	/**
+	 * Persist the given object into database.
+	 *
+	 * @param object
+	 *            the new instance to save.
+	 * @return the {@link CompletableFuture} with the id of the saved object
+	 */
+	CompletableFuture<PK> save(T object);
+
+}
@@ -16,12 +16,18 @@
 package de.alpharogroup.db.service.api;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 
+import de.alpharogroup.db.criteria.PredicateFactory;
 import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.paging.Page;
 
 /**
  * The Interface BusinessService.
@@ -36,6 +42,13 @@ public interface BusinessService<T extends BaseEntity<PK>, PK extends Serializab
 		Serializable
 {
 
+	/**
+	 * Counts all objects.
+	 * 
+	 * @return the number of all objects
+	 */
+	long count();
+
 	/**
 	 * Factory method for create a new instance of {@link Query} from the given sql string and
 	 * execute a native sql statement for update or delete.
@@ -102,6 +115,40 @@ public interface BusinessService<T extends BaseEntity<PK>, PK extends Serializab
 	 */
 	void delete(T object);
 
+	/**
+	 * Deletes the object of the given id without loading it.
+	 * 
+	 * Note: bulk delete statements do not cascade to associations.
+	 * 
+	 * @param id
+	 *            the id
+	 * @return true, if an object with the given id was deleted, otherwise false
+	 */
+	default boolean deleteById(PK id)
+	{
+		return id != null && deleteByIds(Collections.singletonList(id)) > 0;
+	}
+
+	/**
+	 * Deletes all objects of the given ids with chunked bulk delete statements without loading
+	 * them.
+	 * 
+	 * Note: bulk delete statements do not cascade to associations.
+	 * 
+	 * @param ids
+	 *            the ids of the objects to delete
+	 * @return the number of deleted objects
+	 */
+	int deleteByIds(Collection<PK> ids);
+
+	/**
+	 * Gets the estimated number of all objects from the table statistics of the database. If the
+	 * database offers no statistics the exact count is returned.
+	 * 
+	 * @return the estimated number of all objects
+	 */
+	long estimatedCount();
+
 	/**
 	 * Remove this instance from the session cache.
 	 * 
@@ -119,6 +166,15 @@ public interface BusinessService<T extends BaseEntity<PK>, PK extends Serializab
 	 */
 	boolean exists(PK id);
 
+	/**
+	 * Checks which of the given ids have an entry.
+	 * 
+	 * @param ids
+	 *            the ids to check
+	 * @return the set with the ids that have an entry
+	 */
+	Set<PK> existsAll(Collection<PK> ids);
+
 	/**
 	 * Returns a list of objects.
 	 * 
@@ -126,6 +182,69 @@ public interface BusinessService<T extends BaseEntity<PK>, PK extends Serializab
 	 */
 	List<T> findAll();
 
+	/**
+	 * Returns a list of projections of the objects that match the predicate of the given factory.
+	 * Only the given attributes are selected into a dto class with a matching constructor or into
+	 * an interface with matching getters.
+	 * 
+	 * @param <P>
+	 *            the generic type of the projection
+	 * @param projection
+	 *            the class type of the projection
+	 * @param predicateFactory
+	 *            the factory for the predicate or null for all objects
+	 * @param attributePaths
+	 *            the attributes to select, nested attributes are separated with a dot
+	 * @return list of projections
+	 */
+	<P> List<P> findAllProjected(Class<P> projection, PredicateFactory<T> predicateFactory,
+		String... attributePaths);
+
+	/**
+	 * Returns a list of projections of all objects. Only the given attributes are selected into a
+	 * dto class with a matching constructor or into an interface with matching getters.
+	 * 
+	 * @param <P>
+	 *            the generic type of the projection
+	 * @param projection
+	 *            the class type of the projection
+	 * @param attributePaths
+	 *            the attributes to select, nested attributes are separated with a dot
+	 * @return list of projections
+	 */
+	<P> List<P> findAllProjected(Class<P> projection, String... attributePaths);
+
+	/**
+	 * Returns a list of read only objects. Changes of the returned objects are not written to the
+	 * database.
+	 * 
+	 * @return list of read only objects
+	 */
+	List<T> findAllReadOnly();
+
+	/**
+	 * Returns a list of objects with the given value of the given attribute.
+	 * 
+	 * @param attributeName
+	 *            the name of the attribute
+	 * @param value
+	 *            the value of the attribute or null for all objects where the attribute is null
+	 * @return list of objects
+	 */
+	List<T> findByAttribute(String attributeName, Object value);
+
+	/**
+	 * Returns the page of objects that follows the object with the given id in the order of the
+	 * ids. The cost of a page does not depend on its position.
+	 * 
+	 * @param lastId
+	 *            the id of the last object of the previous page or null for the first page
+	 * @param limit
+	 *            the maximum number of objects of the page
+	 * @return the {@link Page} with the objects
+	 */
+	Page<T, PK> findPageAfter(PK lastId, int limit);
+
 	/**
 	 * Retrieve a persisted object with a given id from the database.
 	 * 
@@ -135,6 +254,26 @@ public interface BusinessService<T extends BaseEntity<PK>, PK extends Serializab
 	 */
 	T get(PK id);
 
+	/**
+	 * Retrieve the persisted objects with the given ids from the database. The returned list has
+	 * the order of the given ids and contains null as placeholder for every id that has no object.
+	 * 
+	 * @param ids
+	 *            the ids
+	 * @return the list with the objects in the order of the given ids
+	 */
+	List<T> getAll(Collection<PK> ids);
+
+	/**
+	 * Retrieve the persisted objects with the given ids from the database as a map with the ids as
+	 * keys. The map has the order of the given ids and contains only the ids that have an object.
+	 * 
+	 * @param ids
+	 *            the ids
+	 * @return the map with the ids as keys and the objects as values
+	 */
+	Map<PK, T> getAllAsMap(Collection<PK> ids);
+
 	/**
 	 * Gets the entity manager.
 	 *
@@ -151,6 +290,25 @@ public interface BusinessService<T extends BaseEntity<PK>, PK extends Serializab
 	 */
 	Query getQuery(String jpqlString);
 
+	/**
+	 * Gets a read only {@link Query} from the given jpql string.
+	 * 
+	 * @param jpqlString
+	 *            the jpql string
+	 * @return the read only {@link Query}
+	 */
+	Query getQueryReadOnly(String jpqlString);
+
+	/**
+	 * Retrieve a persisted object with a given id from the database as read only object. Changes
+	 * of the returned object are not written to the database.
+	 * 
+	 * @param id
+	 *            the id
+	 * @return An object of type T
+	 */
+	T getReadOnly(PK id);
+
 	/**
 	 * Retrieve a persisted object with a given id from the database.
 	 * 
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service.bulk;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The class {@link BulkSaveResult} holds the result of a parallel bulk save with the ids of the
+ * saved objects and the chunks that could not be saved.
+ *
+ * @param <T>
+ *            the generic type of the domain object
+ * @param <PK>
+ *            the generic type of the primary key from the domain object
+ */
+@Getter
+@ToString(exclude = "savedIds")
+@AllArgsConstructor
+public class BulkSaveResult<T, PK extends Serializable>
+{
+
+	/** The number of chunks of the bulk save. */
+	private final int chunkCount;
+
+	/** The chunks that could not be saved ordered by the chunk index. */
+	private final List<ChunkFailure<T>> failedChunks;
+
+	/** The ids of the saved objects in the order of the chunks. */
+	private final List<PK> savedIds;
+
+	/**
+	 * Gets the objects of all chunks that could not be saved.
+	 *
+	 * @return the objects that could not be saved
+	 */
+	public List<T> getFailedObjects()
+	{
+		final List<T> failedObjects = new ArrayList<>();
+		for (final ChunkFailure<T> failedChunk : failedChunks)
+		{
+			failedObjects.addAll(failedChunk.getObjects());
+		}
+		return failedObjects;
+	}
+
+	/**
+	 * Checks if all chunks are saved.
+	 *
+	 * @return true, if all chunks are saved, otherwise false
+	 */
+	public boolean isSuccessful()
+	{
+		return failedChunks.isEmpty();
+	}
+
+}
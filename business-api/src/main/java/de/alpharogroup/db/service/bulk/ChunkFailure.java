@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service.bulk;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The class {@link ChunkFailure} describes a chunk of a bulk save that could not be saved after
+ * all attempts.
+ *
+ * @param <T>
+ *            the generic type of the domain object
+ */
+@Getter
+@ToString(exclude = "objects")
+@AllArgsConstructor
+public class ChunkFailure<T>
+{
+
+	/** The number of attempts for save the chunk. */
+	private final int attempts;
+
+	/** The index of the chunk in the bulk save. */
+	private final int chunkIndex;
+
+	/** The exception of the last attempt. */
+	private final Throwable cause;
+
+	/** The objects of the chunk. */
+	private final List<T> objects;
+
+}
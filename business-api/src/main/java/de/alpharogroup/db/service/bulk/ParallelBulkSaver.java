@@ -0,0 +1,300 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service.bulk;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import org.springframework.util.SerializationUtils;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.service.api.BusinessService;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link ParallelBulkSaver} splits a large list or stream of objects in chunks and saves
+ * every chunk on a worker thread in its own transaction. The number of chunks that are saved at the
+ * same time is bounded by the parallelism, so a stream is never loaded completely in memory. A
+ * chunk that fails is retried in a new transaction with fresh copies of the objects until the
+ * maximum number of attempts is reached and is reported in the {@link BulkSaveResult}. The objects
+ * have to be serializable for the retry.
+ *
+ * @param <T>
+ *            the generic type of the domain object
+ * @param <PK>
+ *            the generic type of the primary key from the domain object
+ */
+@Log
+public class ParallelBulkSaver<T extends BaseEntity<PK>, PK extends Serializable>
+{
+
+	/** The Constant DEFAULT_CHUNK_SIZE. */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	/** The Constant DEFAULT_MAX_ATTEMPTS. */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	/** The Constant DEFAULT_RETRY_DELAY_MILLIS. */
+	public static final long DEFAULT_RETRY_DELAY_MILLIS = 100L;
+
+	/** The number of objects in one chunk. */
+	@Getter
+	private final int chunkSize;
+
+	/** The maximum number of attempts for save one chunk. */
+	@Getter
+	private final int maxAttempts;
+
+	/** The maximum number of chunks that are saved at the same time. */
+	@Getter
+	private final int parallelism;
+
+	/** The delay in milliseconds before the first retry that grows with every attempt. */
+	@Getter
+	private final long retryDelayMillis;
+
+	/** The service that saves the chunks. */
+	@Getter
+	private final BusinessService<T, PK> service;
+
+	/** The executor that runs every chunk in its own transaction. */
+	@Getter
+	private final TransactionalTaskExecutor taskExecutor;
+
+	/**
+	 * Instantiates a new {@link ParallelBulkSaver} with the default chunk size, the default maximum
+	 * number of attempts and the default retry delay.
+	 *
+	 * @param service
+	 *            the service that saves the chunks
+	 * @param taskExecutor
+	 *            the executor that runs every chunk in its own transaction
+	 * @param parallelism
+	 *            the maximum number of chunks that are saved at the same time
+	 */
+	public ParallelBulkSaver(final BusinessService<T, PK> service,
+		final TransactionalTaskExecutor taskExecutor, final int parallelism)
+	{
+		this(service, taskExecutor, parallelism, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_ATTEMPTS,
+			DEFAULT_RETRY_DELAY_MILLIS);
+	}
+
+	/**
+	 * Instantiates a new {@link ParallelBulkSaver}.
+	 *
+	 * @param service
+	 *            the service that saves the chunks
+	 * @param taskExecutor
+	 *            the executor that runs every chunk in its own transaction
+	 * @param parallelism
+	 *            the maximum number of chunks that are saved at the same time
+	 * @param chunkSize
+	 *            the number of objects in one chunk
+	 * @param maxAttempts
+	 *            the maximum number of attempts for save one chunk
+	 * @param retryDelayMillis
+	 *            the delay in milliseconds before the first retry that grows with every attempt
+	 */
+	public ParallelBulkSaver(@NonNull final BusinessService<T, PK> service,
+		@NonNull final TransactionalTaskExecutor taskExecutor, final int parallelism,
+		final int chunkSize, final int maxAttempts, final long retryDelayMillis)
+	{
+		if (parallelism < 1 || chunkSize < 1 || maxAttempts < 1)
+		{
+			throw new IllegalArgumentException(
+				"Given parallelism, chunk size and maximum attempts must be greater than 0");
+		}
+		this.service = service;
+		this.taskExecutor = taskExecutor;
+		this.parallelism = parallelism;
+		this.chunkSize = chunkSize;
+		this.maxAttempts = maxAttempts;
+		this.retryDelayMillis = retryDelayMillis;
+	}
+
+	/**
+	 * Saves the given objects in parallel chunks.
+	 *
+	 * @param objects
+	 *            the objects to save
+	 * @return the {@link BulkSaveResult}
+	 */
+	public BulkSaveResult<T, PK> save(final List<T> objects)
+	{
+		return save(objects.stream());
+	}
+
+	/**
+	 * Saves the objects of the given stream in parallel chunks. The stream is consumed only as
+	 * fast as the chunks are saved.
+	 *
+	 * @param objects
+	 *            the objects to save
+	 * @return the {@link BulkSaveResult}
+	 */
+	public BulkSaveResult<T, PK> save(final Stream<T> objects)
+	{
+		final Semaphore permits = new Semaphore(parallelism);
+		final List<CompletableFuture<ChunkOutcome>> futures = new ArrayList<>();
+		final Iterator<T> iterator = objects.iterator();
+		int chunkIndex = 0;
+		while (iterator.hasNext())
+		{
+			final List<T> chunk = new ArrayList<>(chunkSize);
+			while (iterator.hasNext() && chunk.size() < chunkSize)
+			{
+				chunk.add(iterator.next());
+			}
+			final int index = chunkIndex++;
+			permits.acquireUninterruptibly();
+			futures.add(CompletableFuture
+				.supplyAsync(() -> saveChunk(index, chunk), taskExecutor.getExecutor())
+				.whenComplete((outcome, throwable) -> permits.release()));
+		}
+		final List<PK> savedIds = new ArrayList<>();
+		final List<ChunkFailure<T>> failedChunks = new ArrayList<>();
+		for (final CompletableFuture<ChunkOutcome> future : futures)
+		{
+			final ChunkOutcome outcome = future.join();
+			if (outcome.failure != null)
+			{
+				failedChunks.add(outcome.failure);
+			}
+			else
+			{
+				savedIds.addAll(outcome.savedIds);
+			}
+		}
+		return new BulkSaveResult<>(futures.size(), failedChunks, savedIds);
+	}
+
+	/**
+	 * Copies the given serialized chunk.
+	 *
+	 * @param serializedChunk
+	 *            the serialized chunk
+	 * @return the new copies of the objects of the chunk
+	 */
+	@SuppressWarnings("unchecked")
+	private List<T> copyOf(final byte[] serializedChunk)
+	{
+		return (List<T>)SerializationUtils.deserialize(serializedChunk);
+	}
+
+	/**
+	 * Saves the given chunk in a new transaction and retries it on failure. The state of the chunk
+	 * is serialized before the first attempt and every retry saves fresh copies of this state,
+	 * because the objects of a rolled back attempt can still carry the generated id and version of
+	 * the rolled back transaction.<br>
+	 * <br>
+	 * Note: if a retry succeeds the given objects are not updated, the ids of the saved copies are
+	 * returned in the {@link BulkSaveResult}.
+	 *
+	 * @param chunkIndex
+	 *            the index of the chunk
+	 * @param chunk
+	 *            the objects of the chunk
+	 * @return the outcome of the chunk
+	 */
+	private ChunkOutcome saveChunk(final int chunkIndex, final List<T> chunk)
+	{
+		final byte[] serializedChunk = maxAttempts > 1
+			? SerializationUtils.serialize(new ArrayList<>(chunk))
+			: null;
+		Throwable cause = null;
+		int attempts = 0;
+		for (int attempt = 1; attempt <= maxAttempts; attempt++)
+		{
+			attempts = attempt;
+			final List<T> objects = attempt == 1 ? chunk : copyOf(serializedChunk);
+			try
+			{
+				return new ChunkOutcome(taskExecutor.execute(() -> service.save(objects), false),
+					null);
+			}
+			catch (final RuntimeException e)
+			{
+				cause = e;
+				log.log(Level.WARNING, "Attempt " + attempt + " of " + maxAttempts
+					+ " for save chunk " + chunkIndex + " failed", e);
+				if (attempt < maxAttempts && !sleep(retryDelayMillis * attempt))
+				{
+					break;
+				}
+			}
+		}
+		return new ChunkOutcome(null, new ChunkFailure<>(attempts, chunkIndex, cause, chunk));
+	}
+
+	/**
+	 * Sleeps the given milliseconds.
+	 *
+	 * @param millis
+	 *            the milliseconds
+	 * @return true, if the thread was not interrupted, otherwise false
+	 */
+	private boolean sleep(final long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+			return true;
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * The class {@link ChunkOutcome} holds either the saved ids or the failure of one chunk.
+	 */
+	private final class ChunkOutcome
+	{
+
+		/** The failure or null if the chunk is saved. */
+		private final ChunkFailure<T> failure;
+
+		/** The saved ids or null if the chunk failed. */
+		private final List<PK> savedIds;
+
+		/**
+		 * Instantiates a new {@link ChunkOutcome}.
+		 *
+		 * @param savedIds
+		 *            the saved ids
+		 * @param failure
+		 *            the failure
+		 */
+		ChunkOutcome(final List<PK> savedIds, final ChunkFailure<T> failure)
+		{
+			this.savedIds = savedIds;
+			this.failure = failure;
+		}
+
+	}
+
+}
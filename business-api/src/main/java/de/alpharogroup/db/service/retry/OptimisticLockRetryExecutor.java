@@ -0,0 +1,323 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service.retry;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
+
+import org.hibernate.StaleStateException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.metrics.ContentionMetrics;
+import de.alpharogroup.db.metrics.MetricsRegistry;
+import de.alpharogroup.db.service.api.BusinessService;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link OptimisticLockRetryExecutor} updates versioned objects under concurrent
+ * modification. Every attempt runs in its own new transaction, re-reads the object with the given
+ * id, applies the given mutation and merges the object. If the commit fails with an optimistic
+ * lock conflict the attempt is retried after a jittered exponential backoff until the maximum
+ * number of attempts is reached. The conflicts and retries are recorded in the
+ * {@link ContentionMetrics} of the entity type. <br>
+ * <br>
+ * Note: the mutation can be applied more than once and must therefore only depend on the given
+ * object and not on state of a previous attempt.
+ *
+ * @param <T>
+ *            the generic type of the domain object
+ * @param <PK>
+ *            the generic type of the primary key from the domain object
+ */
+@Log
+public class OptimisticLockRetryExecutor<T extends BaseEntity<PK>, PK extends Serializable>
+{
+
+	/** The Constant DEFAULT_BASE_DELAY_MILLIS. */
+	public static final long DEFAULT_BASE_DELAY_MILLIS = 10L;
+
+	/** The Constant DEFAULT_MAX_ATTEMPTS. */
+	public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+	/** The Constant DEFAULT_MAX_DELAY_MILLIS. */
+	public static final long DEFAULT_MAX_DELAY_MILLIS = 1000L;
+
+	/** The hints for re-read the object from the database and not from the second level cache. */
+	private static final Map<String, Object> BYPASS_CACHE_HINTS = Collections
+		.singletonMap("javax.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+
+	/** The delay in milliseconds before the first retry that doubles with every attempt. */
+	@Getter
+	private final long baseDelayMillis;
+
+	/** The contention metrics of the entity type. */
+	@Getter
+	private final ContentionMetrics contentionMetrics;
+
+	/** The maximum number of attempts. */
+	@Getter
+	private final int maxAttempts;
+
+	/** The upper bound of the delay in milliseconds. */
+	@Getter
+	private final long maxDelayMillis;
+
+	/** The service that reads and merges the objects. */
+	@Getter
+	private final BusinessService<T, PK> service;
+
+	/** The executor that runs every attempt in its own transaction. */
+	@Getter
+	private final TransactionalTaskExecutor taskExecutor;
+
+	/** The class type of the domain object. */
+	@Getter
+	private final Class<T> type;
+
+	/**
+	 * Instantiates a new {@link OptimisticLockRetryExecutor} with the default maximum number of
+	 * attempts and the default delays.
+	 *
+	 * @param service
+	 *            the service that reads and merges the objects
+	 * @param taskExecutor
+	 *            the executor that runs every attempt in its own transaction
+	 * @param type
+	 *            the class type of the domain object
+	 */
+	public OptimisticLockRetryExecutor(final BusinessService<T, PK> service,
+		final TransactionalTaskExecutor taskExecutor, final Class<T> type)
+	{
+		this(service, taskExecutor, type, DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS,
+			DEFAULT_MAX_DELAY_MILLIS);
+	}
+
+	/**
+	 * Instantiates a new {@link OptimisticLockRetryExecutor}.
+	 *
+	 * @param service
+	 *            the service that reads and merges the objects
+	 * @param taskExecutor
+	 *            the executor that runs every attempt in its own transaction
+	 * @param type
+	 *            the class type of the domain object
+	 * @param maxAttempts
+	 *            the maximum number of attempts
+	 * @param baseDelayMillis
+	 *            the delay in milliseconds before the first retry that doubles with every attempt
+	 * @param maxDelayMillis
+	 *            the upper bound of the delay in milliseconds
+	 */
+	public OptimisticLockRetryExecutor(@NonNull final BusinessService<T, PK> service,
+		@NonNull final TransactionalTaskExecutor taskExecutor, @NonNull final Class<T> type,
+		final int maxAttempts, final long baseDelayMillis, final long maxDelayMillis)
+	{
+		if (maxAttempts < 1)
+		{
+			throw new IllegalArgumentException("Given maximum attempts must be greater than 0");
+		}
+		if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis)
+		{
+			throw new IllegalArgumentException("Given delays must not be negative and the maximum"
+				+ " delay must not be less than the base delay");
+		}
+		this.service = service;
+		this.taskExecutor = taskExecutor;
+		this.type = type;
+		this.maxAttempts = maxAttempts;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+		this.contentionMetrics = MetricsRegistry.getContentionMetrics(type);
+	}
+
+	/**
+	 * Checks if the given throwable or one of its causes is an optimistic lock conflict.
+	 *
+	 * @param throwable
+	 *            the throwable
+	 * @return true, if the given throwable is caused from an optimistic lock conflict
+	 */
+	public static boolean isOptimisticLockFailure(final Throwable throwable)
+	{
+		Throwable current = throwable;
+		while (current != null)
+		{
+			if (current instanceof OptimisticLockException
+				|| current instanceof OptimisticLockingFailureException
+				|| current instanceof StaleStateException)
+			{
+				return true;
+			}
+			current = current.getCause() == current ? null : current.getCause();
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the delay before the given retry. The delay is a random value between zero and the
+	 * exponential backoff of the given retry, so concurrent writers of the same object do not
+	 * retry at the same time.
+	 *
+	 * @param retry
+	 *            the number of the retry beginning with 1
+	 * @return the delay in milliseconds
+	 */
+	protected long getDelayMillis(final int retry)
+	{
+		final long backoff = Math.min(maxDelayMillis,
+			baseDelayMillis << Math.min(retry - 1, 30));
+		if (backoff <= 0)
+		{
+			return 0;
+		}
+		return ThreadLocalRandom.current().nextLong(backoff + 1);
+	}
+
+	/**
+	 * Updates the object with the given id with the given mutation and retries the update on
+	 * optimistic lock conflicts.
+	 *
+	 * @param id
+	 *            the id of the object
+	 * @param mutation
+	 *            the mutation that is applied to the re-read object in every attempt
+	 * @return the updated object
+	 * @throws EntityNotFoundException
+	 *             if no object with the given id exists
+	 * @throws OptimisticLockingFailureException
+	 *             if the maximum number of attempts is reached or the current thread is
+	 *             interrupted while waiting for the next attempt
+	 */
+	public T update(@NonNull final PK id, @NonNull final Consumer<T> mutation)
+	{
+		for (int attempt = 1;; attempt++)
+		{
+			final int currentAttempt = attempt;
+			try
+			{
+				final T updated = taskExecutor.execute(() -> {
+					final T object = read(id, currentAttempt);
+					mutation.accept(object);
+					return service.merge(object);
+				}, false);
+				contentionMetrics.recordSuccess(attempt);
+				return updated;
+			}
+			catch (final RuntimeException e)
+			{
+				if (!isOptimisticLockFailure(e))
+				{
+					throw e;
+				}
+				contentionMetrics.recordConflict();
+				if (maxAttempts <= attempt)
+				{
+					contentionMetrics.recordExhausted();
+					throw new OptimisticLockingFailureException("Update of " + type.getName()
+						+ " with id " + id + " failed after " + attempt + " attempts", e);
+				}
+				log.log(Level.FINE,
+					"Attempt " + attempt + " of " + maxAttempts + " for update " + type.getName()
+						+ " with id " + id + " failed with an optimistic lock conflict");
+				if (!sleep(getDelayMillis(attempt)))
+				{
+					contentionMetrics.recordExhausted();
+					throw new OptimisticLockingFailureException("Update of " + type.getName()
+						+ " with id " + id + " was interrupted after " + attempt + " attempts", e);
+				}
+				contentionMetrics.recordRetry();
+			}
+		}
+	}
+
+	/**
+	 * Updates the given object with the given mutation and retries the update on optimistic lock
+	 * conflicts. The given object is only used for its id, every attempt applies the mutation to
+	 * the re-read object.
+	 *
+	 * @param object
+	 *            the object
+	 * @param mutation
+	 *            the mutation that is applied to the re-read object in every attempt
+	 * @return the updated object
+	 * @throws EntityNotFoundException
+	 *             if no object with the id of the given object exists
+	 * @throws OptimisticLockingFailureException
+	 *             if the maximum number of attempts is reached or the current thread is
+	 *             interrupted while waiting for the next attempt
+	 */
+	public T update(@NonNull final T object, @NonNull final Consumer<T> mutation)
+	{
+		return update(object.getId(), mutation);
+	}
+
+	/**
+	 * Reads the object with the given id in the current transaction. Retries bypass the second
+	 * level cache, so the current version is read from the database.
+	 *
+	 * @param id
+	 *            the id
+	 * @param attempt
+	 *            the number of the attempt
+	 * @return the object
+	 */
+	private T read(final PK id, final int attempt)
+	{
+		final T object = attempt == 1
+			? service.getEntityManager().find(type, id)
+			: service.getEntityManager().find(type, id, BYPASS_CACHE_HINTS);
+		if (object == null)
+		{
+			throw new EntityNotFoundException(
+				"No " + type.getName() + " with id " + id + " exists");
+		}
+		return object;
+	}
+
+	/**
+	 * Sleeps the given milliseconds.
+	 *
+	 * @param millis
+	 *            the milliseconds
+	 * @return true, if the thread was not interrupted, otherwise false
+	 */
+	private boolean sleep(final long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+			return true;
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.metrics.MethodMetricsSnapshot;
+import de.alpharogroup.db.metrics.OperationMetrics;
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.service.api.BusinessService;
+import de.alpharogroup.db.strategies.DeferredDeleteStrategy;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The unit test class for the class {@link AbstractBusinessService}.
+ */
+public class AbstractBusinessServiceTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The repository. */
+	private AbstractRepository<TestItem, Integer> repository;
+
+	/** The service. */
+	private TestItemService service;
+
+	/**
+	 * Sets up a new database and a new service.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		repository = database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+		});
+		service = new TestItemService(repository);
+		service.getOperationMetrics().reset();
+	}
+
+	/**
+	 * Closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		database.close();
+	}
+
+	/**
+	 * Test method for {@link AbstractBusinessService#load(java.io.Serializable)}.
+	 */
+	@Test
+	public void testLoad()
+	{
+		final Integer id = database.insertItems(repository, 1).get(0);
+		final TestItem item = database.inTransaction(() -> service.load(id));
+		assertEquals("item-0", item.getName());
+		assertEquals(1, service.getOperationMetrics().getMethodMetrics("load").snapshot()
+			.getCalls());
+	}
+
+	/**
+	 * Test method for {@link AbstractBusinessService#delete(List)} with a
+	 * {@link DeferredDeleteStrategy} that checks that the entities are only enqueued in the
+	 * calling transaction and removed by the purger.
+	 */
+	@Test
+	public void testDeleteWithDeferredDeleteStrategy()
+	{
+		final ExecutorService executorService = Executors.newSingleThreadExecutor();
+		try (DeferredDeleteStrategy<TestItem, Integer> strategy = new DeferredDeleteStrategy<>(
+			repository, new TransactionalTaskExecutor(database.getTransactionManager(),
+				executorService)))
+		{
+			repository.setDeleteStrategy(strategy);
+			final List<Integer> ids = database.insertItems(repository, 3);
+			final List<TestItem> items = database
+				.inTransaction(() -> service.getAll(ids.subList(0, 2)));
+			database.inTransaction(() -> service.delete(items));
+			assertEquals(3, database.countItems());
+			assertEquals(2, strategy.getPendingCount());
+			assertTrue(strategy.isPendingDeletion(ids.get(0)));
+			assertEquals(2, strategy.purgeAll());
+			assertEquals(1, database.countItems());
+			assertEquals("item-2", database.findName(ids.get(2)));
+			assertEquals(0, strategy.getPendingCount());
+		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test method for {@link AbstractBusinessService#getAllAsMap(java.util.Collection)}.
+	 */
+	@Test
+	public void testGetAllAsMap()
+	{
+		final List<Integer> ids = database.insertItems(repository, 2);
+		final Map<Integer, TestItem> items = database.inTransaction(() -> service.getAllAsMap(ids));
+		assertEquals(2, items.size());
+		assertEquals("item-1", items.get(ids.get(1)).getName());
+		assertEquals(1, service.getOperationMetrics().getMethodMetrics("getAllAsMap").snapshot()
+			.getCalls());
+	}
+
+	/**
+	 * Test method for {@link AbstractBusinessService#save(de.alpharogroup.db.entity.BaseEntity)}
+	 * behind a spring transaction proxy that checks that a commit that fails is recorded as error.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSaveWithTransactionProxy()
+	{
+		final ProxyFactory proxyFactory = new ProxyFactory(service);
+		proxyFactory.addAdvice(new TransactionInterceptor(database.getTransactionManager(),
+			new AnnotationTransactionAttributeSource()));
+		final BusinessService<TestItem, Integer> proxy =
+			(BusinessService<TestItem, Integer>)proxyFactory.getProxy();
+		final Integer id = proxy.save(TestItem.newTestItem(1));
+		final TestItem item = TestItem.newTestItem(2);
+		item.setId(id);
+		item.setName(new String(new char[100]).replace('\0', 'x'));
+		try
+		{
+			proxy.merge(item);
+			fail("The commit should fail because the name is too long.");
+		}
+		catch (final RuntimeException e)
+		{
+			// expected
+		}
+		final OperationMetrics metrics = service.getOperationMetrics();
+		final MethodMetricsSnapshot save = metrics.getMethodMetrics("save(T)").snapshot();
+		assertEquals(1, save.getCalls());
+		assertEquals(0, save.getErrors());
+		final MethodMetricsSnapshot merge = metrics.getMethodMetrics("merge(T)").snapshot();
+		assertEquals(1, merge.getCalls());
+		assertEquals(1, merge.getErrors());
+		assertEquals("item-1", database.findName(id));
+	}
+
+}
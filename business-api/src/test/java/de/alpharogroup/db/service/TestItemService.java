@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The class {@link TestItemService} is the business service of the test entity {@link TestItem}
+ * for the service tests.
+ */
+public class TestItemService
+	extends
+		AbstractBusinessService<TestItem, Integer, AbstractRepository<TestItem, Integer>>
+{
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Instantiates a new {@link TestItemService} with the given repository.
+	 *
+	 * @param repository
+	 *            the repository
+	 */
+	public TestItemService(final AbstractRepository<TestItem, Integer> repository)
+	{
+		setRepository(repository);
+	}
+
+}
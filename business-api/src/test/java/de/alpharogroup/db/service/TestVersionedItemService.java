@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.test.TestVersionedItem;
+
+/**
+ * The class {@link TestVersionedItemService} is the business service of the versioned test entity
+ * {@link TestVersionedItem} for the service tests.
+ */
+public class TestVersionedItemService
+	extends
+		AbstractBusinessService<TestVersionedItem, Integer, AbstractRepository<TestVersionedItem, Integer>>
+{
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Instantiates a new {@link TestVersionedItemService} with the given repository.
+	 *
+	 * @param repository
+	 *            the repository
+	 */
+	public TestVersionedItemService(
+		final AbstractRepository<TestVersionedItem, Integer> repository)
+	{
+		setRepository(repository);
+	}
+
+}
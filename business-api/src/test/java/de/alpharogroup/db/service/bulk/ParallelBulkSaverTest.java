@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service.bulk;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.service.TestItemService;
+import de.alpharogroup.db.strategies.api.SaveMode;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The unit test class for the class {@link ParallelBulkSaver}.
+ */
+public class ParallelBulkSaverTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The executor service of the workers. */
+	private ExecutorService executorService;
+
+	/** The number of remaining failures of the chunk with the failing item. */
+	private AtomicInteger remainingFailures;
+
+	/** The service that fails for the chunk with the failing item. */
+	private TestItemService service;
+
+	/** The executor that runs every chunk in its own transaction. */
+	private TransactionalTaskExecutor taskExecutor;
+
+	/**
+	 * Sets up a new database and a service that persists new items and fails after the save of
+	 * the chunk with the item of the quantity 3 as long as failures remain.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		remainingFailures = new AtomicInteger();
+		final AbstractRepository<TestItem, Integer> repository = database
+			.connect(new AbstractRepository<TestItem, Integer>()
+			{
+				private static final long serialVersionUID = 1L;
+			});
+		repository.setSaveMode(SaveMode.PERSIST_NEW);
+		service = new TestItemService(repository)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public List<Integer> save(final List<TestItem> objects)
+			{
+				final List<Integer> ids = super.save(objects);
+				if (objects.stream().anyMatch(item -> item.getQuantity() == 3)
+					&& remainingFailures.getAndDecrement() > 0)
+				{
+					throw new IllegalStateException("Chunk failed");
+				}
+				return ids;
+			}
+		};
+		executorService = Executors.newFixedThreadPool(2);
+		taskExecutor = new TransactionalTaskExecutor(database.getTransactionManager(),
+			executorService);
+	}
+
+	/**
+	 * Shuts down the workers and closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		executorService.shutdownNow();
+		database.close();
+	}
+
+	/**
+	 * Test method for {@link ParallelBulkSaver#ParallelBulkSaver(de.alpharogroup.db.service.api.BusinessService, TransactionalTaskExecutor, int, int, int, long)}
+	 * with a parallelism that is not greater than 0.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewWithInvalidParallelism()
+	{
+		new ParallelBulkSaver<>(service, taskExecutor, 0);
+	}
+
+	/**
+	 * Test method for {@link ParallelBulkSaver#save(List)}.
+	 */
+	@Test
+	public void testSave()
+	{
+		final ParallelBulkSaver<TestItem, Integer> saver = new ParallelBulkSaver<>(service,
+			taskExecutor, 2, 3, 1, 0L);
+		final BulkSaveResult<TestItem, Integer> result = saver.save(database.newItems(7));
+		assertTrue(result.isSuccessful());
+		assertEquals(3, result.getChunkCount());
+		assertEquals(7, new HashSet<>(result.getSavedIds()).size());
+		assertEquals(7, database.countItems());
+	}
+
+	/**
+	 * Test method for {@link ParallelBulkSaver#save(List)} with a chunk that fails once and is
+	 * saved on the retry with fresh copies of its items.
+	 */
+	@Test
+	public void testSaveWithRetry()
+	{
+		remainingFailures.set(1);
+		final ParallelBulkSaver<TestItem, Integer> saver = new ParallelBulkSaver<>(service,
+			taskExecutor, 2, 3, 2, 0L);
+		final BulkSaveResult<TestItem, Integer> result = saver.save(database.newItems(7));
+		assertTrue(result.isSuccessful());
+		assertEquals(7, result.getSavedIds().size());
+		assertEquals(7, database.countItems());
+		for (final Integer id : result.getSavedIds())
+		{
+			assertTrue(database.findName(id).startsWith("item-"));
+		}
+	}
+
+	/**
+	 * Test method for {@link ParallelBulkSaver#save(List)} with a chunk that fails on every
+	 * attempt.
+	 */
+	@Test
+	public void testSaveWithFailingChunk()
+	{
+		remainingFailures.set(Integer.MAX_VALUE);
+		final ParallelBulkSaver<TestItem, Integer> saver = new ParallelBulkSaver<>(service,
+			taskExecutor, 2, 3, 2, 0L);
+		final List<TestItem> items = database.newItems(7);
+		final BulkSaveResult<TestItem, Integer> result = saver.save(items);
+		assertFalse(result.isSuccessful());
+		assertEquals(1, result.getFailedChunks().size());
+		final ChunkFailure<TestItem> failure = result.getFailedChunks().get(0);
+		assertEquals(1, failure.getChunkIndex());
+		assertEquals(2, failure.getAttempts());
+		assertTrue(failure.getCause() instanceof IllegalStateException);
+		assertEquals(items.subList(3, 6), failure.getObjects());
+		assertEquals(items.subList(3, 6), result.getFailedObjects());
+		assertEquals(4, result.getSavedIds().size());
+		assertEquals(4, database.countItems());
+	}
+
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.service.retry;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
+
+import org.hibernate.StaleObjectStateException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.metrics.ContentionMetrics;
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.service.TestVersionedItemService;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestVersionedItem;
+
+/**
+ * The unit test class for the class {@link OptimisticLockRetryExecutor}.
+ */
+public class OptimisticLockRetryExecutorTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The executor service of the task executor and the concurrent writer. */
+	private ExecutorService executorService;
+
+	/** The id of the persisted versioned item. */
+	private Integer id;
+
+	/** The service of the versioned items. */
+	private TestVersionedItemService service;
+
+	/** The executor that runs every attempt in its own transaction. */
+	private TransactionalTaskExecutor taskExecutor;
+
+	/**
+	 * Sets up a new database with one versioned item and a new service.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		final AbstractRepository<TestVersionedItem, Integer> repository = database
+			.connect(new AbstractRepository<TestVersionedItem, Integer>()
+			{
+				private static final long serialVersionUID = 1L;
+			});
+		service = new TestVersionedItemService(repository);
+		id = database.inTransaction(
+			() -> repository.save(TestVersionedItem.newTestVersionedItem(1)));
+		executorService = Executors.newSingleThreadExecutor();
+		taskExecutor = new TransactionalTaskExecutor(database.getTransactionManager(),
+			executorService);
+	}
+
+	/**
+	 * Shuts down the executor service and closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		executorService.shutdownNow();
+		database.close();
+	}
+
+	/**
+	 * Factory method for create a new retry executor with the given maximum number of attempts
+	 * and no delays and resets its contention metrics.
+	 *
+	 * @param maxAttempts
+	 *            the maximum number of attempts
+	 * @return the new retry executor
+	 */
+	private OptimisticLockRetryExecutor<TestVersionedItem, Integer> newRetryExecutor(
+		final int maxAttempts)
+	{
+		final OptimisticLockRetryExecutor<TestVersionedItem, Integer> retryExecutor =
+			new OptimisticLockRetryExecutor<>(service, taskExecutor, TestVersionedItem.class,
+				maxAttempts, 0, 0);
+		retryExecutor.getContentionMetrics().reset();
+		return retryExecutor;
+	}
+
+	/**
+	 * Updates the name and the version of the versioned item with jdbc in another thread, so the
+	 * update is committed outside of the transaction of the current thread like the update of a
+	 * concurrent writer.
+	 */
+	private void updateConcurrently()
+	{
+		CompletableFuture.runAsync(() -> database.getJdbcTemplate().update(
+			"update test_versioned_items set name = ?, version = version + 1 where id = ?",
+			"concurrent", id), executorService).join();
+	}
+
+	/**
+	 * Test method for
+	 * {@link OptimisticLockRetryExecutor#update(java.io.Serializable, java.util.function.Consumer)}
+	 * without conflict.
+	 */
+	@Test
+	public void testUpdate()
+	{
+		final OptimisticLockRetryExecutor<TestVersionedItem, Integer> retryExecutor =
+			newRetryExecutor(3);
+		final TestVersionedItem updated = retryExecutor.update(id,
+			item -> item.setQuantity(item.getQuantity() + 10));
+		assertEquals(11, updated.getQuantity());
+		final ContentionMetrics metrics = retryExecutor.getContentionMetrics();
+		assertEquals(1, metrics.getSuccessCount());
+		assertEquals(0, metrics.getConflictCount());
+	}
+
+	/**
+	 * Test method for
+	 * {@link OptimisticLockRetryExecutor#update(java.io.Serializable, java.util.function.Consumer)}
+	 * with a concurrent update in the first attempt that checks that the mutation is applied again
+	 * to the re-read item.
+	 */
+	@Test
+	public void testUpdateWithConflict()
+	{
+		final OptimisticLockRetryExecutor<TestVersionedItem, Integer> retryExecutor =
+			newRetryExecutor(3);
+		final AtomicInteger attempts = new AtomicInteger();
+		final TestVersionedItem updated = retryExecutor.update(id, item -> {
+			if (attempts.incrementAndGet() == 1)
+			{
+				updateConcurrently();
+			}
+			item.setQuantity(item.getQuantity() + 10);
+		});
+		assertEquals(2, attempts.get());
+		assertEquals("concurrent", updated.getName());
+		assertEquals(11, updated.getQuantity());
+		assertEquals("concurrent", database.getJdbcTemplate().queryForObject(
+			"select name from test_versioned_items where id = ?", String.class, id));
+		final ContentionMetrics metrics = retryExecutor.getContentionMetrics();
+		assertEquals(1, metrics.getConflictCount());
+		assertEquals(1, metrics.getRetryCount());
+		assertEquals(1, metrics.getSuccessAfterRetryCount());
+	}
+
+	/**
+	 * Test method for
+	 * {@link OptimisticLockRetryExecutor#update(java.io.Serializable, java.util.function.Consumer)}
+	 * with a conflict in every attempt.
+	 */
+	@Test
+	public void testUpdateWithExhaustedAttempts()
+	{
+		final OptimisticLockRetryExecutor<TestVersionedItem, Integer> retryExecutor =
+			newRetryExecutor(2);
+		final AtomicInteger attempts = new AtomicInteger();
+		try
+		{
+			retryExecutor.update(id, item -> {
+				attempts.incrementAndGet();
+				updateConcurrently();
+				item.setQuantity(item.getQuantity() + 10);
+			});
+			fail("The update should fail after the maximum number of attempts.");
+		}
+		catch (final OptimisticLockingFailureException e)
+		{
+			// expected
+		}
+		assertEquals(2, attempts.get());
+		final ContentionMetrics metrics = retryExecutor.getContentionMetrics();
+		assertEquals(2, metrics.getConflictCount());
+		assertEquals(1, metrics.getExhaustedCount());
+	}
+
+	/**
+	 * Test method for
+	 * {@link OptimisticLockRetryExecutor#update(java.io.Serializable, java.util.function.Consumer)}
+	 * with the id of an item that does not exist.
+	 */
+	@Test(expectedExceptions = EntityNotFoundException.class)
+	public void testUpdateWithoutItem()
+	{
+		newRetryExecutor(3).update(id + 1, item -> item.setQuantity(0));
+	}
+
+	/**
+	 * Test method for {@link OptimisticLockRetryExecutor#isOptimisticLockFailure(Throwable)}.
+	 */
+	@Test
+	public void testIsOptimisticLockFailure()
+	{
+		assertTrue(OptimisticLockRetryExecutor
+			.isOptimisticLockFailure(new IllegalStateException(new OptimisticLockException())));
+		assertTrue(OptimisticLockRetryExecutor.isOptimisticLockFailure(
+			new StaleObjectStateException(TestVersionedItem.class.getName(), id)));
+		assertTrue(OptimisticLockRetryExecutor
+			.isOptimisticLockFailure(new OptimisticLockingFailureException("conflict")));
+		assertFalse(OptimisticLockRetryExecutor
+			.isOptimisticLockFailure(new IllegalStateException("no conflict")));
+		assertFalse(OptimisticLockRetryExecutor.isOptimisticLockFailure(null));
+	}
+
+	/**
+	 * Test method for {@link OptimisticLockRetryExecutor} with an invalid maximum number of
+	 * attempts.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewWithInvalidMaxAttempts()
+	{
+		newRetryExecutor(0);
+	}
+
+	/**
+	 * Test method for {@link OptimisticLockRetryExecutor} with a maximum delay that is less than
+	 * the base delay.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewWithInvalidDelays()
+	{
+		new OptimisticLockRetryExecutor<>(service, taskExecutor, TestVersionedItem.class, 3, 10,
+			5);
+	}
+
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.async;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * The class {@link AsyncExecutors} provides factory methods for bounded {@link Executor}'s that
+ * execute repository and service tasks. The number of concurrent tasks should not exceed the size
+ * of the connection pool.
+ */
+@UtilityClass
+public class AsyncExecutors
+{
+
+	/** The Constant DEFAULT_THREAD_NAME_PREFIX. */
+	public static final String DEFAULT_THREAD_NAME_PREFIX = "persistence-async-";
+
+	/**
+	 * Checks if the running java virtual machine supports virtual threads.
+	 *
+	 * @return true, if virtual threads are supported, otherwise false
+	 */
+	public static boolean isVirtualThreadSupported()
+	{
+		try
+		{
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		}
+		catch (final NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Factory method for create a new bounded {@link ExecutorService} with a fixed number of
+	 * platform threads and a bounded queue. If the queue is full the task is executed in the
+	 * calling thread, so callers are slowed down instead of rejected.
+	 *
+	 * @param poolSize
+	 *            the number of threads
+	 * @param queueCapacity
+	 *            the capacity of the queue for waiting tasks
+	 * @return the new {@link ExecutorService}
+	 */
+	public static ExecutorService newBoundedExecutorService(final int poolSize,
+		final int queueCapacity)
+	{
+		return newBoundedExecutorService(poolSize, queueCapacity, DEFAULT_THREAD_NAME_PREFIX);
+	}
+
+	/**
+	 * Factory method for create a new bounded {@link ExecutorService} with a fixed number of
+	 * platform threads and a bounded queue. If the queue is full the task is executed in the
+	 * calling thread, so callers are slowed down instead of rejected.
+	 *
+	 * @param poolSize
+	 *            the number of threads
+	 * @param queueCapacity
+	 *            the capacity of the queue for waiting tasks
+	 * @param threadNamePrefix
+	 *            the prefix of the thread names
+	 * @return the new {@link ExecutorService}
+	 */
+	public static ExecutorService newBoundedExecutorService(final int poolSize,
+		final int queueCapacity, final String threadNamePrefix)
+	{
+		final AtomicInteger threadNumber = new AtomicInteger();
+		final ThreadFactory threadFactory = runnable -> {
+			final Thread thread = new Thread(runnable,
+				threadNamePrefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		return new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<>(queueCapacity), threadFactory,
+			new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Factory method for create a new {@link ExecutorService} that starts a new virtual thread for
+	 * every task. The number of concurrent running tasks is bounded by the given maximum
+	 * concurrency. The returned {@link ExecutorService} has to be shut down like any other
+	 * {@link ExecutorService}.
+	 *
+	 * @param maxConcurrency
+	 *            the maximum number of concurrent running tasks
+	 * @return the new {@link ExecutorService}
+	 * @throws UnsupportedOperationException
+	 *             if the running java virtual machine does not support virtual threads
+	 */
+	public static ExecutorService newVirtualThreadExecutor(final int maxConcurrency)
+	{
+		if (maxConcurrency < 1)
+		{
+			throw new IllegalArgumentException("Given maximum concurrency must be greater than 0");
+		}
+		final ExecutorService delegate;
+		try
+		{
+			delegate = (ExecutorService)Executors.class
+				.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (final ReflectiveOperationException e)
+		{
+			throw new UnsupportedOperationException(
+				"Virtual threads are not supported from this java virtual machine", e);
+		}
+		return new ConcurrencyLimitedExecutorService(delegate, maxConcurrency);
+	}
+
+	/**
+	 * The class {@link ConcurrencyLimitedExecutorService} decorates an {@link ExecutorService} and
+	 * bounds the number of concurrent running tasks with a {@link Semaphore}. The life cycle
+	 * methods are delegated, so a shutdown of this executor shuts down the decorated executor.
+	 */
+	static final class ConcurrencyLimitedExecutorService extends AbstractExecutorService
+	{
+
+		/** The decorated executor service. */
+		private final ExecutorService delegate;
+
+		/** The permits for the running tasks. */
+		private final Semaphore permits;
+
+		/**
+		 * Instantiates a new {@link ConcurrencyLimitedExecutorService}.
+		 *
+		 * @param delegate
+		 *            the decorated executor service
+		 * @param maxConcurrency
+		 *            the maximum number of concurrent running tasks
+		 */
+		ConcurrencyLimitedExecutorService(final ExecutorService delegate,
+			final int maxConcurrency)
+		{
+			this.delegate = delegate;
+			this.permits = new Semaphore(maxConcurrency);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean awaitTermination(final long timeout, final TimeUnit unit)
+			throws InterruptedException
+		{
+			return delegate.awaitTermination(timeout, unit);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void execute(final Runnable task)
+		{
+			delegate.execute(() -> {
+				permits.acquireUninterruptibly();
+				try
+				{
+					task.run();
+				}
+				finally
+				{
+					permits.release();
+				}
+			});
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean isShutdown()
+		{
+			return delegate.isShutdown();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean isTerminated()
+		{
+			return delegate.isTerminated();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void shutdown()
+		{
+			delegate.shutdown();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public List<Runnable> shutdownNow()
+		{
+			return delegate.shutdownNow();
+		}
+
+	}
+
+}
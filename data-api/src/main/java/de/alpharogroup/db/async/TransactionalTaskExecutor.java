@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link TransactionalTaskExecutor} executes tasks asynchronous on the given
+ * {@link Executor}. Every task runs in its own new transaction on the worker thread, so with a
+ * shared spring {@link javax.persistence.EntityManager} every task gets its own
+ * {@link javax.persistence.EntityManager}.
+ */
+public class TransactionalTaskExecutor
+{
+
+	/** The executor that runs the tasks. */
+	@Getter
+	private final Executor executor;
+
+	/** The transaction manager. */
+	@Getter
+	private final PlatformTransactionManager transactionManager;
+
+	/**
+	 * Instantiates a new {@link TransactionalTaskExecutor}.
+	 *
+	 * @param transactionManager
+	 *            the transaction manager
+	 * @param executor
+	 *            the executor that runs the tasks
+	 */
+	public TransactionalTaskExecutor(@NonNull final PlatformTransactionManager transactionManager,
+		@NonNull final Executor executor)
+	{
+		this.transactionManager = transactionManager;
+		this.executor = executor;
+	}
+
+	/**
+	 * Executes the given task asynchronous in a new transaction.
+	 *
+	 * @param task
+	 *            the task
+	 * @return the {@link CompletableFuture} that completes after the commit
+	 */
+	public CompletableFuture<Void> runAsync(final Runnable task)
+	{
+		return supplyAsync(() -> {
+			task.run();
+			return null;
+		}, false);
+	}
+
+	/**
+	 * Executes the given task asynchronous in a new transaction.
+	 *
+	 * @param <R>
+	 *            the generic type of the result
+	 * @param task
+	 *            the task
+	 * @param readOnly
+	 *            the flag if the transaction is read only
+	 * @return the {@link CompletableFuture} with the result of the task that completes after the
+	 *         commit
+	 */
+	public <R> CompletableFuture<R> supplyAsync(final Supplier<R> task, final boolean readOnly)
+	{
+		return CompletableFuture.supplyAsync(() -> execute(task, readOnly), executor);
+	}
+
+	/**
+	 * Executes the given task synchronous in a new transaction.
+	 *
+	 * @param <R>
+	 *            the generic type of the result
+	 * @param task
+	 *            the task
+	 * @param readOnly
+	 *            the flag if the transaction is read only
+	 * @return the result of the task
+	 */
+	public <R> R execute(final Supplier<R> task, final boolean readOnly)
+	{
+		final TransactionTemplate transactionTemplate = new TransactionTemplate(
+			transactionManager);
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		transactionTemplate.setReadOnly(readOnly);
+		return transactionTemplate.execute(status -> task.get());
+	}
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+/**
+ * The annotation {@link CacheRegion} declares on a repository class that the entities of the
+ * repository are cached in the second level cache and how their cache region is configured. The
+ * declared regions are collected with {@link SecondLevelCacheConfiguration} before the entity
+ * manager factory is created.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CacheRegion
+{
+
+	/**
+	 * The concurrency strategy of the region.
+	 *
+	 * @return the concurrency strategy
+	 */
+	CacheConcurrencyStrategy concurrencyStrategy() default CacheConcurrencyStrategy.READ_WRITE;
+
+	/**
+	 * The maximum number of cached entities of the region.
+	 *
+	 * @return the maximum number of cached entities
+	 */
+	long maximumSize() default 10_000;
+
+	/**
+	 * The name of the region, by default the class name of the entity.
+	 *
+	 * @return the name of the region
+	 */
+	String name() default "";
+
+	/**
+	 * The time to live of a cached entity in seconds or 0 for no expiration.
+	 *
+	 * @return the time to live in seconds
+	 */
+	long timeToLiveSeconds() default 0;
+
+}
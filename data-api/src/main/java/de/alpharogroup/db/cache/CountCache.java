@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link CountCache} caches the exact number of entities of one repository for a
+ * configured time to live, so pages that show totals do not execute a count statement on every
+ * request. The cached count is invalidated on every write of the repository.
+ */
+public class CountCache
+{
+
+	/** The cached count or -1 if no count is cached. */
+	private volatile long count = -1;
+
+	/** The time in nanoseconds when the cached count expires. */
+	private volatile long expiresAt;
+
+	/** The generation that is incremented on every invalidation. */
+	private final AtomicLong generation = new AtomicLong();
+
+	/** The time to live of a cached count. */
+	@Getter
+	private final Duration timeToLive;
+
+	/**
+	 * Instantiates a new {@link CountCache}.
+	 *
+	 * @param timeToLive
+	 *            the time to live of a cached count
+	 */
+	public CountCache(@NonNull final Duration timeToLive)
+	{
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Gets the cached count. If no count is cached or the cached count is expired the count will
+	 * be loaded with the given loader and cached, unless the cache was invalidated while loading.
+	 *
+	 * @param loader
+	 *            the loader that counts the entities in the database
+	 * @return the count
+	 */
+	public long get(final LongSupplier loader)
+	{
+		final long cachedCount = count;
+		if (0 <= cachedCount && System.nanoTime() - expiresAt < 0)
+		{
+			return cachedCount;
+		}
+		final long loadGeneration = generation.get();
+		final long loadedCount = loader.getAsLong();
+		synchronized (generation)
+		{
+			if (loadGeneration == generation.get())
+			{
+				expiresAt = System.nanoTime() + timeToLive.toNanos();
+				count = loadedCount;
+			}
+		}
+		return loadedCount;
+	}
+
+	/**
+	 * Removes the cached count.
+	 */
+	public void invalidate()
+	{
+		synchronized (generation)
+		{
+			generation.incrementAndGet();
+			count = -1;
+		}
+	}
+
+}
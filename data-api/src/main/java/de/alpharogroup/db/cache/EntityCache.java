@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.cache;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.util.SerializationUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import lombok.Getter;
+
+/**
+ * The class {@link EntityCache} is a bounded read through cache for entities of one repository.
+ * The eviction is frequency aware with the W-TinyLFU policy, so entities that are requested often
+ * are kept even if a scan over rarely requested entities happens. The entities are cached in their
+ * serialized form and every request gets its own detached copy, so changes of a caller never leak
+ * to other callers. <br>
+ * <br>
+ * Note: the entities have to be serializable and lazy associations of the returned copies can not
+ * be initialized, so this cache should only be used for read mostly data like reference data.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ * @param <PK>
+ *            the generic type of the primary key from the entity
+ */
+public class EntityCache<T extends BaseEntity<PK>, PK extends Serializable>
+{
+
+	/** The underlying cache. */
+	private final Cache<PK, byte[]> cache;
+
+	/** The maximum number of cached entities. */
+	@Getter
+	private final long maximumSize;
+
+	/**
+	 * Instantiates a new {@link EntityCache} without expiration.
+	 *
+	 * @param maximumSize
+	 *            the maximum number of cached entities
+	 */
+	public EntityCache(final long maximumSize)
+	{
+		this(maximumSize, null);
+	}
+
+	/**
+	 * Instantiates a new {@link EntityCache}.
+	 *
+	 * @param maximumSize
+	 *            the maximum number of cached entities
+	 * @param expireAfterWrite
+	 *            the duration after an entry expires or null for no expiration
+	 */
+	public EntityCache(final long maximumSize, final Duration expireAfterWrite)
+	{
+		this.maximumSize = maximumSize;
+		final Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maximumSize)
+			.recordStats();
+		if (expireAfterWrite != null)
+		{
+			builder.expireAfterWrite(expireAfterWrite);
+		}
+		this.cache = builder.build();
+	}
+
+	/**
+	 * Checks if the entity with the given id is cached.
+	 *
+	 * @param id
+	 *            the id
+	 * @return true, if the entity with the given id is cached, otherwise false
+	 */
+	public boolean contains(final PK id)
+	{
+		return cache.getIfPresent(id) != null;
+	}
+
+	/**
+	 * Gets a copy of the cached entity with the given id. If the entity is not cached it will be
+	 * loaded with the given loader and cached if the loader finds an entity. The loader has to
+	 * return an entity that is not managed from the persistence context of the caller.
+	 *
+	 * @param id
+	 *            the id
+	 * @param loader
+	 *            the loader that loads the entity from the database
+	 * @return the copy of the entity or null if no entity exists
+	 */
+	public T get(final PK id, final Function<PK, T> loader)
+	{
+		return copyOf(cache.get(id, key -> SerializationUtils.serialize(loader.apply(key))));
+	}
+
+	/**
+	 * Gets a copy of the cached entity with the given id without loading it.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the copy of the cached entity or null if the entity is not cached
+	 */
+	public T getIfPresent(final PK id)
+	{
+		return copyOf(cache.getIfPresent(id));
+	}
+
+	/**
+	 * Gets the statistics with the hit, miss and eviction counts of this cache.
+	 *
+	 * @return the statistics
+	 */
+	public CacheStats getStatistics()
+	{
+		return cache.stats();
+	}
+
+	/**
+	 * Removes the entity with the given id from this cache.
+	 *
+	 * @param id
+	 *            the id
+	 */
+	public void invalidate(final PK id)
+	{
+		if (id != null)
+		{
+			cache.invalidate(id);
+		}
+	}
+
+	/**
+	 * Removes all entities from this cache.
+	 */
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Creates a new copy of the entity from the given serialized form.
+	 *
+	 * @param serialized
+	 *            the serialized entity or null
+	 * @return the new copy or null if the given serialized form is null
+	 */
+	@SuppressWarnings("unchecked")
+	private T copyOf(final byte[] serialized)
+	{
+		return serialized != null ? (T)SerializationUtils.deserialize(serialized) : null;
+	}
+
+	/**
+	 * Gets the approximate number of cached entities.
+	 *
+	 * @return the approximate number of cached entities
+	 */
+	public long size()
+	{
+		return cache.estimatedSize();
+	}
+
+}
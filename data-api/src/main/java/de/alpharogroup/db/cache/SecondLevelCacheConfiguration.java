@@ -0,0 +1,324 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.cache;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.EternalExpiryPolicy;
+import javax.cache.spi.CachingProvider;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.stat.CacheRegionStatistics;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import de.alpharogroup.db.metadata.EntityMetadataRegistry;
+import de.alpharogroup.db.repository.AbstractRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link SecondLevelCacheConfiguration} configures the hibernate second level cache and
+ * query cache with JCache (JSR-107) and the caffeine provider in code. The cache regions are
+ * collected from the {@link CacheRegion} annotations of repository classes or added explicitly.
+ * From the collected regions a {@link CacheManager} with one bounded cache for every region and
+ * the jpa properties for the entity manager factory are created. <br>
+ * <br>
+ * Note: the runtime needs the module hibernate-jcache.
+ */
+public class SecondLevelCacheConfiguration
+{
+
+	/** The Constant QUERY_RESULTS_REGION of hibernate. */
+	public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+	/** The Constant UPDATE_TIMESTAMPS_REGION of hibernate. */
+	public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+	/** The maximum number of cached query results or 0 if the query cache is disabled. */
+	@Getter
+	private long queryCacheMaximumSize;
+
+	/** The time to live of the cached query results or null for no expiration. */
+	@Getter
+	private Duration queryCacheTimeToLive;
+
+	/** The configured regions mapped to the entity class types. */
+	private final Map<Class<?>, RegionConfiguration> regions = new LinkedHashMap<>();
+
+	/** The flag if the statistics of the session factory are generated. */
+	@Getter
+	private boolean statisticsEnabled;
+
+	/**
+	 * Gets the statistics of the region with the given name from the given entity manager
+	 * factory. The entity manager factory has to be created with the properties of
+	 * {@link #newJpaProperties(CacheManager)} of a configuration with
+	 * {@link #enableStatistics()}, otherwise the statistics are not generated.
+	 *
+	 * @param entityManagerFactory
+	 *            the entity manager factory
+	 * @param regionName
+	 *            the name of the region
+	 * @return the statistics of the region or null if no region with the given name exists
+	 */
+	public static CacheRegionStatistics getRegionStatistics(
+		final EntityManagerFactory entityManagerFactory, final String regionName)
+	{
+		return entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+			.getDomainDataRegionStatistics(regionName);
+	}
+
+	/**
+	 * Gets the name of the region of the entities of the given repository class or null if the
+	 * repository class has no {@link CacheRegion} annotation.
+	 *
+	 * @param repositoryClass
+	 *            the repository class
+	 * @return the name of the region or null
+	 */
+	@SuppressWarnings("rawtypes")
+	public static String getRegionName(final Class<? extends AbstractRepository> repositoryClass)
+	{
+		final CacheRegion cacheRegion = repositoryClass.getAnnotation(CacheRegion.class);
+		if (cacheRegion == null)
+		{
+			return null;
+		}
+		if (!cacheRegion.name().isEmpty())
+		{
+			return cacheRegion.name();
+		}
+		return EntityMetadataRegistry
+			.getFirstTypeArgument(AbstractRepository.class, repositoryClass).getName();
+	}
+
+	/**
+	 * Adds the region that is declared with the {@link CacheRegion} annotation of each of the given
+	 * repository classes. Repository classes without annotation are ignored.
+	 *
+	 * @param repositoryClasses
+	 *            the repository classes
+	 * @return this configuration
+	 */
+	@SuppressWarnings("rawtypes")
+	@SafeVarargs
+	public final SecondLevelCacheConfiguration addRepositories(
+		final Class<? extends AbstractRepository>... repositoryClasses)
+	{
+		for (final Class<? extends AbstractRepository> repositoryClass : repositoryClasses)
+		{
+			final CacheRegion cacheRegion = repositoryClass.getAnnotation(CacheRegion.class);
+			if (cacheRegion != null)
+			{
+				addRegion(
+					EntityMetadataRegistry.getFirstTypeArgument(AbstractRepository.class,
+						repositoryClass),
+					getRegionName(repositoryClass), cacheRegion.maximumSize(),
+					0 < cacheRegion.timeToLiveSeconds()
+						? Duration.ofSeconds(cacheRegion.timeToLiveSeconds())
+						: null,
+					cacheRegion.concurrencyStrategy());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a region for the entities of the given class type.
+	 *
+	 * @param entityClass
+	 *            the entity class type
+	 * @param regionName
+	 *            the name of the region
+	 * @param maximumSize
+	 *            the maximum number of cached entities
+	 * @param timeToLive
+	 *            the time to live of a cached entity or null for no expiration
+	 * @param concurrencyStrategy
+	 *            the concurrency strategy
+	 * @return this configuration
+	 */
+	public SecondLevelCacheConfiguration addRegion(@NonNull final Class<?> entityClass,
+		@NonNull final String regionName, final long maximumSize, final Duration timeToLive,
+		@NonNull final CacheConcurrencyStrategy concurrencyStrategy)
+	{
+		if (concurrencyStrategy == CacheConcurrencyStrategy.NONE)
+		{
+			throw new IllegalArgumentException("Given concurrency strategy must not be NONE");
+		}
+		regions.put(entityClass, new RegionConfiguration(regionName, maximumSize, timeToLive,
+			concurrencyStrategy));
+		return this;
+	}
+
+	/**
+	 * Enables the query cache with the given maximum number of cached query results.
+	 *
+	 * @param maximumSize
+	 *            the maximum number of cached query results
+	 * @param timeToLive
+	 *            the time to live of the cached query results or null for no expiration
+	 * @return this configuration
+	 */
+	public SecondLevelCacheConfiguration enableQueryCache(final long maximumSize,
+		final Duration timeToLive)
+	{
+		this.queryCacheMaximumSize = maximumSize;
+		this.queryCacheTimeToLive = timeToLive;
+		return this;
+	}
+
+	/**
+	 * Enables the generation of the statistics of the session factory that are needed for the
+	 * region statistics. The statistics are disabled by default because they add overhead to every
+	 * session.
+	 *
+	 * @return this configuration
+	 */
+	public SecondLevelCacheConfiguration enableStatistics()
+	{
+		this.statisticsEnabled = true;
+		return this;
+	}
+
+	/**
+	 * Factory method for create a new {@link CacheManager} of the caffeine JCache provider with one
+	 * bounded cache for every configured region and the regions of the query cache. The
+	 * statistics and the management of every cache are enabled, so they are exposed over jmx.
+	 *
+	 * @return the new {@link CacheManager}
+	 */
+	public CacheManager newCacheManager()
+	{
+		final CachingProvider cachingProvider = Caching
+			.getCachingProvider(CaffeineCachingProvider.class.getName());
+		final CacheManager cacheManager = cachingProvider.getCacheManager(
+			URI.create("persistence-api:" + UUID.randomUUID()), getClass().getClassLoader());
+		for (final RegionConfiguration region : regions.values())
+		{
+			cacheManager.createCache(region.getName(),
+				newCacheConfiguration(region.getMaximumSize(), region.getTimeToLive()));
+		}
+		if (0 < queryCacheMaximumSize)
+		{
+			cacheManager.createCache(QUERY_RESULTS_REGION,
+				newCacheConfiguration(queryCacheMaximumSize, queryCacheTimeToLive));
+			// the timestamps must outlive every cached query result, so they never expire
+			cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, newCacheConfiguration(0, null));
+		}
+		return cacheManager;
+	}
+
+	/**
+	 * Factory method for create the jpa properties that enable the second level cache with the
+	 * given {@link CacheManager} and mark the entities of the configured regions as cacheable.
+	 *
+	 * @param cacheManager
+	 *            the cache manager from {@link #newCacheManager()}
+	 * @return the new jpa properties
+	 */
+	public Properties newJpaProperties(@NonNull final CacheManager cacheManager)
+	{
+		final Properties properties = new Properties();
+		properties.put("hibernate.cache.use_second_level_cache", "true");
+		properties.put("hibernate.cache.use_query_cache",
+			String.valueOf(0 < queryCacheMaximumSize));
+		properties.put("hibernate.cache.region.factory_class", "jcache");
+		properties.put("hibernate.javax.cache.cache_manager", cacheManager);
+		properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+		if (statisticsEnabled)
+		{
+			properties.put("hibernate.generate_statistics", "true");
+		}
+		for (final Map.Entry<Class<?>, RegionConfiguration> entry : regions.entrySet())
+		{
+			final RegionConfiguration region = entry.getValue();
+			properties.put("hibernate.ejb.classcache." + entry.getKey().getName(),
+				region.getConcurrencyStrategy().toAccessType().getExternalName() + ","
+					+ region.getName());
+		}
+		return properties;
+	}
+
+	/**
+	 * Factory method for create a new bounded cache configuration with statistics.
+	 *
+	 * @param maximumSize
+	 *            the maximum number of entries or 0 for no bound
+	 * @param timeToLive
+	 *            the time to live of an entry or null for no expiration
+	 * @return the new cache configuration
+	 */
+	private CaffeineConfiguration<Object, Object> newCacheConfiguration(final long maximumSize,
+		final Duration timeToLive)
+	{
+		final CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		if (0 < maximumSize)
+		{
+			configuration.setMaximumSize(OptionalLong.of(maximumSize));
+		}
+		if (timeToLive != null)
+		{
+			configuration.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(
+				new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, timeToLive.toMillis())));
+		}
+		else
+		{
+			configuration.setExpiryPolicyFactory(EternalExpiryPolicy.factoryOf());
+		}
+		configuration.setStatisticsEnabled(true);
+		configuration.setManagementEnabled(true);
+		return configuration;
+	}
+
+	/**
+	 * The class {@link RegionConfiguration} holds the configuration of one cache region.
+	 */
+	@Getter
+	@AllArgsConstructor
+	private static final class RegionConfiguration
+	{
+
+		/** The name. */
+		private final String name;
+
+		/** The maximum number of cached entities. */
+		private final long maximumSize;
+
+		/** The time to live or null for no expiration. */
+		private final Duration timeToLive;
+
+		/** The concurrency strategy. */
+		private final CacheConcurrencyStrategy concurrencyStrategy;
+
+	}
+
+}
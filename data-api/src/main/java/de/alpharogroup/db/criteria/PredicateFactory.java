@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.criteria;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+/**
+ * The functional interface {@link PredicateFactory} creates the {@link Predicate} of the where
+ * clause for criteria queries and set based criteria updates and deletes.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ */
+@FunctionalInterface
+public interface PredicateFactory<T>
+{
+
+	/**
+	 * Factory method for create the {@link Predicate} for the given root.
+	 *
+	 * @param root
+	 *            the root of the criteria
+	 * @param builder
+	 *            the criteria builder
+	 * @return the new {@link Predicate}
+	 */
+	Predicate newPredicate(Root<T> root, CriteriaBuilder builder);
+
+}
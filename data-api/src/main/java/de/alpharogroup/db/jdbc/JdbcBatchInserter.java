@@ -0,0 +1,321 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.jdbc;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.SingleTableEntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link JdbcBatchInserter} inserts entities with plain jdbc and bypasses the
+ * persistence context, so no dirty checking, no lifecycle callbacks and no cascades take place.
+ * The insert statement is generated once from the hibernate mapping of the entity class type with
+ * the given number of rows in one statement, and the statements are executed in jdbc batches with
+ * {@link JdbcTemplate#batchUpdate(String, BatchPreparedStatementSetter)}. The parameters are bound
+ * with the hibernate types of the mapping, so attribute converters, enums and associations are
+ * bound like hibernate does. <br>
+ * <br>
+ * Note: only entities that are mapped to one table without entity inheritance are supported.
+ * Collections are not inserted.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ * @param <PK>
+ *            the generic type of the primary key from the entity
+ */
+public class JdbcBatchInserter<T extends BaseEntity<PK>, PK extends Serializable>
+{
+
+	/** The Constant DEFAULT_ROWS_PER_STATEMENT. */
+	public static final int DEFAULT_ROWS_PER_STATEMENT = 100;
+
+	/** The columns of one row in the order of the parameters. */
+	private final List<String> columnNames = new ArrayList<>();
+
+	/** The jdbc template. */
+	@Getter
+	private final JdbcTemplate jdbcTemplate;
+
+	/** The entity persister. */
+	private final AbstractEntityPersister persister;
+
+	/** The indexes of the inserted properties. */
+	private final List<Integer> propertyIndexes = new ArrayList<>();
+
+	/** The number of rows in one insert statement. */
+	@Getter
+	private final int rowsPerStatement;
+
+	/** The session factory. */
+	private final SessionFactoryImplementor sessionFactory;
+
+	/** The flag if the id is generated from the database on insert. */
+	private final boolean identityInsert;
+
+	/**
+	 * Instantiates a new {@link JdbcBatchInserter}.
+	 *
+	 * @param entityManagerFactory
+	 *            the entity manager factory
+	 * @param jdbcTemplate
+	 *            the jdbc template
+	 * @param type
+	 *            the class type of the entity
+	 * @param rowsPerStatement
+	 *            the number of rows in one insert statement
+	 */
+	public JdbcBatchInserter(@NonNull final EntityManagerFactory entityManagerFactory,
+		@NonNull final JdbcTemplate jdbcTemplate, @NonNull final Class<T> type,
+		final int rowsPerStatement)
+	{
+		if (rowsPerStatement < 1)
+		{
+			throw new IllegalArgumentException("Given rows per statement must be greater than 0");
+		}
+		this.jdbcTemplate = jdbcTemplate;
+		this.rowsPerStatement = rowsPerStatement;
+		this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		final EntityPersister entityPersister = sessionFactory.getMetamodel()
+			.entityPersister(type);
+		if (!(entityPersister instanceof SingleTableEntityPersister)
+			|| entityPersister.getEntityMetamodel().hasSubclasses()
+			|| entityPersister.getEntityMetamodel().getSuperclass() != null)
+		{
+			throw new UnsupportedOperationException("Jdbc batch insert is only supported for "
+				+ "entities that are mapped to one table without inheritance: " + type.getName());
+		}
+		this.persister = (AbstractEntityPersister)entityPersister;
+		this.identityInsert = persister.isIdentifierAssignedByInsert();
+		if (!identityInsert)
+		{
+			Collections.addAll(columnNames, persister.getIdentifierColumnNames());
+		}
+		final Type[] propertyTypes = persister.getPropertyTypes();
+		final boolean[] insertability = persister.getPropertyInsertability();
+		for (int i = 0; i < propertyTypes.length; i++)
+		{
+			final String[] propertyColumnNames = persister.getPropertyColumnNames(i);
+			if (insertability[i] && !propertyTypes[i].isCollectionType()
+				&& propertyColumnNames.length > 0)
+			{
+				propertyIndexes.add(i);
+				Collections.addAll(columnNames, propertyColumnNames);
+			}
+		}
+	}
+
+	/**
+	 * Inserts the given entities. Missing ids and versions are generated and set to the given
+	 * entities before the insert, except ids that are generated from the database.
+	 *
+	 * @param entities
+	 *            the entities to insert
+	 * @return the number of inserted rows
+	 */
+	public int insert(final List<T> entities)
+	{
+		if (entities == null || entities.isEmpty())
+		{
+			return 0;
+		}
+		try (StatelessSession statelessSession = sessionFactory.openStatelessSession())
+		{
+			final SharedSessionContractImplementor session = (SharedSessionContractImplementor)statelessSession;
+			final List<Object[]> rows = new ArrayList<>(entities.size());
+			for (final T entity : entities)
+			{
+				rows.add(newRow(entity, session));
+			}
+			final int fullStatements = rows.size() / rowsPerStatement;
+			final int remainingRows = rows.size() % rowsPerStatement;
+			int inserted = 0;
+			if (0 < fullStatements)
+			{
+				inserted += sum(jdbcTemplate.batchUpdate(newInsertString(rowsPerStatement),
+					newStatementSetter(rows, 0, fullStatements, rowsPerStatement, session)),
+					rowsPerStatement);
+			}
+			if (0 < remainingRows)
+			{
+				inserted += sum(jdbcTemplate.batchUpdate(newInsertString(remainingRows),
+					newStatementSetter(rows, fullStatements * rowsPerStatement, 1, remainingRows,
+						session)), remainingRows);
+			}
+			return inserted;
+		}
+	}
+
+	/**
+	 * Factory method for create the insert statement with the given number of rows.
+	 *
+	 * @param rows
+	 *            the number of rows
+	 * @return the insert statement
+	 */
+	protected String newInsertString(final int rows)
+	{
+		final StringBuilder row = new StringBuilder("(");
+		for (int i = 0; i < columnNames.size(); i++)
+		{
+			row.append(i == 0 ? "?" : ", ?");
+		}
+		row.append(")");
+		final StringBuilder sb = new StringBuilder();
+		sb.append("insert into ").append(persister.getTableName()).append(" (")
+			.append(String.join(", ", columnNames)).append(") values ");
+		for (int i = 0; i < rows; i++)
+		{
+			sb.append(i == 0 ? "" : ", ").append(row);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Factory method for create the row of the given entity with the id as first value followed by
+	 * the values of the inserted properties.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @param session
+	 *            the session
+	 * @return the row
+	 */
+	private Object[] newRow(final T entity, final SharedSessionContractImplementor session)
+	{
+		if (!identityInsert && entity.getId() == null)
+		{
+			persister.setIdentifier(entity,
+				persister.getIdentifierGenerator().generate(session, entity), session);
+		}
+		if (persister.isVersioned()
+			&& persister.getPropertyValue(entity, persister.getVersionProperty()) == null)
+		{
+			persister.setPropertyValue(entity, persister.getVersionProperty(),
+				persister.getVersionType().seed(session));
+		}
+		final Object[] propertyValues = persister.getPropertyValues(entity);
+		final Object[] row = new Object[propertyIndexes.size() + 1];
+		row[0] = entity.getId();
+		for (int i = 0; i < propertyIndexes.size(); i++)
+		{
+			row[i + 1] = propertyValues[propertyIndexes.get(i)];
+		}
+		return row;
+	}
+
+	/**
+	 * Factory method for create the {@link BatchPreparedStatementSetter} that binds the given rows.
+	 *
+	 * @param rows
+	 *            all rows
+	 * @param offset
+	 *            the index of the first row
+	 * @param statements
+	 *            the number of statements in the batch
+	 * @param rowsInStatement
+	 *            the number of rows in one statement
+	 * @param session
+	 *            the session
+	 * @return the new {@link BatchPreparedStatementSetter}
+	 */
+	private BatchPreparedStatementSetter newStatementSetter(final List<Object[]> rows,
+		final int offset, final int statements, final int rowsInStatement,
+		final SharedSessionContractImplementor session)
+	{
+		final Type[] propertyTypes = persister.getPropertyTypes();
+		return new BatchPreparedStatementSetter()
+		{
+			@Override
+			public int getBatchSize()
+			{
+				return statements;
+			}
+
+			@Override
+			public void setValues(final PreparedStatement ps, final int statement)
+				throws SQLException
+			{
+				int parameterIndex = 1;
+				for (int r = 0; r < rowsInStatement; r++)
+				{
+					final Object[] row = rows.get(offset + statement * rowsInStatement + r);
+					if (!identityInsert)
+					{
+						persister.getIdentifierType().nullSafeSet(ps, row[0], parameterIndex,
+							session);
+						parameterIndex += persister.getIdentifierColumnNames().length;
+					}
+					for (int i = 0; i < propertyIndexes.size(); i++)
+					{
+						final int propertyIndex = propertyIndexes.get(i);
+						propertyTypes[propertyIndex].nullSafeSet(ps, row[i + 1], parameterIndex,
+							session);
+						parameterIndex += persister.getPropertyColumnNames(propertyIndex).length;
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * Sums the given update counts. Drivers that rewrite the batch like the mysql and postgresql
+	 * drivers return {@link Statement#SUCCESS_NO_INFO} for a successful statement, in this case all
+	 * rows of the statement are counted as inserted.
+	 *
+	 * @param updateCounts
+	 *            the update counts
+	 * @param rowsPerStatement
+	 *            the number of rows in one statement
+	 * @return the sum of the update counts
+	 */
+	private static int sum(final int[] updateCounts, final int rowsPerStatement)
+	{
+		int sum = 0;
+		for (final int updateCount : updateCounts)
+		{
+			if (updateCount == Statement.SUCCESS_NO_INFO)
+			{
+				sum += rowsPerStatement;
+			}
+			else if (0 < updateCount)
+			{
+				sum += updateCount;
+			}
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metadata;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+
+import javax.persistence.metamodel.SingularAttribute;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The class {@link EntityMetadata} holds the metadata of one entity class type that is resolved
+ * only once from the {@link EntityMetadataRegistry} and shared between repositories, strategies
+ * and services.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ * @param <PK>
+ *            the generic type of the primary key from the entity
+ */
+@Getter
+@ToString(of = { "type", "entityName", "tableName" })
+public final class EntityMetadata<T extends BaseEntity<PK>, PK extends Serializable>
+{
+
+	/** The jpql string for count all entities. */
+	private final String countString;
+
+	/** The jpql string for delete the entities with the ids of the parameter 'ids'. */
+	private final String deleteByIdsString;
+
+	/** The entity name. */
+	private final String entityName;
+
+	/** The id attribute of the metamodel. */
+	private final SingularAttribute<? super T, PK> idAttribute;
+
+	/** The name of the id attribute. */
+	private final String idAttributeName;
+
+	/** The class type of the primary key. */
+	private final Class<PK> idType;
+
+	/** The jpql string for select all entities. */
+	private final String selectAllString;
+
+	/**
+	 * The jpql string for select the entities with an id greater than the parameter 'lastId'
+	 * ordered by the id.
+	 */
+	private final String selectAfterIdString;
+
+	/** The jpql string for select all entities ordered by the id. */
+	private final String selectAllOrderedByIdString;
+
+	/** The jpql string for select the id of the entity with the id of the parameter 'id'. */
+	private final String selectIdByIdString;
+
+	/** The jpql string for select the ids of the entities with the ids of the parameter 'ids'. */
+	private final String selectIdsByIdsString;
+
+	/** The name of the database table or null if it could not be resolved. */
+	private final String tableName;
+
+	/** The class type of the entity. */
+	private final Class<T> type;
+
+	/** The java member of the version attribute or null if the entity is not versioned. */
+	@Getter(AccessLevel.NONE)
+	private final Member versionMember;
+
+	/**
+	 * Instantiates a new {@link EntityMetadata}.
+	 *
+	 * @param type
+	 *            the class type of the entity
+	 * @param entityName
+	 *            the entity name
+	 * @param tableName
+	 *            the name of the database table
+	 * @param idAttribute
+	 *            the id attribute of the metamodel
+	 * @param idType
+	 *            the class type of the primary key
+	 * @param versionMember
+	 *            the java member of the version attribute or null if the entity is not versioned
+	 */
+	EntityMetadata(final Class<T> type, final String entityName, final String tableName,
+		final SingularAttribute<? super T, PK> idAttribute, final Class<PK> idType,
+		final Member versionMember)
+	{
+		if (versionMember instanceof Field)
+		{
+			((Field)versionMember).setAccessible(true);
+		}
+		else if (versionMember instanceof Method)
+		{
+			((Method)versionMember).setAccessible(true);
+		}
+		this.versionMember = versionMember;
+		this.type = type;
+		this.entityName = entityName;
+		this.tableName = tableName;
+		this.idAttribute = idAttribute;
+		this.idAttributeName = idAttribute.getName();
+		this.idType = idType;
+		final String id = "e." + idAttributeName;
+		final String from = " from " + entityName + " e";
+		this.selectAllString = "select e" + from;
+		this.selectAllOrderedByIdString = selectAllString + " order by " + id;
+		this.selectAfterIdString = selectAllString + " where " + id + " > :lastId order by " + id;
+		this.countString = "select count(e)" + from;
+		this.selectIdByIdString = "select " + id + from + " where " + id + " = :id";
+		this.selectIdsByIdsString = "select " + id + from + " where " + id + " in (:ids)";
+		this.deleteByIdsString = "delete" + from + " where " + id + " in (:ids)";
+	}
+
+	/**
+	 * Gets the value of the version attribute from the given entity.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return the value of the version attribute or null if the entity is not versioned
+	 */
+	public Object getVersion(final T entity)
+	{
+		try
+		{
+			if (versionMember instanceof Field)
+			{
+				return ((Field)versionMember).get(entity);
+			}
+			if (versionMember instanceof Method)
+			{
+				return ((Method)versionMember).invoke(entity);
+			}
+			return null;
+		}
+		catch (IllegalAccessException | InvocationTargetException e)
+		{
+			throw new IllegalStateException(
+				"Could not read the version attribute of the entity " + entityName, e);
+		}
+	}
+
+	/**
+	 * Checks if the entity class type is versioned.
+	 *
+	 * @return true, if the entity has a version attribute, otherwise false
+	 */
+	public boolean isVersioned()
+	{
+		return versionMember != null;
+	}
+
+	/**
+	 * Checks if the given entity is new and was never persisted. An entity is new if the id is null
+	 * or if the entity is versioned and the version is null.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return true, if the given entity is new, otherwise false
+	 */
+	public boolean isNew(final T entity)
+	{
+		if (entity.getId() == null)
+		{
+			return true;
+		}
+		return isVersioned() && getVersion(entity) == null;
+	}
+
+}
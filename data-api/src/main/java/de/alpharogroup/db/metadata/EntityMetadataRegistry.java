@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metadata;
+
+import java.io.Serializable;
+import java.lang.reflect.Member;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.lang.TypeArgumentsExtensions;
+import lombok.experimental.UtilityClass;
+
+/**
+ * The class {@link EntityMetadataRegistry} resolves the {@link EntityMetadata} and the generic
+ * type arguments of classes only once per class. All methods are thread safe.
+ */
+@UtilityClass
+public class EntityMetadataRegistry
+{
+
+	/** The resolved entity metadata mapped to the class type of the entity. */
+	private static final Map<Class<?>, EntityMetadata<?, ?>> ENTITY_METADATA = new ConcurrentHashMap<>();
+
+	/** The resolved first type arguments mapped to the base class and the child class. */
+	private static final Map<Class<?>, Map<Class<?>, Class<?>>> FIRST_TYPE_ARGUMENTS = new ConcurrentHashMap<>();
+
+	/** The resolved first type arguments of the generic superclass mapped to the class. */
+	private static final Map<Class<?>, Class<?>> SUPERCLASS_FIRST_TYPE_ARGUMENTS = new ConcurrentHashMap<>();
+
+	/**
+	 * Gets the {@link EntityMetadata} of the given entity class type. The metadata is resolved
+	 * from the metamodel of the given {@link EntityManager} on the first call.
+	 *
+	 * @param <T>
+	 *            the generic type of the entity
+	 * @param <PK>
+	 *            the generic type of the primary key from the entity
+	 * @param entityManager
+	 *            the entity manager
+	 * @param type
+	 *            the class type of the entity
+	 * @return the {@link EntityMetadata}
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends BaseEntity<PK>, PK extends Serializable> EntityMetadata<T, PK> getEntityMetadata(
+		final EntityManager entityManager, final Class<T> type)
+	{
+		return (EntityMetadata<T, PK>)ENTITY_METADATA.computeIfAbsent(type,
+			key -> newEntityMetadata(entityManager, type));
+	}
+
+	/**
+	 * Gets the first generic type argument of the given child class that is declared in the given
+	 * base class.
+	 *
+	 * @param <T>
+	 *            the generic type of the type argument
+	 * @param baseClass
+	 *            the base class
+	 * @param childClass
+	 *            the child class
+	 * @return the first type argument or null if it could not be resolved
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Class<T> getFirstTypeArgument(final Class<?> baseClass,
+		final Class<?> childClass)
+	{
+		return (Class<T>)FIRST_TYPE_ARGUMENTS
+			.computeIfAbsent(baseClass, key -> new ConcurrentHashMap<>())
+			.computeIfAbsent(childClass,
+				key -> TypeArgumentsExtensions
+					.getFirstTypeArgument((Class<Object>)baseClass, childClass));
+	}
+
+	/**
+	 * Gets the first generic type argument of the generic superclass of the given class.
+	 *
+	 * @param <T>
+	 *            the generic type of the type argument
+	 * @param childClass
+	 *            the class
+	 * @return the first type argument or null if it could not be resolved
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Class<T> getFirstTypeArgument(final Class<?> childClass)
+	{
+		return (Class<T>)SUPERCLASS_FIRST_TYPE_ARGUMENTS.computeIfAbsent(childClass,
+			key -> TypeArgumentsExtensions.getFirstTypeArgument(childClass));
+	}
+
+	/**
+	 * Factory method for create a new {@link EntityMetadata} of the given entity class type.
+	 *
+	 * @param <T>
+	 *            the generic type of the entity
+	 * @param <PK>
+	 *            the generic type of the primary key from the entity
+	 * @param entityManager
+	 *            the entity manager
+	 * @param type
+	 *            the class type of the entity
+	 * @return the new {@link EntityMetadata}
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends BaseEntity<PK>, PK extends Serializable> EntityMetadata<T, PK> newEntityMetadata(
+		final EntityManager entityManager, final Class<T> type)
+	{
+		final EntityType<T> entityType = entityManager.getMetamodel().entity(type);
+		final SingularAttribute<? super T, PK> idAttribute = entityType
+			.getId((Class<PK>)entityType.getIdType().getJavaType());
+		String tableName = null;
+		final EntityPersister persister = entityManager.getEntityManagerFactory()
+			.unwrap(SessionFactoryImplementor.class).getMetamodel().entityPersister(type);
+		if (persister instanceof AbstractEntityPersister)
+		{
+			tableName = ((AbstractEntityPersister)persister).getTableName();
+		}
+		// the metamodel reports the erased type for an id of a generic mapped superclass
+		final Class<PK> idType = (Class<PK>)persister.getIdentifierType().getReturnedClass();
+		Member versionMember = null;
+		if (entityType.hasVersionAttribute())
+		{
+			for (final SingularAttribute<? super T, ?> attribute : entityType
+				.getSingularAttributes())
+			{
+				if (attribute.isVersion())
+				{
+					versionMember = attribute.getJavaMember();
+				}
+			}
+		}
+		return new EntityMetadata<>(type, entityType.getName(), tableName, idAttribute, idType,
+			versionMember);
+	}
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * The class {@link ContentionMetrics} counts the optimistic lock conflicts and retries of the
+ * concurrent updates of one entity type.
+ */
+public class ContentionMetrics implements ContentionMetricsMXBean
+{
+
+	/** The number of conflicts. */
+	private final LongAdder conflicts = new LongAdder();
+
+	/** The name of the entity type. */
+	@Getter
+	private final String entityName;
+
+	/** The number of exhausted executions. */
+	private final LongAdder exhausted = new LongAdder();
+
+	/** The number of retries. */
+	private final LongAdder retries = new LongAdder();
+
+	/** The number of succeeded executions. */
+	private final LongAdder successes = new LongAdder();
+
+	/** The number of succeeded executions after a retry. */
+	private final LongAdder successesAfterRetry = new LongAdder();
+
+	/**
+	 * Instantiates a new {@link ContentionMetrics}.
+	 *
+	 * @param entityName
+	 *            the name of the entity type
+	 */
+	public ContentionMetrics(final String entityName)
+	{
+		this.entityName = entityName;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getConflictCount()
+	{
+		return conflicts.sum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getExhaustedCount()
+	{
+		return exhausted.sum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRetryCount()
+	{
+		return retries.sum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSuccessAfterRetryCount()
+	{
+		return successesAfterRetry.sum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSuccessCount()
+	{
+		return successes.sum();
+	}
+
+	/**
+	 * Records an attempt that failed with an optimistic lock conflict.
+	 */
+	public void recordConflict()
+	{
+		conflicts.increment();
+	}
+
+	/**
+	 * Records an execution that failed because the maximum number of attempts was reached.
+	 */
+	public void recordExhausted()
+	{
+		exhausted.increment();
+	}
+
+	/**
+	 * Records a retried attempt.
+	 */
+	public void recordRetry()
+	{
+		retries.increment();
+	}
+
+	/**
+	 * Records a succeeded execution.
+	 *
+	 * @param attempts
+	 *            the number of attempts of the execution
+	 */
+	public void recordSuccess(final int attempts)
+	{
+		successes.increment();
+		if (1 < attempts)
+		{
+			successesAfterRetry.increment();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset()
+	{
+		conflicts.reset();
+		exhausted.reset();
+		retries.reset();
+		successes.reset();
+		successesAfterRetry.reset();
+	}
+
+}
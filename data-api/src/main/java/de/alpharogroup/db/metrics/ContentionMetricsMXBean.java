@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metrics;
+
+/**
+ * The interface {@link ContentionMetricsMXBean} exposes the {@link ContentionMetrics} of one entity
+ * type over jmx.
+ */
+public interface ContentionMetricsMXBean
+{
+
+	/**
+	 * Gets the number of attempts that failed with an optimistic lock conflict.
+	 *
+	 * @return the number of conflicts
+	 */
+	long getConflictCount();
+
+	/**
+	 * Gets the name of the entity type.
+	 *
+	 * @return the name of the entity type
+	 */
+	String getEntityName();
+
+	/**
+	 * Gets the number of executions that failed because the maximum number of attempts was
+	 * reached.
+	 *
+	 * @return the number of exhausted executions
+	 */
+	long getExhaustedCount();
+
+	/**
+	 * Gets the number of retried attempts.
+	 *
+	 * @return the number of retries
+	 */
+	long getRetryCount();
+
+	/**
+	 * Gets the number of executions that succeeded.
+	 *
+	 * @return the number of succeeded executions
+	 */
+	long getSuccessCount();
+
+	/**
+	 * Gets the number of executions that succeeded only after at least one retry.
+	 *
+	 * @return the number of succeeded executions after a retry
+	 */
+	long getSuccessAfterRetryCount();
+
+	/**
+	 * Removes all recorded counts.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The class {@link LatencyHistogram} is a lock free histogram of latencies in nanoseconds with log
+ * linear buckets. Every power of two is divided in 16 linear sub buckets, so a percentile is
+ * reported with a relative error of at most 1/16 while the memory consumption is fixed. Recording
+ * a value is one atomic increment and is safe from any number of threads.
+ */
+public class LatencyHistogram
+{
+
+	/** The number of bits of the linear sub buckets. */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/** The number of linear sub buckets of one power of two. */
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/** The number of buckets for all positive long values. */
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	/** The counts of the buckets. */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	/** The number of recorded values. */
+	private final LongAdder count = new LongAdder();
+
+	/** The maximum recorded value. */
+	private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+	/** The sum of the recorded values. */
+	private final LongAdder sum = new LongAdder();
+
+	/**
+	 * Gets the index of the bucket of the given value.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the index of the bucket
+	 */
+	static int getBucketIndex(final long value)
+	{
+		if (value < 2 * SUB_BUCKET_COUNT)
+		{
+			return (int)value;
+		}
+		final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+		return shift * SUB_BUCKET_COUNT + (int)(value >>> shift);
+	}
+
+	/**
+	 * Gets the highest value of the bucket with the given index.
+	 *
+	 * @param index
+	 *            the index of the bucket
+	 * @return the highest value of the bucket
+	 */
+	static long getHighestValue(final int index)
+	{
+		if (index < 2 * SUB_BUCKET_COUNT)
+		{
+			return index;
+		}
+		final int shift = index / SUB_BUCKET_COUNT - 1;
+		final long subBucket = index - shift * SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Gets the number of recorded values.
+	 *
+	 * @return the number of recorded values
+	 */
+	public long getCount()
+	{
+		return count.sum();
+	}
+
+	/**
+	 * Gets the maximum recorded value.
+	 *
+	 * @return the maximum recorded value
+	 */
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/**
+	 * Gets the mean of the recorded values.
+	 *
+	 * @return the mean of the recorded values or 0 if no value is recorded
+	 */
+	public double getMean()
+	{
+		final long currentCount = count.sum();
+		return currentCount == 0 ? 0 : (double)sum.sum() / currentCount;
+	}
+
+	/**
+	 * Gets the value at the given percentile. The returned value is the highest value of the
+	 * bucket that contains the percentile, but never greater than the maximum recorded value.
+	 *
+	 * @param percentile
+	 *            the percentile between 0 and 100
+	 * @return the value at the given percentile or 0 if no value is recorded
+	 */
+	public long getValueAtPercentile(final double percentile)
+	{
+		long total = 0;
+		final long[] counts = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0)
+		{
+			return 0;
+		}
+		final long rank = Math.max(1, (long)Math.ceil(Math.min(100, percentile) / 100 * total));
+		long cumulated = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			cumulated += counts[i];
+			if (rank <= cumulated)
+			{
+				return Math.min(getHighestValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Records the given value. Negative values are recorded as 0.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void record(final long value)
+	{
+		final long recordValue = Math.max(0, value);
+		buckets.incrementAndGet(getBucketIndex(recordValue));
+		count.increment();
+		sum.add(recordValue);
+		max.accumulate(recordValue);
+	}
+
+	/**
+	 * Removes all recorded values.
+	 */
+	public void reset()
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			buckets.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+}
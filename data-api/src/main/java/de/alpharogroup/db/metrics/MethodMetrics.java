@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * The class {@link MethodMetrics} counts the calls and errors of one method and records their
+ * latencies in a {@link LatencyHistogram}.
+ */
+public class MethodMetrics
+{
+
+	/** The number of calls. */
+	private final LongAdder calls = new LongAdder();
+
+	/** The number of calls that failed with an exception. */
+	private final LongAdder errors = new LongAdder();
+
+	/** The histogram of the latencies in nanoseconds. */
+	@Getter
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	/** The name of the method. */
+	@Getter
+	private final String methodName;
+
+	/**
+	 * Instantiates a new {@link MethodMetrics}.
+	 *
+	 * @param methodName
+	 *            the name of the method
+	 */
+	public MethodMetrics(final String methodName)
+	{
+		this.methodName = methodName;
+	}
+
+	/**
+	 * Records one call with the given latency.
+	 *
+	 * @param latencyNanos
+	 *            the latency in nanoseconds
+	 * @param failed
+	 *            the flag if the call failed with an exception
+	 */
+	public void record(final long latencyNanos, final boolean failed)
+	{
+		calls.increment();
+		if (failed)
+		{
+			errors.increment();
+		}
+		latencies.record(latencyNanos);
+	}
+
+	/**
+	 * Removes all recorded calls.
+	 */
+	public void reset()
+	{
+		calls.reset();
+		errors.reset();
+		latencies.reset();
+	}
+
+	/**
+	 * Factory method for create a new {@link MethodMetricsSnapshot} of the current values.
+	 *
+	 * @return the new {@link MethodMetricsSnapshot}
+	 */
+	public MethodMetricsSnapshot snapshot()
+	{
+		return new MethodMetricsSnapshot(methodName, calls.sum(), errors.sum(),
+			latencies.getMean() / 1000, latencies.getValueAtPercentile(50) / 1000,
+			latencies.getValueAtPercentile(99) / 1000, latencies.getValueAtPercentile(99.9) / 1000,
+			latencies.getMax() / 1000);
+	}
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metrics;
+
+import java.beans.ConstructorProperties;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The class {@link MethodMetricsSnapshot} holds the values of a {@link MethodMetrics} at one point
+ * in time. All latencies are in microseconds.
+ */
+@Getter
+@ToString
+public class MethodMetricsSnapshot
+{
+
+	/** The number of calls. */
+	private final long calls;
+
+	/** The number of calls that failed with an exception. */
+	private final long errors;
+
+	/** The maximum latency. */
+	private final long max;
+
+	/** The mean latency. */
+	private final double mean;
+
+	/** The name of the method. */
+	private final String methodName;
+
+	/** The median latency. */
+	private final long p50;
+
+	/** The 99th percentile of the latencies. */
+	private final long p99;
+
+	/** The 99.9th percentile of the latencies. */
+	private final long p999;
+
+	/**
+	 * Instantiates a new {@link MethodMetricsSnapshot}.
+	 *
+	 * @param methodName
+	 *            the name of the method
+	 * @param calls
+	 *            the number of calls
+	 * @param errors
+	 *            the number of calls that failed with an exception
+	 * @param mean
+	 *            the mean latency
+	 * @param p50
+	 *            the median latency
+	 * @param p99
+	 *            the 99th percentile of the latencies
+	 * @param p999
+	 *            the 99.9th percentile of the latencies
+	 * @param max
+	 *            the maximum latency
+	 */
+	@ConstructorProperties({ "methodName", "calls", "errors", "mean", "p50", "p99", "p999",
+			"max" })
+	public MethodMetricsSnapshot(final String methodName, final long calls, final long errors,
+		final double mean, final long p50, final long p99, final long p999, final long max)
+	{
+		this.methodName = methodName;
+		this.calls = calls;
+		this.errors = errors;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p99 = p99;
+		this.p999 = p999;
+		this.max = max;
+	}
+
+}
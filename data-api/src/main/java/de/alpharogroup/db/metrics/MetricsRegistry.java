@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link MetricsRegistry} holds the {@link OperationMetrics} of all entity types and
+ * layers. Every {@link OperationMetrics} is registered once as MXBean in the platform mbean server
+ * with the object name 'de.alpharogroup.db:type=OperationMetrics,layer=...,entity=...'. The
+ * {@link ContentionMetrics} of all entity types are registered with the object name
+ * 'de.alpharogroup.db:type=ContentionMetrics,entity=...'. On shutdown or redeploy of the
+ * application {@link #unregisterAll()} has to be called, so the platform mbean server holds no
+ * reference to the metrics and the classes of the application.
+ */
+@Log
+@UtilityClass
+public class MetricsRegistry
+{
+
+	/** The Constant DOMAIN for the object names of the registered MXBeans. */
+	public static final String DOMAIN = "de.alpharogroup.db";
+
+	/** The Constant LAYER_REPOSITORY. */
+	public static final String LAYER_REPOSITORY = "repository";
+
+	/** The Constant LAYER_SERVICE. */
+	public static final String LAYER_SERVICE = "service";
+
+	/** The contention metrics mapped to the entity class type. */
+	private static final Map<String, ContentionMetrics> CONTENTION_METRICS =
+		new ConcurrentHashMap<>();
+
+	/** The operation metrics mapped to the layer and the entity class type. */
+	private static final Map<String, OperationMetrics> METRICS = new ConcurrentHashMap<>();
+
+	/** The object names of the registered MXBeans. */
+	private static final Set<ObjectName> OBJECT_NAMES = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Gets the {@link ContentionMetrics} of the given entity class type. On the first request the
+	 * {@link ContentionMetrics} is created and registered in the platform mbean server.
+	 *
+	 * @param type
+	 *            the entity class type
+	 * @return the {@link ContentionMetrics}
+	 */
+	public static ContentionMetrics getContentionMetrics(final Class<?> type)
+	{
+		return CONTENTION_METRICS.computeIfAbsent(type.getName(), key -> {
+			final ContentionMetrics metrics = new ContentionMetrics(type.getName());
+			register(metrics, "type=ContentionMetrics,entity=" + ObjectName.quote(type.getName()));
+			return metrics;
+		});
+	}
+
+	/**
+	 * Gets the {@link OperationMetrics} of the given layer and entity class type. On the first
+	 * request the {@link OperationMetrics} is created and registered in the platform mbean server.
+	 *
+	 * @param layer
+	 *            the name of the layer
+	 * @param type
+	 *            the entity class type
+	 * @return the {@link OperationMetrics}
+	 */
+	public static OperationMetrics getOperationMetrics(final String layer, final Class<?> type)
+	{
+		return METRICS.computeIfAbsent(layer + ":" + type.getName(), key -> {
+			final OperationMetrics metrics = new OperationMetrics(layer, type.getName());
+			register(metrics, "type=OperationMetrics,layer=" + ObjectName.quote(layer)
+				+ ",entity=" + ObjectName.quote(type.getName()));
+			return metrics;
+		});
+	}
+
+	/**
+	 * Gets all {@link OperationMetrics}.
+	 *
+	 * @return the list with all {@link OperationMetrics}
+	 */
+	public static List<OperationMetrics> getAllOperationMetrics()
+	{
+		return new ArrayList<>(METRICS.values());
+	}
+
+	/**
+	 * Factory method for create the snapshots of the metrics of all called methods of all
+	 * {@link OperationMetrics}.
+	 *
+	 * @return the snapshots mapped to the layer and the entity name, for instance
+	 *         'repository:com.example.User'
+	 */
+	public static Map<String, List<MethodMetricsSnapshot>> snapshot()
+	{
+		final Map<String, List<MethodMetricsSnapshot>> snapshots = new TreeMap<>();
+		METRICS.forEach((key, metrics) -> snapshots.put(key, metrics.getMethodMetrics()));
+		return snapshots;
+	}
+
+	/**
+	 * Unregisters all metrics from the platform mbean server and removes all metrics from this
+	 * registry. A failed unregistration is logged.
+	 */
+	public static void unregisterAll()
+	{
+		final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		for (final ObjectName objectName : OBJECT_NAMES)
+		{
+			try
+			{
+				if (mBeanServer.isRegistered(objectName))
+				{
+					mBeanServer.unregisterMBean(objectName);
+				}
+			}
+			catch (final JMException | SecurityException e)
+			{
+				log.log(Level.WARNING, "Unregistration of the metrics failed for " + objectName,
+					e);
+			}
+			OBJECT_NAMES.remove(objectName);
+		}
+		METRICS.clear();
+		CONTENTION_METRICS.clear();
+	}
+
+	/**
+	 * Registers the given metrics in the platform mbean server. An already registered MXBean with
+	 * the same object name, for instance from a previous deployment, is replaced. A failed
+	 * registration is logged and does not affect the recording.
+	 *
+	 * @param metrics
+	 *            the metrics
+	 * @param keyProperties
+	 *            the key properties of the object name
+	 */
+	private static void register(final Object metrics, final String keyProperties)
+	{
+		try
+		{
+			final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName objectName = new ObjectName(DOMAIN + ":" + keyProperties);
+			if (mBeanServer.isRegistered(objectName))
+			{
+				mBeanServer.unregisterMBean(objectName);
+			}
+			mBeanServer.registerMBean(metrics, objectName);
+			OBJECT_NAMES.add(objectName);
+		}
+		catch (final JMException | SecurityException e)
+		{
+			log.log(Level.WARNING, "Registration of the metrics failed for " + keyProperties, e);
+		}
+	}
+
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.Getter;
+
+/**
+ * The class {@link OperationMetrics} records the calls, errors and latencies of the methods of one
+ * entity type in one layer. Only the outermost call on a thread is recorded, so a method that calls
+ * another recorded method of the same layer and entity type, for instance saveOrUpdate that calls
+ * save, is counted once.
+ * <p>
+ * The recording methods run inside of the transaction that the spring transaction interceptor has
+ * started for the called method. If a target class is given and the current transaction was
+ * started for the recorded method of the target class, the call is recorded after the completion
+ * of the transaction, so the latency contains the flush and the commit and a failed commit is
+ * recorded as an error.
+ */
+public class OperationMetrics implements OperationMetricsMXBean
+{
+
+	/** The name of the entity type. */
+	@Getter
+	private final String entityName;
+
+	/** The name of the layer. */
+	@Getter
+	private final String layer;
+
+	/** The metrics mapped to the method names. */
+	private final Map<String, MethodMetrics> methodMetrics = new ConcurrentHashMap<>();
+
+	/** The flag if a call is recorded on the current thread. */
+	private final ThreadLocal<Boolean> recording = new ThreadLocal<>();
+
+	/**
+	 * Instantiates a new {@link OperationMetrics}.
+	 *
+	 * @param layer
+	 *            the name of the layer
+	 * @param entityName
+	 *            the name of the entity type
+	 */
+	public OperationMetrics(final String layer, final String entityName)
+	{
+		this.layer = layer;
+		this.entityName = entityName;
+	}
+
+	/**
+	 * Gets the metrics of the method with the given name.
+	 *
+	 * @param methodName
+	 *            the name of the method
+	 * @return the metrics of the method
+	 */
+	public MethodMetrics getMethodMetrics(final String methodName)
+	{
+		final MethodMetrics metrics = methodMetrics.get(methodName);
+		if (metrics != null)
+		{
+			return metrics;
+		}
+		return methodMetrics.computeIfAbsent(methodName, MethodMetrics::new);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<MethodMetricsSnapshot> getMethodMetrics()
+	{
+		final List<MethodMetricsSnapshot> snapshots = new ArrayList<>(methodMetrics.size());
+		for (final MethodMetrics metrics : methodMetrics.values())
+		{
+			snapshots.add(metrics.snapshot());
+		}
+		snapshots.sort((first, second) -> first.getMethodName().compareTo(second.getMethodName()));
+		return snapshots;
+	}
+
+	/**
+	 * Executes the given operation and records its call, latency and error in the metrics of the
+	 * method with the given name.
+	 *
+	 * @param methodName
+	 *            the name of the method
+	 * @param operation
+	 *            the operation
+	 */
+	public void record(final String methodName, final Runnable operation)
+	{
+		record(null, methodName, operation);
+	}
+
+	/**
+	 * Executes the given operation and records its call, latency and error in the metrics of the
+	 * method with the given name. If the current transaction was started for the method of the
+	 * given target class the call is recorded after the completion of the transaction.
+	 *
+	 * @param targetClass
+	 *            the class of the object that executes the operation or null
+	 * @param methodName
+	 *            the name of the method
+	 * @param operation
+	 *            the operation
+	 */
+	public void record(final Class<?> targetClass, final String methodName,
+		final Runnable operation)
+	{
+		record(targetClass, methodName, () -> {
+			operation.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Executes the given operation and records its call, latency and error in the metrics of the
+	 * method with the given name. If the current thread already records a call the operation is
+	 * executed without recording.
+	 *
+	 * @param <R>
+	 *            the generic type of the result
+	 * @param methodName
+	 *            the name of the method
+	 * @param operation
+	 *            the operation
+	 * @return the result of the operation
+	 */
+	public <R> R record(final String methodName, final Supplier<R> operation)
+	{
+		return record(null, methodName, operation);
+	}
+
+	/**
+	 * Executes the given operation and records its call, latency and error in the metrics of the
+	 * method with the given name. If the current thread already records a call the operation is
+	 * executed without recording. If the current transaction was started for the method of the
+	 * given target class the call is recorded after the completion of the transaction.
+	 *
+	 * @param <R>
+	 *            the generic type of the result
+	 * @param targetClass
+	 *            the class of the object that executes the operation or null
+	 * @param methodName
+	 *            the name of the method
+	 * @param operation
+	 *            the operation
+	 * @return the result of the operation
+	 */
+	public <R> R record(final Class<?> targetClass, final String methodName,
+		final Supplier<R> operation)
+	{
+		if (recording.get() != null)
+		{
+			return operation.get();
+		}
+		final MethodMetrics metrics = getMethodMetrics(methodName);
+		final long start = System.nanoTime();
+		boolean failed = true;
+		recording.set(Boolean.TRUE);
+		try
+		{
+			final R result = operation.get();
+			failed = false;
+			return result;
+		}
+		finally
+		{
+			recording.remove();
+			if (!recordOnCompletion(targetClass, methodName, metrics, start, failed))
+			{
+				metrics.record(System.nanoTime() - start, failed);
+			}
+		}
+	}
+
+	/**
+	 * Registers a transaction synchronization that records the call after the completion of the
+	 * current transaction, if the transaction was started for the method with the given name of
+	 * the given target class.
+	 *
+	 * @param targetClass
+	 *            the class of the object that executed the operation or null
+	 * @param methodName
+	 *            the name of the method
+	 * @param metrics
+	 *            the metrics of the method
+	 * @param start
+	 *            the start time of the call in nanoseconds
+	 * @param failed
+	 *            the flag if the operation failed with an exception
+	 * @return true if the call will be recorded after the completion of the transaction
+	 */
+	private static boolean recordOnCompletion(final Class<?> targetClass, final String methodName,
+		final MethodMetrics metrics, final long start, final boolean failed)
+	{
+		if (targetClass == null || !TransactionSynchronizationManager.isSynchronizationActive()
+			|| !isTransactionStartedFor(targetClass, methodName))
+		{
+			return false;
+		}
+		TransactionSynchronizationManager
+			.registerSynchronization(new TransactionSynchronizationAdapter()
+			{
+				@Override
+				public void afterCompletion(final int status)
+				{
+					metrics.record(System.nanoTime() - start,
+						failed || status != TransactionSynchronization.STATUS_COMMITTED);
+				}
+			});
+		return true;
+	}
+
+	/**
+	 * Checks if the current transaction was started for the method with the given name of the
+	 * given target class. The spring transaction interceptor names a transaction after the
+	 * qualified name of the method that started it. Overloaded methods share one transaction name,
+	 * so the parameter types in the given method name are ignored.
+	 *
+	 * @param targetClass
+	 *            the class of the object that executed the operation
+	 * @param methodName
+	 *            the name of the method, optionally followed by its parameter types
+	 * @return true if the current transaction was started for the method
+	 */
+	private static boolean isTransactionStartedFor(final Class<?> targetClass,
+		final String methodName)
+	{
+		final String transactionName = TransactionSynchronizationManager
+			.getCurrentTransactionName();
+		if (transactionName == null)
+		{
+			return false;
+		}
+		final int parameterIndex = methodName.indexOf('(');
+		final String name = parameterIndex < 0 ? methodName
+			: methodName.substring(0, parameterIndex);
+		return transactionName.equals(targetClass.getName() + "." + name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset()
+	{
+		methodMetrics.values().forEach(MethodMetrics::reset);
+	}
+
+}
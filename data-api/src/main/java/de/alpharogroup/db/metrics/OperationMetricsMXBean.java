@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metrics;
+
+import java.util.List;
+
+/**
+ * The interface {@link OperationMetricsMXBean} exposes the {@link OperationMetrics} of one entity
+ * type and layer over jmx.
+ */
+public interface OperationMetricsMXBean
+{
+
+	/**
+	 * Gets the name of the entity type.
+	 *
+	 * @return the name of the entity type
+	 */
+	String getEntityName();
+
+	/**
+	 * Gets the name of the layer, for instance 'repository' or 'service'.
+	 *
+	 * @return the name of the layer
+	 */
+	String getLayer();
+
+	/**
+	 * Gets the snapshots of the metrics of all called methods.
+	 *
+	 * @return the snapshots of the metrics of all called methods
+	 */
+	List<MethodMetricsSnapshot> getMethodMetrics();
+
+	/**
+	 * Removes all recorded calls.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.paging;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The class {@link Page} holds the result of a keyset pagination query. The id of the last entity
+ * of the content is the cursor for requesting the next page.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ * @param <PK>
+ *            the generic type of the primary key from the entity
+ */
+@ToString
+@AllArgsConstructor
+public class Page<T, PK extends Serializable> implements Serializable
+{
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The entities of this page ordered by their ids. */
+	@Getter
+	private final List<T> content;
+
+	/** The flag if there is a next page. */
+	private final boolean hasNext;
+
+	/** The id of the last entity of this page or null if this page is empty. */
+	@Getter
+	private final PK lastId;
+
+	/** The requested maximum number of entities of this page. */
+	@Getter
+	private final int limit;
+
+	/**
+	 * Checks if there is a next page.
+	 *
+	 * @return true, if there is a next page, otherwise false
+	 */
+	public boolean hasNext()
+	{
+		return hasNext;
+	}
+
+	/**
+	 * Checks if this page is empty.
+	 *
+	 * @return true, if this page has no content, otherwise false
+	 */
+	public boolean isEmpty()
+	{
+		return content.isEmpty();
+	}
+
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.projection;
+
+import java.beans.Introspector;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * The class {@link Projections} provides helper methods for queries that select only some
+ * attributes of an entity into dto classes or interfaces instead of managed entities.
+ */
+@UtilityClass
+public class Projections
+{
+
+	/**
+	 * Gets the {@link Path} of the given attribute path from the given root. Nested attributes are
+	 * separated with a dot, for instance 'address.city'.
+	 *
+	 * @param root
+	 *            the root
+	 * @param attributePath
+	 *            the attribute path
+	 * @return the {@link Path}
+	 */
+	public static Path<?> getPath(final Root<?> root, final String attributePath)
+	{
+		Path<?> path = root;
+		for (final String attributeName : attributePath.split("\\."))
+		{
+			path = path.get(attributeName);
+		}
+		return path;
+	}
+
+	/**
+	 * Gets the name of the property that is selected for the given attribute path, that is the last
+	 * attribute name of the path.
+	 *
+	 * @param attributePath
+	 *            the attribute path
+	 * @return the name of the property
+	 */
+	public static String getPropertyName(final String attributePath)
+	{
+		return attributePath.substring(attributePath.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * Factory method for create the selections of the given attribute paths. Every selection gets
+	 * the property name of its attribute path as alias.
+	 *
+	 * @param root
+	 *            the root
+	 * @param attributePaths
+	 *            the attribute paths
+	 * @return the selections
+	 * @throws IllegalArgumentException
+	 *             if the attribute paths are empty or if two attribute paths have the same property
+	 *             name, for instance 'a.name' and 'b.name'
+	 */
+	public static List<Selection<?>> newSelections(final Root<?> root,
+		final String... attributePaths)
+	{
+		if (attributePaths == null || attributePaths.length == 0)
+		{
+			throw new IllegalArgumentException("Given attribute paths must not be empty");
+		}
+		final List<Selection<?>> selections = new ArrayList<>(attributePaths.length);
+		final Set<String> aliases = new HashSet<>();
+		for (final String attributePath : attributePaths)
+		{
+			final String alias = getPropertyName(attributePath);
+			if (!aliases.add(alias))
+			{
+				throw new IllegalArgumentException("Given attribute path '" + attributePath
+					+ "' has the same property name as another attribute path: " + alias);
+			}
+			selections.add(getPath(root, attributePath).alias(alias));
+		}
+		return selections;
+	}
+
+	/**
+	 * Factory method for create a new instance of the given projection interface that returns the
+	 * values of the given tuple. Every getter of the interface returns the value of the tuple
+	 * element with the property name of the getter as alias. A getter with a primitive return type
+	 * returns the default value of the primitive type for a null value.
+	 *
+	 * @param <P>
+	 *            the generic type of the projection
+	 * @param projection
+	 *            the projection interface
+	 * @param tuple
+	 *            the tuple
+	 * @return the new instance of the projection interface
+	 */
+	public static <P> P newProjection(final Class<P> projection, final Tuple tuple)
+	{
+		final Map<String, Object> values = new LinkedHashMap<>();
+		for (final TupleElement<?> element : tuple.getElements())
+		{
+			values.put(element.getAlias(), tuple.get(element));
+		}
+		final Map<String, Object> properties = Collections.unmodifiableMap(values);
+		return projection.cast(Proxy.newProxyInstance(projection.getClassLoader(),
+			new Class<?>[] { projection }, (proxy, method, args) -> {
+				switch (method.getName())
+				{
+					case "equals" :
+						return proxy == args[0];
+					case "hashCode" :
+						return System.identityHashCode(proxy);
+					case "toString" :
+						return projection.getSimpleName() + properties;
+					default :
+						final Object value = properties.get(toPropertyName(method));
+						if (value == null && method.getReturnType().isPrimitive())
+						{
+							return Array.get(Array.newInstance(method.getReturnType(), 1), 0);
+						}
+						return value;
+				}
+			}));
+	}
+
+	/**
+	 * Gets the property name of the given getter method.
+	 *
+	 * @param method
+	 *            the getter method
+	 * @return the property name
+	 */
+	private static String toPropertyName(final Method method)
+	{
+		final String name = method.getName();
+		if (name.startsWith("get") && 3 < name.length())
+		{
+			return Introspector.decapitalize(name.substring(3));
+		}
+		if (name.startsWith("is") && 2 < name.length())
+		{
+			return Introspector.decapitalize(name.substring(2));
+		}
+		return name;
+	}
+
+}
@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.query;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.metadata.EntityMetadata;
+import de.alpharogroup.db.repository.AbstractRepository;
+import lombok.NonNull;
+
+/**
+ * The class {@link QueryRegistry} holds the common queries of one repository as named queries of
+ * the {@link EntityManagerFactory}. Every query is parsed and registered only once on the first
+ * request and all further requests create the query from the precompiled named query. The number
+ * of hits and misses of the registry are counted, the query plan cache statistics of hibernate are
+ * exposed separately.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ * @param <PK>
+ *            the generic type of the primary key from the entity
+ */
+public class QueryRegistry<T extends BaseEntity<PK>, PK extends Serializable>
+{
+
+	/** The number of requests of already registered queries. */
+	private final LongAdder registryHitCount = new LongAdder();
+
+	/** The number of requests that registered a new query. */
+	private final LongAdder registryMissCount = new LongAdder();
+
+	/** The names of the registered queries. */
+	private final Set<String> registeredQueryNames = ConcurrentHashMap.newKeySet();
+
+	/** The repository. */
+	private final AbstractRepository<T, PK> repository;
+
+	/**
+	 * Instantiates a new {@link QueryRegistry}.
+	 *
+	 * @param repository
+	 *            the repository
+	 */
+	public QueryRegistry(@NonNull final AbstractRepository<T, PK> repository)
+	{
+		this.repository = repository;
+	}
+
+	/**
+	 * Gets the query that counts all entities.
+	 *
+	 * @return the query
+	 */
+	public TypedQuery<Long> countQuery()
+	{
+		final EntityMetadata<T, PK> entityMetadata = repository.getEntityMetadata();
+		return getNamedQuery(entityMetadata.getEntityName() + ".count", Long.class,
+			entityMetadata::getCountString);
+	}
+
+	/**
+	 * Gets the query that selects all entities.
+	 *
+	 * @return the query
+	 */
+	public TypedQuery<T> findAllQuery()
+	{
+		final EntityMetadata<T, PK> entityMetadata = repository.getEntityMetadata();
+		return getNamedQuery(entityMetadata.getEntityName() + ".findAll", repository.getType(),
+			entityMetadata::getSelectAllString);
+	}
+
+	/**
+	 * Gets the query that selects all entities with the given value of the given attribute. For
+	 * the value null the query selects all entities where the attribute is null.
+	 *
+	 * @param attributeName
+	 *            the name of the attribute
+	 * @param value
+	 *            the value of the attribute
+	 * @return the query with the bound value
+	 * @throws IllegalArgumentException
+	 *             if the entity has no attribute with the given name
+	 */
+	public TypedQuery<T> findByAttributeQuery(final String attributeName, final Object value)
+	{
+		final EntityMetadata<T, PK> entityMetadata = repository.getEntityMetadata();
+		// validates the attribute name before it is part of the jpql string
+		repository.getEntityManager().getMetamodel().entity(repository.getType())
+			.getAttribute(attributeName);
+		final String entityName = entityMetadata.getEntityName();
+		if (value == null)
+		{
+			return getNamedQuery(entityName + ".findBy." + attributeName + ".isNull",
+				repository.getType(), () -> "select e from " + entityName + " e where e."
+					+ attributeName + " is null");
+		}
+		return getNamedQuery(entityName + ".findBy." + attributeName, repository.getType(),
+			() -> "select e from " + entityName + " e where e." + attributeName + " = :value")
+				.setParameter("value", value);
+	}
+
+	/**
+	 * Gets the query with the given name. If the query is not registered yet the given jpql string
+	 * is parsed and registered as named query with the given name.
+	 *
+	 * @param <R>
+	 *            the generic type of the result
+	 * @param name
+	 *            the name of the query
+	 * @param resultClass
+	 *            the class type of the result
+	 * @param jpqlString
+	 *            the supplier of the jpql string
+	 * @return the query
+	 */
+	public <R> TypedQuery<R> getNamedQuery(final String name, final Class<R> resultClass,
+		final Supplier<String> jpqlString)
+	{
+		final EntityManager entityManager = repository.getEntityManager();
+		if (registeredQueryNames.contains(name))
+		{
+			registryHitCount.increment();
+		}
+		else
+		{
+			registryMissCount.increment();
+			entityManager.getEntityManagerFactory().addNamedQuery(name,
+				entityManager.createQuery(jpqlString.get(), resultClass));
+			registeredQueryNames.add(name);
+		}
+		return entityManager.createNamedQuery(name, resultClass);
+	}
+
+	/**
+	 * Gets the number of query plan cache hits of the hibernate session factory. The session
+	 * factory counts all queries and not only the queries of this registry and counts only if the
+	 * statistics are enabled with the property <code>hibernate.generate_statistics</code>.
+	 *
+	 * @return the query plan cache hit count
+	 */
+	public long getQueryPlanCacheHitCount()
+	{
+		return getStatistics().getQueryPlanCacheHitCount();
+	}
+
+	/**
+	 * Gets the number of query plan cache misses of the hibernate session factory. The session
+	 * factory counts all queries and not only the queries of this registry and counts only if the
+	 * statistics are enabled with the property <code>hibernate.generate_statistics</code>.
+	 *
+	 * @return the query plan cache miss count
+	 */
+	public long getQueryPlanCacheMissCount()
+	{
+		return getStatistics().getQueryPlanCacheMissCount();
+	}
+
+	/**
+	 * Gets the names of the registered queries.
+	 *
+	 * @return the names of the registered queries
+	 */
+	public Set<String> getRegisteredQueryNames()
+	{
+		return Collections.unmodifiableSet(registeredQueryNames);
+	}
+
+	/**
+	 * Gets the number of requests of already registered queries. This is not the query plan cache
+	 * hit count of hibernate, see {@link #getQueryPlanCacheHitCount()}.
+	 *
+	 * @return the registry hit count
+	 */
+	public long getRegistryHitCount()
+	{
+		return registryHitCount.sum();
+	}
+
+	/**
+	 * Gets the number of requests that registered a new query. This is not the query plan cache
+	 * miss count of hibernate, see {@link #getQueryPlanCacheMissCount()}.
+	 *
+	 * @return the registry miss count
+	 */
+	public long getRegistryMissCount()
+	{
+		return registryMissCount.sum();
+	}
+
+	/**
+	 * Gets the statistics of the hibernate session factory.
+	 *
+	 * @return the statistics
+	 */
+	private Statistics getStatistics()
+	{
+		return repository.getEntityManager().getEntityManagerFactory()
+			.unwrap(SessionFactory.class).getStatistics();
+	}
+
+}
@@ -17,30 +17,75 @@ package de.alpharogroup.db.repository;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import javax.sql.DataSource;
 
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.CacheRegionStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import de.alpharogroup.db.cache.CacheRegion;
+import de.alpharogroup.db.cache.CountCache;
+import de.alpharogroup.db.cache.EntityCache;
+import de.alpharogroup.db.cache.SecondLevelCacheConfiguration;
+import de.alpharogroup.db.criteria.PredicateFactory;
 import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.jdbc.JdbcBatchInserter;
+import de.alpharogroup.db.metadata.EntityMetadata;
+import de.alpharogroup.db.metadata.EntityMetadataRegistry;
+import de.alpharogroup.db.metrics.MetricsRegistry;
+import de.alpharogroup.db.metrics.OperationMetrics;
+import de.alpharogroup.db.paging.Page;
+import de.alpharogroup.db.projection.Projections;
+import de.alpharogroup.db.query.QueryRegistry;
 import de.alpharogroup.db.repository.api.GenericRepository;
+import de.alpharogroup.db.strategies.BatchSaveOrUpdateStrategy;
 import de.alpharogroup.db.strategies.DefaultDeleteStrategy;
 import de.alpharogroup.db.strategies.DefaultMergeStrategy;
 import de.alpharogroup.db.strategies.DefaultSaveOrUpdateStrategy;
 import de.alpharogroup.db.strategies.api.DeleteStrategy;
 import de.alpharogroup.db.strategies.api.MergeStrategy;
+import de.alpharogroup.db.strategies.api.SaveMode;
 import de.alpharogroup.db.strategies.api.SaveOrUpdateStrategy;
-import de.alpharogroup.lang.TypeArgumentsExtensions;
+import de.alpharogroup.db.tracking.ChangeTracker;
+import de.alpharogroup.db.util.PersistenceExtensions;
+import de.alpharogroup.db.util.ScrollableResultsIterator;
+import de.alpharogroup.db.util.TableStatistics;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -64,22 +109,52 @@ public abstract class AbstractRepository<T extends BaseEntity<PK>, PK extends Se
 	/** The Constant serialVersionUID. */
 	private static final long serialVersionUID = 1L;
 
+	/** The optional change tracker that skips the update of unchanged entities. */
+	@Getter
+	private transient ChangeTracker<T, PK> changeTracker;
+
+	/** The maximum number of ids that will be bound in one in clause of set based statements. */
+	@Getter
+	@Setter
+	private int chunkSize = PersistenceExtensions.DEFAULT_CHUNK_SIZE;
+
+	/** The optional cache for the exact count of the entities of this repository. */
+	@Getter
+	private transient CountCache countCache;
+
 	/** The data source. */
 	@Setter
 	@Getter
 	@Autowired
 	private DataSource dataSource;
 
-	/** The delete strategy for interact on deletion process. */
+	/**
+	 * The delete strategy for interact on deletion process. Strategies that need injected
+	 * dependencies, for instance the DeferredDeleteStrategy, are installed with the setter after
+	 * the repository is created.
+	 */
 	@Getter
+	@Setter
 	private DeleteStrategy<T, PK> deleteStrategy;
 
+	/** The optional read through cache for the entities of this repository. */
+	@Getter
+	private transient EntityCache<T, PK> entityCache;
+
 	/** The entity manager. */
 	@PersistenceContext
 	@Getter
 	@Setter
 	private EntityManager entityManager;
 
+	/** The default jdbc fetch size for streaming all entities. */
+	@Getter
+	@Setter
+	private int fetchSize = PersistenceExtensions.DEFAULT_FETCH_SIZE;
+
+	/** The jdbc batch inserter that is created on the first jdbc batch insert. */
+	private transient JdbcBatchInserter<T, PK> jdbcBatchInserter;
+
 	/** The jdbc template. */
 	@Setter
 	@Getter
@@ -90,23 +165,43 @@ public abstract class AbstractRepository<T extends BaseEntity<PK>, PK extends Se
 	@Getter
 	private MergeStrategy<T, PK> mergeStrategy;
 
+	/** The metrics of the crud methods of this repository. */
+	@Getter
+	private transient OperationMetrics operationMetrics;
+
+	/** The registry of the precompiled common queries of this repository. */
+	@Getter
+	private transient QueryRegistry<T, PK> queryRegistry;
+
+	/**
+	 * The save mode that decides if new entities are persisted or merged. The default is
+	 * {@link SaveMode#MERGE}, so {@link SaveMode#PERSIST_NEW} has to be set explicitly.
+	 */
+	@Getter
+	@Setter
+	private SaveMode saveMode = SaveMode.MERGE;
+
 	/** The save or update strategy for interact on save or update process. */
 	@Getter
 	private SaveOrUpdateStrategy<T, PK> saveOrUpdateStrategy;
 
 	/** The class type of the entity. */
 	@Getter
-	@SuppressWarnings("unchecked")
-	private final Class<T> type = (Class<T>)TypeArgumentsExtensions
+	private final Class<T> type = EntityMetadataRegistry
 		.getFirstTypeArgument(AbstractRepository.class, this.getClass());
 
 	/**
-	 * initialization block for the strategies.
+	 * initialization block for the strategies, the entity cache and the change tracker.
 	 */
 	{
-		newDeleteStrategy();
-		newMergeStrategy();
-		newSaveOrUpdateStrategy();
+		changeTracker = newChangeTracker();
+		countCache = newCountCache();
+		entityCache = newEntityCache();
+		deleteStrategy = newDeleteStrategy();
+		mergeStrategy = newMergeStrategy();
+		operationMetrics = newOperationMetrics();
+		queryRegistry = newQueryRegistry();
+		saveOrUpdateStrategy = newSaveOrUpdateStrategy();
 	}
 
 	/**
@@ -115,7 +210,25 @@ public abstract class AbstractRepository<T extends BaseEntity<PK>, PK extends Se
 	@Override
 	public void create(final T entity)
 	{
-		getEntityManager().persist(entity);
+		measure("create", () -> {
+			invalidateCount();
+			getEntityManager().persist(entity);
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long count()
+	{
+		return measure("count", () -> {
+			if (getCountCache() != null)
+			{
+				return getCountCache().get(() -> getQueryRegistry().countQuery().getSingleResult());
+			}
+			return getQueryRegistry().countQuery().getSingleResult();
+		});
 	}
 
 	/**
@@ -136,6 +249,15 @@ public abstract class AbstractRepository<T extends BaseEntity<PK>, PK extends Se
 		return createNamedQuery(name, getType());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TypedQuery<T> createNamedTypedQueryReadOnly(final String name)
+	{
+		return setReadOnlyHints(createNamedTypedQuery(name));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -170,13 +292,63 @@ public abstract class AbstractRepository<T extends BaseEntity<PK>, PK extends Se
 	@Override
 	public void delete(final List<T> entities)
 	{
-		if (getDeleteStrategy() != null)
-		{
-			getDeleteStrategy().delete(entities);
-		}
-		else
-		{
-			for (final T entity : entities)
+		measure("delete(List)", () -> {
+			invalidateCachedEntities(entities);
+			if (getDeleteStrategy() != null)
+			{
+				getDeleteStrategy().delete(entities);
+			}
+			else
+			{
+				for (final T entity : entities)
+				{
+					if (getEntityManager().contains(entity))
+					{
+						getEntityManager().remove(entity);
+					}
+					else
+					{
+						getEntityManager().remove(getEntityManager().merge(entity));
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void delete(final PK id)
+	{
+		measure("delete(PK)", () -> {
+			invalidateCachedIds(Collections.singletonList(id));
+			if (getDeleteStrategy() != null)
+			{
+				getDeleteStrategy().delete(id);
+			}
+			else
+			{
+				final T entity = get(id);
+				delete(entity);
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public void delete(final T entity)
+	{
+		measure("delete(T)", () -> {
+			invalidateCachedEntities(Collections.singletonList(entity));
+			if (getDeleteStrategy() != null)
+			{
+				getDeleteStrategy().delete(entity);
+			}
+			else
 			{
 				if (getEntityManager().contains(entity))
 				{
@@ -187,24 +359,27 @@ public abstract class AbstractRepository<T extends BaseEntity<PK>, PK extends Se
 					getEntityManager().remove(getEntityManager().merge(entity));
 				}
 			}
-		}
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void delete(final PK id)
+	@Transactional
+	public boolean deleteById(final PK id)
 	{
-		if (getDeleteStrategy() != null)
-		{
-			getDeleteStrategy().delete(id);
-		}
-		else
-		{
-			final T entity = get(id);
-			delete(entity);
-		}
+		return measure("deleteById", () -> {
+			invalidateCachedIds(Collections.singletonList(id));
+			if (getDeleteStrategy() != null)
+			{
+				return getDeleteStrategy().deleteById(id);
+			}
+			else
+			{
+				return id != null && deleteByIds(Collections.singletonList(id)) > 0;
+			}
+		});
 	}
 
 	/**
@@ -212,286 +387,1199 @@ public abstract class AbstractRepository<T extends BaseEntity<PK>, PK extends Se
 	 */
 	@Override
 	@Transactional
-	public void delete(final T entity)
+	public int deleteByIds(final Collection<PK> ids)
 	{
-		if (getDeleteStrategy() != null)
-		{
-			getDeleteStrategy().delete(entity);
-		}
-		else
-		{
-			if (getEntityManager().contains(entity))
+		return measure("deleteByIds", () -> {
+			invalidateCachedIds(ids);
+			if (getDeleteStrategy() != null)
 			{
-				getEntityManager().remove(entity);
+				return getDeleteStrategy().deleteByIds(ids);
 			}
 			else
 			{
-				getEntityManager().remove(getEntityManager().merge(entity));
+				return PersistenceExtensions.deleteByIds(getEntityManager(), getType(), ids,
+					getChunkSize());
 			}
-		}
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void evict(final T entity)
+	@Transactional
+	public int deleteWhere(final PredicateFactory<T> predicateFactory)
 	{
-		getEntityManager().detach(entity);
+		return measure("deleteWhere", () -> {
+			final CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+			final CriteriaDelete<T> criteriaDelete = builder.createCriteriaDelete(getType());
+			final Root<T> root = criteriaDelete.from(getType());
+			if (predicateFactory != null)
+			{
+				criteriaDelete.where(predicateFactory.newPredicate(root, builder));
+			}
+			final int deleted = getEntityManager().createQuery(criteriaDelete).executeUpdate();
+			invalidateEntityCache();
+			return deleted;
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean exists(final PK id)
+	@Transactional(readOnly = true)
+	public long estimatedCount()
 	{
-		return get(id) != null;
+		return measure("estimatedCount", () -> {
+			final Long estimatedCount = TableStatistics.getEstimatedRowCount(getEntityManager(),
+				getEntityMetadata().getTableName());
+			return estimatedCount != null ? estimatedCount : count();
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public List<T> findAll()
+	public void evict(final T entity)
 	{
-		final CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
-		final CriteriaQuery<T> cq = builder.createQuery(getType());
-		final Root<T> root = cq.from(getType());
-		cq.select(root);
-		return getEntityManager().createQuery(cq).getResultList();
+		getEntityManager().detach(entity);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public T get(final PK id)
+	@Transactional(readOnly = true)
+	public boolean exists(final PK id)
 	{
-		if (id != null)
-		{
-			return getEntityManager().find(type, id);
-		}
-		return null;
+		return measure("exists", () -> {
+			if (id == null)
+			{
+				return false;
+			}
+			if ((getEntityCache() != null && getEntityCache().getIfPresent(id) != null)
+				|| PersistenceExtensions.getManagedEntity(getEntityManager(), getType(),
+					id) != null)
+			{
+				return true;
+			}
+			return !getEntityManager().createQuery(getEntityMetadata().getSelectIdByIdString())
+				.setParameter("id", id).setMaxResults(1).getResultList().isEmpty();
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Query getQuery(final String hqlQuery)
+	@Transactional(readOnly = true)
+	public Set<PK> existsAll(final Collection<PK> ids)
 	{
-		return getEntityManager().createQuery(hqlQuery);
+		return measure("existsAll", () -> {
+			final Set<PK> existingIds = new HashSet<>();
+			if (ids == null || ids.isEmpty())
+			{
+				return existingIds;
+			}
+			final EntityMetadata<T, PK> entityMetadata = getEntityMetadata();
+			final TypedQuery<PK> query = getEntityManager()
+				.createQuery(entityMetadata.getSelectIdsByIdsString(), entityMetadata.getIdType());
+			for (final List<PK> chunk : PersistenceExtensions.partition(ids, getChunkSize()))
+			{
+				existingIds.addAll(query.setParameter("ids", chunk).getResultList());
+			}
+			return existingIds;
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public T load(final PK id)
+	public List<T> findAll()
 	{
-		return get(id);
+		return measure("findAll", () -> {
+			final List<T> entities = getQueryRegistry().findAllQuery().getResultList();
+			snapshot(entities);
+			return entities;
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public List<T> merge(final List<T> entities)
+	public <P> List<P> findAllProjected(final Class<P> projection,
+		final PredicateFactory<T> predicateFactory, final String... attributePaths)
 	{
-		final List<T> mergedEntities = new ArrayList<>();
-		if (getMergeStrategy() != null)
-		{
-			mergedEntities.addAll(getMergeStrategy().merge(entities));
-		}
-		else
-		{
-			for (final T entity : entities)
+		return measure("findAllProjected", () -> {
+			final CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+			if (projection.isInterface())
 			{
-				mergedEntities.add(merge(entity));
+				final CriteriaQuery<Tuple> cq = builder.createTupleQuery();
+				final Root<T> root = cq.from(getType());
+				cq.multiselect(Projections.newSelections(root, attributePaths));
+				if (predicateFactory != null)
+				{
+					cq.where(predicateFactory.newPredicate(root, builder));
+				}
+				return getEntityManager().createQuery(cq).getResultList().stream()
+					.map(tuple -> Projections.newProjection(projection, tuple))
+					.collect(Collectors.toList());
 			}
-		}
-		return mergedEntities;
+			final CriteriaQuery<P> cq = builder.createQuery(projection);
+			final Root<T> root = cq.from(getType());
+			cq.select(builder.construct(projection, Projections.newSelections(root, attributePaths)
+				.toArray(new Selection<?>[attributePaths.length])));
+			if (predicateFactory != null)
+			{
+				cq.where(predicateFactory.newPredicate(root, builder));
+			}
+			return getEntityManager().createQuery(cq).getResultList();
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	@Transactional
-	public T merge(final T entity)
+	public <P> List<P> findAllProjected(final Class<P> projection,
+		final String... attributePaths)
 	{
-		if (getMergeStrategy() != null)
-		{
-			return getMergeStrategy().merge(entity);
-		}
-		else
-		{
-			return getEntityManager().merge(entity);
-		}
+		return findAllProjected(projection, null, attributePaths);
 	}
 
 	/**
-	 * Factory method for creating a new {@link DeleteStrategy} for interact on deletion process.
-	 * This method can be overridden so users can provide their own version of a new
-	 * {@link DeleteStrategy} for the deletion process.
-	 *
-	 * @return the new {@link DeleteStrategy} for the deletion process.
+	 * {@inheritDoc}
 	 */
-	public DeleteStrategy<T, PK> newDeleteStrategy()
+	@Override
+	@Transactional(readOnly = true)
+	public List<T> findAllReadOnly()
 	{
-		deleteStrategy = new DefaultDeleteStrategy<>(this);
-		return deleteStrategy;
+		return measure("findAllReadOnly",
+			() -> setReadOnlyHints(getQueryRegistry().findAllQuery()).getResultList());
 	}
 
 	/**
-	 * Factory method for creating a new {@link MergeStrategy} for interact on merge process. This
-	 * method can be overridden so users can provide their own version of a new
-	 * {@link MergeStrategy} for the merge process.
-	 *
-	 * @return the new {@link MergeStrategy} for the merge process.
+	 * {@inheritDoc}
 	 */
-	public MergeStrategy<T, PK> newMergeStrategy()
+	@Override
+	public List<T> findByAttribute(final String attributeName, final Object value)
 	{
-		mergeStrategy = new DefaultMergeStrategy<>(this);
-		return mergeStrategy;
+		return measure("findByAttribute", () -> {
+			final List<T> entities = getQueryRegistry().findByAttributeQuery(attributeName, value)
+				.getResultList();
+			snapshot(entities);
+			return entities;
+		});
 	}
 
 	/**
-	 * Factory method for creating a new {@link SaveOrUpdateStrategy} for interact on save or update
-	 * process. This method can be overridden so users can provide their own version of a new
-	 * {@link SaveOrUpdateStrategy} for the save or update process.
-	 *
-	 * @return the new {@link SaveOrUpdateStrategy} for the save or update process.
+	 * {@inheritDoc}
 	 */
-	public SaveOrUpdateStrategy<T, PK> newSaveOrUpdateStrategy()
+	@Override
+	public Page<T, PK> findPageAfter(final PK lastId, final int limit)
 	{
-		saveOrUpdateStrategy = new DefaultSaveOrUpdateStrategy<>(this);
-		return saveOrUpdateStrategy;
+		return measure("findPageAfter", () -> {
+			if (limit < 1)
+			{
+				throw new IllegalArgumentException("Given limit must be greater than 0");
+			}
+			final EntityMetadata<T, PK> entityMetadata = getEntityMetadata();
+			final TypedQuery<T> query;
+			if (lastId != null)
+			{
+				query = getEntityManager()
+					.createQuery(entityMetadata.getSelectAfterIdString(), getType())
+					.setParameter("lastId", lastId);
+			}
+			else
+			{
+				query = getEntityManager()
+					.createQuery(entityMetadata.getSelectAllOrderedByIdString(), getType());
+			}
+			final List<T> entities = query.setMaxResults(limit + 1).getResultList();
+			final boolean hasNext = limit < entities.size();
+			final List<T> content = hasNext
+				? new ArrayList<>(entities.subList(0, limit))
+				: entities;
+			final PK lastIdOfPage = content.isEmpty()
+				? null
+				: content.get(content.size() - 1).getId();
+			return new Page<>(content, hasNext, lastIdOfPage, limit);
+		});
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
 	@Override
-	public void refresh(final T entity)
+	@Transactional(readOnly = true)
+	public void forEach(final Consumer<T> action, final int fetchSize)
 	{
-		getEntityManager().refresh(entity);
+		measure("forEach", () -> {
+			try (Stream<T> stream = streamAll(fetchSize))
+			{
+				stream.forEach(action);
+			}
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public List<PK> save(final List<T> entities)
+	public T get(final PK id)
 	{
-		final List<PK> primaryKeys = new ArrayList<>();
-		if (getSaveOrUpdateStrategy() != null)
-		{
-			primaryKeys.addAll(getSaveOrUpdateStrategy().save(entities));
-		}
-		else
-		{
-			for (final T entity : entities)
+		return measure("get", () -> {
+			if (id != null)
 			{
-				primaryKeys.add(save(entity));
+				final T entity;
+				if (getEntityCache() != null && !isReadWriteTransactionActive())
+				{
+					entity = getEntityCache().get(id, this::findDetached);
+				}
+				else
+				{
+					entity = getEntityManager().find(type, id);
+					invalidateEntityCacheOnCompletion(id);
+				}
+				if (entity != null)
+				{
+					snapshot(Collections.singletonList(entity));
+				}
+				return entity;
 			}
-		}
-		return primaryKeys;
+			return null;
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	@Transactional
-	public PK save(final T entity)
+	@Transactional(readOnly = true)
+	public List<T> getAll(final Collection<PK> ids)
 	{
-		if (getSaveOrUpdateStrategy() != null)
-		{
-			return getSaveOrUpdateStrategy().save(entity);
-		}
-		else
-		{
-			getEntityManager().merge(entity);
-			return entity.getId();
-		}
+		return measure("getAll", () -> {
+			if (ids == null || ids.isEmpty())
+			{
+				return new ArrayList<>();
+			}
+			final List<T> entities = getEntityManager().unwrap(Session.class)
+				.byMultipleIds(getType()).enableSessionCheck(true).enableOrderedReturn(true)
+				.withBatchSize(getChunkSize()).multiLoad(new ArrayList<>(ids));
+			snapshot(entities);
+			return entities;
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void saveOrUpdate(final List<T> entities)
+	@Transactional(readOnly = true)
+	public Map<PK, T> getAllAsMap(final Collection<PK> ids)
 	{
-		if (getSaveOrUpdateStrategy() != null)
-		{
-			getSaveOrUpdateStrategy().saveOrUpdate(entities);
-		}
-		else
+		final Map<PK, T> entities = new LinkedHashMap<>();
+		for (final T entity : getAll(ids))
 		{
-			for (final T entity : entities)
+			if (entity != null)
 			{
-				saveOrUpdate(entity);
+				entities.put(entity.getId(), entity);
 			}
 		}
+		return entities;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	@Transactional
-	public void saveOrUpdate(final T entity)
+	public Query getQuery(final String hqlQuery)
 	{
-		if (getSaveOrUpdateStrategy() != null)
-		{
-			getSaveOrUpdateStrategy().saveOrUpdate(entity);
-		}
-		else
-		{
-			if (entity.getId() == null)
-			{
-				save(entity);
-			}
-			else
-			{
-				update(entity);
-			}
-		}
+		return getEntityManager().createQuery(hqlQuery);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void update(final List<T> entities)
+	public Query getQueryReadOnly(final String hqlQuery)
 	{
-		if (getSaveOrUpdateStrategy() != null)
-		{
-			getSaveOrUpdateStrategy().update(entities);
-		}
-		else
-		{
-			for (final T entity : entities)
+		return setReadOnlyHints(getQuery(hqlQuery));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public T getReadOnly(final PK id)
+	{
+		return measure("getReadOnly", () -> id != null ? findReadOnly(id) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public int jdbcBatchInsert(final List<T> entities)
+	{
+		return measure("jdbcBatchInsert", () -> {
+			invalidateCount();
+			if (jdbcBatchInserter == null)
 			{
-				update(entity);
+				jdbcBatchInserter = newJdbcBatchInserter();
 			}
-		}
+			return jdbcBatchInserter.insert(entities);
+		});
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	@Transactional
-	public void update(final T entity)
+	public T load(final PK id)
 	{
-		if (getSaveOrUpdateStrategy() != null)
-		{
-			getSaveOrUpdateStrategy().update(entity);
-		}
+		return get(id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<T> merge(final List<T> entities)
+	{
+		return measure("merge(List)", () -> {
+			invalidateCachedEntities(entities);
+			final List<T> mergedEntities = new ArrayList<>();
+			if (getMergeStrategy() != null)
+			{
+				mergedEntities.addAll(getMergeStrategy().merge(entities));
+			}
+			else
+			{
+				for (final T entity : entities)
+				{
+					mergedEntities.add(merge(entity));
+				}
+			}
+			return mergedEntities;
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public T merge(final T entity)
+	{
+		return measure("merge(T)", () -> {
+			invalidateCachedEntities(Collections.singletonList(entity));
+			if (getMergeStrategy() != null)
+			{
+				return getMergeStrategy().merge(entity);
+			}
+			else
+			{
+				return getEntityManager().merge(entity);
+			}
+		});
+	}
+
+	/**
+	 * Removes all entities from the entity cache, all snapshots from the change tracker and the
+	 * cached count, for
+	 * instance after a set based statement that affects unknown ids. If a transaction is active the
+	 * entity cache and the change tracker are cleared again after the transaction is completed.
+	 */
+	protected void invalidateEntityCache()
+	{
+		invalidateCount();
+		final EntityCache<T, PK> cache = getEntityCache();
+		final ChangeTracker<T, PK> tracker = getChangeTracker();
+		if (cache == null && tracker == null)
+		{
+			return;
+		}
+		final Runnable invalidation = () -> {
+			if (cache != null)
+			{
+				cache.invalidateAll();
+			}
+			if (tracker != null)
+			{
+				tracker.removeAll();
+			}
+		};
+		invalidation.run();
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			TransactionSynchronizationManager
+				.registerSynchronization(new TransactionSynchronizationAdapter()
+				{
+					@Override
+					public void afterCompletion(final int status)
+					{
+						invalidation.run();
+					}
+				});
+		}
+	}
+
+	/**
+	 * Removes the cached count, for instance after entities are inserted or deleted. If a
+	 * transaction is active the cached count is removed again after the transaction is completed.
+	 */
+	protected void invalidateCount()
+	{
+		final CountCache cache = getCountCache();
+		if (cache == null)
+		{
+			return;
+		}
+		cache.invalidate();
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			TransactionSynchronizationManager
+				.registerSynchronization(new TransactionSynchronizationAdapter()
+				{
+					@Override
+					public void afterCompletion(final int status)
+					{
+						cache.invalidate();
+					}
+				});
+		}
+	}
+
+	/**
+	 * Removes the given entities from the entity cache and the change tracker and removes the
+	 * cached count. If a transaction is active the entities are removed again after the transaction
+	 * is completed, so no concurrent reader can cache the state before the commit.
+	 *
+	 * @param entities
+	 *            the entities to remove from the entity cache
+	 */
+	protected void invalidateCachedEntities(final Collection<T> entities)
+	{
+		if (entities != null && !entities.isEmpty())
+		{
+			invalidateCount();
+		}
+		if ((getEntityCache() != null || getChangeTracker() != null) && entities != null)
+		{
+			final List<PK> ids = new ArrayList<>(entities.size());
+			for (final T entity : entities)
+			{
+				if (entity != null && entity.getId() != null)
+				{
+					ids.add(entity.getId());
+				}
+			}
+			removeCachedIds(ids);
+		}
+	}
+
+	/**
+	 * Removes the entities with the given ids from the entity cache and the change tracker and
+	 * removes the cached count. If a transaction is active the entities are removed again after
+	 * the transaction is completed, so no concurrent reader can cache the state before the commit.
+	 * This method is public so strategies that delete entities outside of the repository methods
+	 * can keep the caches consistent.
+	 *
+	 * @param ids
+	 *            the ids of the entities to remove from the entity cache
+	 */
+	public void invalidateCachedIds(final Collection<PK> ids)
+	{
+		if (ids != null && !ids.isEmpty())
+		{
+			invalidateCount();
+			removeCachedIds(ids);
+		}
+	}
+
+	/**
+	 * Removes the entities with the given ids from the entity cache and the change tracker now and
+	 * if a transaction is active again after the transaction is completed.
+	 *
+	 * @param ids
+	 *            the ids of the entities to remove
+	 */
+	private void removeCachedIds(final Collection<PK> ids)
+	{
+		final EntityCache<T, PK> cache = getEntityCache();
+		final ChangeTracker<T, PK> tracker = getChangeTracker();
+		if ((cache == null && tracker == null) || ids == null || ids.isEmpty())
+		{
+			return;
+		}
+		final List<PK> invalidIds = new ArrayList<>(ids);
+		final Runnable invalidation = () -> {
+			if (cache != null)
+			{
+				invalidIds.forEach(cache::invalidate);
+			}
+			if (tracker != null)
+			{
+				invalidIds.forEach(tracker::remove);
+			}
+		};
+		invalidation.run();
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			TransactionSynchronizationManager
+				.registerSynchronization(new TransactionSynchronizationAdapter()
+				{
+					@Override
+					public void afterCompletion(final int status)
+					{
+						invalidation.run();
+					}
+				});
+		}
+	}
+
+	/**
+	 * Takes the snapshots of the given entities in the change tracker. The snapshots of versioned
+	 * entities are taken after the commit from the committed state, see
+	 * {@link ChangeTracker#snapshot(Collection)}.
+	 *
+	 * @param entities
+	 *            the entities to snapshot
+	 */
+	protected void snapshot(final List<T> entities)
+	{
+		final ChangeTracker<T, PK> tracker = getChangeTracker();
+		if (tracker != null)
+		{
+			tracker.snapshot(entities);
+		}
+	}
+
+	/**
+	 * Compares the given entities with their snapshots from the change tracker. Unchanged entities
+	 * are skipped and changed entities that are not managed are updated with only the changed
+	 * attributes. The remaining entities have to be merged.
+	 *
+	 * @param entities
+	 *            the entities to update
+	 * @return the entities that have to be merged
+	 */
+	protected List<T> updateChangedAttributes(final List<T> entities)
+	{
+		final ChangeTracker<T, PK> tracker = getChangeTracker();
+		if (tracker == null)
+		{
+			return entities;
+		}
+		final List<T> mergeEntities = new ArrayList<>();
+		final List<T> updatedEntities = new ArrayList<>();
+		for (final T entity : entities)
+		{
+			final Map<String, Object> changedAttributes = tracker.getChangedAttributes(entity);
+			if (changedAttributes == null)
+			{
+				mergeEntities.add(entity);
+			}
+			else if (!changedAttributes.isEmpty())
+			{
+				if (tracker.isPartialUpdatePossible(entity, changedAttributes)
+					&& PersistenceExtensions.getManagedEntity(getEntityManager(), getType(),
+						entity.getId()) == null)
+				{
+					updateAttributes(entity, changedAttributes);
+					updatedEntities.add(entity);
+				}
+				else
+				{
+					mergeEntities.add(entity);
+				}
+			}
+		}
+		invalidateCachedEntities(updatedEntities);
+		snapshot(updatedEntities);
+		return mergeEntities;
+	}
+
+	/**
+	 * Finds the entity with the given id with a new {@link EntityManager} that is closed after the
+	 * lookup, so the returned entity is detached and not shared with the persistence context of the
+	 * caller.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the detached entity or null if no entity exists
+	 */
+	private T findDetached(final PK id)
+	{
+		final EntityManager detachedEntityManager = getEntityManager().getEntityManagerFactory()
+			.createEntityManager();
+		try
+		{
+			return detachedEntityManager.find(getType(), id);
+		}
+		finally
+		{
+			detachedEntityManager.close();
+		}
+	}
+
+	/**
+	 * Removes the entity with the given id from the entity cache after the current transaction is
+	 * completed. An entity that is loaded in a read write transaction can be changed and flushed
+	 * with dirty checking, so the cached state can not be trusted anymore after the transaction.
+	 *
+	 * @param id
+	 *            the id
+	 */
+	private void invalidateEntityCacheOnCompletion(final PK id)
+	{
+		final EntityCache<T, PK> cache = getEntityCache();
+		if (cache == null || !TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			return;
+		}
+		TransactionSynchronizationManager
+			.registerSynchronization(new TransactionSynchronizationAdapter()
+			{
+				@Override
+				public void afterCompletion(final int status)
+				{
+					cache.invalidate(id);
+				}
+			});
+	}
+
+	/**
+	 * Checks if a read write transaction is active. Inside a read write transaction the entity
+	 * cache is bypassed, so the caller gets the managed entity of its persistence context.
+	 *
+	 * @return true, if a read write transaction is active, otherwise false
+	 */
+	private boolean isReadWriteTransactionActive()
+	{
+		return TransactionSynchronizationManager.isActualTransactionActive()
+			&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+
+	/**
+	 * Finds the entity with the given id as read only entity. The session loads the entity with
+	 * the default read only flag, so no snapshot of the loaded state is created.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the entity or null if no entity exists
+	 */
+	private T findReadOnly(final PK id)
+	{
+		final Session session = getEntityManager().unwrap(Session.class);
+		final boolean defaultReadOnly = session.isDefaultReadOnly();
+		session.setDefaultReadOnly(true);
+		try
+		{
+			return session.find(getType(), id);
+		}
+		finally
+		{
+			session.setDefaultReadOnly(defaultReadOnly);
+		}
+	}
+
+	/**
+	 * Sets the hints for a read only query on the given query. The loaded entities are read only
+	 * and the query does not flush the persistence context.
+	 *
+	 * @param <Q>
+	 *            the generic type of the query
+	 * @param query
+	 *            the query
+	 * @return the given query
+	 */
+	private <Q extends Query> Q setReadOnlyHints(final Q query)
+	{
+		query.setHint(QueryHints.READ_ONLY, Boolean.TRUE);
+		query.setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+		return query;
+	}
+
+	/**
+	 * Updates only the given attributes of the given entity with a criteria update and evicts the
+	 * entity from the second level cache. A versioned entity is only updated if the version in the
+	 * database is still the version of the given entity, the version is incremented with the same
+	 * update and the new version is set on the given entity.<br>
+	 * <br>
+	 * Note: the criteria update bypasses the entity lifecycle, so the callbacks
+	 * {@link javax.persistence.PreUpdate} and {@link javax.persistence.PostUpdate} and entity
+	 * listeners are not invoked for a partial update.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @param attributes
+	 *            the new values mapped to the attribute names
+	 * @throws OptimisticLockException
+	 *             if the versioned entity was updated or deleted by another transaction
+	 */
+	@SuppressWarnings("unchecked")
+	private void updateAttributes(final T entity, final Map<String, Object> attributes)
+	{
+		final CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+		final CriteriaUpdate<T> criteriaUpdate = builder.createCriteriaUpdate(getType());
+		final Root<T> root = criteriaUpdate.from(getType());
+		for (final Map.Entry<String, Object> entry : attributes.entrySet())
+		{
+			criteriaUpdate.set(entry.getKey(), entry.getValue());
+		}
+		Predicate restriction = builder
+			.equal(root.get(getEntityMetadata().getIdAttributeName()), entity.getId());
+		final EntityPersister persister = getEntityManager().getEntityManagerFactory()
+			.unwrap(SessionFactoryImplementor.class).getMetamodel().entityPersister(getType());
+		Object nextVersion = null;
+		if (persister.isVersioned())
+		{
+			final String versionAttributeName = persister.getPropertyNames()[persister
+				.getVersionProperty()];
+			final Object version = persister.getVersion(entity);
+			nextVersion = persister.getVersionType().next(version,
+				getEntityManager().unwrap(SharedSessionContractImplementor.class));
+			criteriaUpdate.set(versionAttributeName, nextVersion);
+			restriction = builder.and(restriction,
+				builder.equal(root.get(versionAttributeName), version));
+		}
+		criteriaUpdate.where(restriction);
+		final int updated = getEntityManager().createQuery(criteriaUpdate).executeUpdate();
+		getEntityManager().getEntityManagerFactory().getCache().evict(getType(), entity.getId());
+		if (nextVersion != null)
+		{
+			if (updated == 0)
+			{
+				throw new OptimisticLockException(
+					"The entity " + getEntityMetadata().getEntityName() + " with the id "
+						+ entity.getId() + " was updated or deleted by another transaction",
+					null, entity);
+			}
+			persister.setPropertyValue(entity, persister.getVersionProperty(), nextVersion);
+		}
+	}
+
+	/**
+	 * Executes the given operation and records its call, latency and error in the operation
+	 * metrics of this repository. If the current transaction was started for the called method,
+	 * the call is recorded after the completion of the transaction, so the flush and the commit
+	 * are included.
+	 *
+	 * @param methodName
+	 *            the name of the method
+	 * @param operation
+	 *            the operation
+	 */
+	protected void measure(final String methodName, final Runnable operation)
+	{
+		if (getOperationMetrics() != null)
+		{
+			getOperationMetrics().record(getClass(), methodName, operation);
+		}
 		else
 		{
-			getEntityManager().merge(entity);
+			operation.run();
+		}
+	}
+
+	/**
+	 * Executes the given operation and records its call, latency and error in the operation
+	 * metrics of this repository. If the current transaction was started for the called method,
+	 * the call is recorded after the completion of the transaction, so the flush and the commit
+	 * are included.
+	 *
+	 * @param <R>
+	 *            the generic type of the result
+	 * @param methodName
+	 *            the name of the method
+	 * @param operation
+	 *            the operation
+	 * @return the result of the operation
+	 */
+	protected <R> R measure(final String methodName, final Supplier<R> operation)
+	{
+		if (getOperationMetrics() != null)
+		{
+			return getOperationMetrics().record(getClass(), methodName, operation);
+		}
+		return operation.get();
+	}
+
+	/**
+	 * Gets the second level cache statistics of the region that is declared with the
+	 * {@link CacheRegion} annotation of this repository. The entity manager factory has to be
+	 * configured with {@link SecondLevelCacheConfiguration} with enabled statistics.
+	 *
+	 * @return the statistics of the region or null if this repository declares no region
+	 */
+	public CacheRegionStatistics getCacheRegionStatistics()
+	{
+		final String regionName = SecondLevelCacheConfiguration.getRegionName(getClass());
+		if (regionName == null)
+		{
+			return null;
 		}
+		return SecondLevelCacheConfiguration
+			.getRegionStatistics(getEntityManager().getEntityManagerFactory(), regionName);
+	}
+
+	/**
+	 * Gets the {@link EntityMetadata} of the entity class type of this repository.
+	 *
+	 * @return the {@link EntityMetadata}
+	 */
+	public EntityMetadata<T, PK> getEntityMetadata()
+	{
+		return EntityMetadataRegistry.getEntityMetadata(getEntityManager(), getType());
+	}
+
+	/**
+	 * Factory method for creating a new {@link ChangeTracker} for skipping the update of unchanged
+	 * entities. Entities that are loaded with this repository are snapshotted and on update only
+	 * changed entities are written. This method can be overridden so users can provide a bounded
+	 * {@link ChangeTracker} for entities that are mostly written back unchanged. By default no
+	 * change tracker is used.<br>
+	 * <br>
+	 * Note: partial updates are written with a criteria update that does not invoke the callbacks
+	 * {@link javax.persistence.PreUpdate} and {@link javax.persistence.PostUpdate}, so a change
+	 * tracker with partial updates should not be used for entities that rely on these callbacks.
+	 *
+	 * @return the new {@link ChangeTracker} or null for no change tracking
+	 */
+	public ChangeTracker<T, PK> newChangeTracker()
+	{
+		return null;
+	}
+
+	/**
+	 * Factory method for creating a new {@link CountCache} for caching the exact count of the
+	 * entities. The cached count is invalidated on every write of this repository. This method can
+	 * be overridden so users can provide a {@link CountCache} with a time to live that fits their
+	 * tolerance for stale totals. By default no count cache is used.
+	 *
+	 * @return the new {@link CountCache} or null for no caching
+	 */
+	public CountCache newCountCache()
+	{
+		return null;
+	}
+
+	/**
+	 * Factory method for creating a new {@link DeleteStrategy} for interact on deletion process.
+	 * This method can be overridden so users can provide their own version of a new
+	 * {@link DeleteStrategy} for the deletion process.
+	 *
+	 * @return the new {@link DeleteStrategy} for the deletion process.
+	 */
+	public DeleteStrategy<T, PK> newDeleteStrategy()
+	{
+		deleteStrategy = new DefaultDeleteStrategy<>(this);
+		return deleteStrategy;
+	}
+
+	/**
+	 * Factory method for creating a new {@link EntityCache} for caching entities that are
+	 * requested by their id. The entity cache is invalidated on every save, update, merge and
+	 * delete of this repository. The cache is filled with entities that are loaded with their own
+	 * {@link EntityManager} and every caller gets a detached copy. Inside a read write transaction
+	 * the cache is bypassed and the loaded entity is removed from the cache after the transaction,
+	 * because it can be changed with dirty checking. This method can be overridden so users can
+	 * provide a bounded {@link EntityCache} for read mostly data like reference data. By default no
+	 * entity cache is used.
+	 *
+	 * @return the new {@link EntityCache} or null for no caching
+	 */
+	public EntityCache<T, PK> newEntityCache()
+	{
+		return null;
+	}
+
+	/**
+	 * Factory method for creating a new {@link JdbcBatchInserter} for the jdbc batch insert. This
+	 * method can be overridden so users can provide their own number of rows in one insert
+	 * statement.
+	 *
+	 * @return the new {@link JdbcBatchInserter}
+	 */
+	public JdbcBatchInserter<T, PK> newJdbcBatchInserter()
+	{
+		return new JdbcBatchInserter<>(getEntityManager().getEntityManagerFactory(),
+			getJdbcTemplate(), getType(), JdbcBatchInserter.DEFAULT_ROWS_PER_STATEMENT);
+	}
+
+	/**
+	 * Factory method for creating a new {@link MergeStrategy} for interact on merge process. This
+	 * method can be overridden so users can provide their own version of a new
+	 * {@link MergeStrategy} for the merge process.
+	 *
+	 * @return the new {@link MergeStrategy} for the merge process.
+	 */
+	public MergeStrategy<T, PK> newMergeStrategy()
+	{
+		mergeStrategy = new DefaultMergeStrategy<>(this);
+		return mergeStrategy;
+	}
+
+	/**
+	 * Factory method for creating the {@link OperationMetrics} that record the calls, errors and
+	 * latencies of the crud methods of this repository. The metrics are shared between all
+	 * repositories of the same entity type and exposed over jmx. This method can be overridden so
+	 * users can switch off the recording by returning null.
+	 *
+	 * @return the {@link OperationMetrics} or null for no recording
+	 */
+	public OperationMetrics newOperationMetrics()
+	{
+		return MetricsRegistry.getOperationMetrics(MetricsRegistry.LAYER_REPOSITORY, getType());
+	}
+
+	/**
+	 * Factory method for creating a new {@link QueryRegistry} for the precompiled common queries
+	 * of this repository. This method can be overridden so users can provide their own version of
+	 * a new {@link QueryRegistry}.
+	 *
+	 * @return the new {@link QueryRegistry}
+	 */
+	public QueryRegistry<T, PK> newQueryRegistry()
+	{
+		return new QueryRegistry<>(this);
+	}
+
+	/**
+	 * Factory method for creating a new {@link SaveOrUpdateStrategy} for interact on save or update
+	 * process. This method can be overridden so users can provide their own version of a new
+	 * {@link SaveOrUpdateStrategy} for the save or update process, for instance a
+	 * {@link BatchSaveOrUpdateStrategy} for bulk inserts.
+	 *
+	 * @return the new {@link SaveOrUpdateStrategy} for the save or update process.
+	 */
+	public SaveOrUpdateStrategy<T, PK> newSaveOrUpdateStrategy()
+	{
+		saveOrUpdateStrategy = new DefaultSaveOrUpdateStrategy<>(this);
+		return saveOrUpdateStrategy;
+	}
+
+	@Override
+	public void refresh(final T entity)
+	{
+		measure("refresh", () -> getEntityManager().refresh(entity));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<PK> save(final List<T> entities)
+	{
+		return measure("save(List)", () -> {
+			invalidateCachedEntities(entities);
+			final List<PK> primaryKeys = new ArrayList<>();
+			if (getSaveOrUpdateStrategy() != null)
+			{
+				primaryKeys.addAll(getSaveOrUpdateStrategy().save(entities));
+			}
+			else
+			{
+				for (final T entity : entities)
+				{
+					primaryKeys.add(save(entity));
+				}
+			}
+			return primaryKeys;
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public PK save(final T entity)
+	{
+		return measure("save(T)", () -> {
+			invalidateCachedEntities(Collections.singletonList(entity));
+			if (getSaveOrUpdateStrategy() != null)
+			{
+				return getSaveOrUpdateStrategy().save(entity);
+			}
+			else
+			{
+				if (getSaveMode() == SaveMode.PERSIST_NEW && getEntityMetadata().isNew(entity))
+				{
+					getEntityManager().persist(entity);
+					return entity.getId();
+				}
+				return getEntityManager().merge(entity).getId();
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void saveOrUpdate(final List<T> entities)
+	{
+		measure("saveOrUpdate(List)", () -> {
+			invalidateCachedEntities(entities);
+			if (getSaveOrUpdateStrategy() != null)
+			{
+				getSaveOrUpdateStrategy().saveOrUpdate(entities);
+			}
+			else
+			{
+				for (final T entity : entities)
+				{
+					saveOrUpdate(entity);
+				}
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public void saveOrUpdate(final T entity)
+	{
+		measure("saveOrUpdate(T)", () -> {
+			invalidateCachedEntities(Collections.singletonList(entity));
+			if (getSaveOrUpdateStrategy() != null)
+			{
+				getSaveOrUpdateStrategy().saveOrUpdate(entity);
+			}
+			else
+			{
+				if (getEntityMetadata().isNew(entity))
+				{
+					save(entity);
+				}
+				else
+				{
+					update(entity);
+				}
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Stream<T> streamAll()
+	{
+		return streamAll(getFetchSize());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Stream<T> streamAll(final int fetchSize)
+	{
+		return measure("streamAll", () -> {
+			final Session session = getEntityManager().unwrap(Session.class);
+			final org.hibernate.query.Query<T> query = session
+				.createQuery(getEntityMetadata().getSelectAllString(), getType());
+			query.setFetchSize(fetchSize);
+			query.setCacheMode(CacheMode.IGNORE);
+			return ScrollableResultsIterator.stream(session,
+				query.scroll(ScrollMode.FORWARD_ONLY), getType(), fetchSize);
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public int updateWhere(final PredicateFactory<T> predicateFactory,
+		final Map<String, Object> values)
+	{
+		return measure("updateWhere", () -> {
+			if (values == null || values.isEmpty())
+			{
+				return 0;
+			}
+			final CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+			final CriteriaUpdate<T> criteriaUpdate = builder.createCriteriaUpdate(getType());
+			final Root<T> root = criteriaUpdate.from(getType());
+			for (final Map.Entry<String, Object> entry : values.entrySet())
+			{
+				criteriaUpdate.set(entry.getKey(), entry.getValue());
+			}
+			if (predicateFactory != null)
+			{
+				criteriaUpdate.where(predicateFactory.newPredicate(root, builder));
+			}
+			final int updated = getEntityManager().createQuery(criteriaUpdate).executeUpdate();
+			invalidateEntityCache();
+			return updated;
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public void update(final List<T> entities)
+	{
+		measure("update(List)", () -> {
+			final List<T> changedEntities = updateChangedAttributes(entities);
+			if (changedEntities.isEmpty())
+			{
+				return;
+			}
+			invalidateCachedEntities(changedEntities);
+			if (getSaveOrUpdateStrategy() != null)
+			{
+				getSaveOrUpdateStrategy().update(changedEntities);
+			}
+			else
+			{
+				for (final T entity : changedEntities)
+				{
+					getEntityManager().merge(entity);
+				}
+			}
+			snapshot(changedEntities);
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public void update(final T entity)
+	{
+		measure("update(T)", () -> {
+			if (updateChangedAttributes(Collections.singletonList(entity)).isEmpty())
+			{
+				return;
+			}
+			invalidateCachedEntities(Collections.singletonList(entity));
+			if (getSaveOrUpdateStrategy() != null)
+			{
+				getSaveOrUpdateStrategy().update(entity);
+			}
+			else
+			{
+				getEntityManager().merge(entity);
+			}
+			snapshot(Collections.singletonList(entity));
+		});
 	}
 
 }
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.repository;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.repository.api.AsyncGenericRepository;
+import de.alpharogroup.db.repository.api.GenericRepository;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link DefaultAsyncRepository} is the default implementation of the
+ * {@link AsyncGenericRepository} that delegates to a {@link GenericRepository}. The given
+ * repository has to use a shared spring {@link javax.persistence.EntityManager}, so every task
+ * gets the {@link javax.persistence.EntityManager} of its own transaction.
+ *
+ * @param <T>
+ *            the generic type of the domain entity
+ * @param <PK>
+ *            the generic type of the primary key from the domain entity
+ */
+public class DefaultAsyncRepository<T extends BaseEntity<PK>, PK extends Serializable>
+	implements
+		AsyncGenericRepository<T, PK>
+{
+
+	/** The repository. */
+	@Getter
+	private final GenericRepository<T, PK> repository;
+
+	/** The executor that runs every task in its own transaction. */
+	@Getter
+	private final TransactionalTaskExecutor taskExecutor;
+
+	/**
+	 * Instantiates a new {@link DefaultAsyncRepository}.
+	 *
+	 * @param repository
+	 *            the repository
+	 * @param taskExecutor
+	 *            the executor that runs every task in its own transaction
+	 */
+	public DefaultAsyncRepository(@NonNull final GenericRepository<T, PK> repository,
+		@NonNull final TransactionalTaskExecutor taskExecutor)
+	{
+		this.repository = repository;
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<Void> delete(final List<T> entities)
+	{
+		return taskExecutor.runAsync(() -> repository.delete(entities));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<Void> delete(final PK id)
+	{
+		return taskExecutor.runAsync(() -> repository.delete(id));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<Void> delete(final T entity)
+	{
+		return taskExecutor.runAsync(() -> repository.delete(entity));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<List<T>> findAll()
+	{
+		return taskExecutor.supplyAsync(repository::findAll, true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<T> get(final PK id)
+	{
+		return taskExecutor.supplyAsync(() -> repository.get(id), true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<List<T>> merge(final List<T> entities)
+	{
+		return taskExecutor.supplyAsync(() -> repository.merge(entities), false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<T> merge(final T entity)
+	{
+		return taskExecutor.supplyAsync(() -> repository.merge(entity), false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<List<PK>> save(final List<T> entities)
+	{
+		return taskExecutor.supplyAsync(() -> repository.save(entities), false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletableFuture<PK> save(final T entity)
+	{
+		return taskExecutor.supplyAsync(() -> repository.save(entity), false);
+	}
+
+}
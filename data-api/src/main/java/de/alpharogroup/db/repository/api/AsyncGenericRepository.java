@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.repository.api;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import de.alpharogroup.db.entity.BaseEntity;
+
+/**
+ * The interface {@link AsyncGenericRepository} is the asynchronous counterpart of the
+ * {@link GenericRepository}. Every operation runs on a worker thread in its own transaction and
+ * returns a {@link CompletableFuture} that completes after the commit.
+ *
+ * @param <T>
+ *            the generic type of the domain entity
+ * @param <PK>
+ *            the generic type of the primary key from the domain entity
+ */
+public interface AsyncGenericRepository<T extends BaseEntity<PK>, PK extends Serializable>
+{
+
+	/**
+	 * Delete all persistent entities in the given list.
+	 *
+	 * @param entities
+	 *            the list with the persistent entities to delete
+	 * @return the {@link CompletableFuture} that completes after the deletion
+	 */
+	CompletableFuture<Void> delete(List<T> entities);
+
+	/**
+	 * Deletes an entity of a given Id.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the {@link CompletableFuture} that completes after the deletion
+	 */
+	CompletableFuture<Void> delete(PK id);
+
+	/**
+	 * Deletes the given entity from persistent storage in the database.
+	 *
+	 * @param entity
+	 *            the persistent entity
+	 * @return the {@link CompletableFuture} that completes after the deletion
+	 */
+	CompletableFuture<Void> delete(T entity);
+
+	/**
+	 * Returns a list of all persistent entities.
+	 *
+	 * @return the {@link CompletableFuture} with the list of all persistent entities
+	 */
+	CompletableFuture<List<T>> findAll();
+
+	/**
+	 * Retrieve a persisted entity with a given id from the database.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the {@link CompletableFuture} with the entity or null if not found
+	 */
+	CompletableFuture<T> get(PK id);
+
+	/**
+	 * Merges all entities in the given list.
+	 *
+	 * @param entities
+	 *            the list to merge
+	 * @return the {@link CompletableFuture} with the list of the merged entities
+	 */
+	CompletableFuture<List<T>> merge(List<T> entities);
+
+	/**
+	 * Merges the given entity.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return the {@link CompletableFuture} with the merged entity
+	 */
+	CompletableFuture<T> merge(T entity);
+
+	/**
+	 * Save all new entities in the given list.
+	 *
+	 * @param entities
+	 *            the list to save
+	 * @return the {@link CompletableFuture} with the list of the ids of the saved entities
+	 */
+	CompletableFuture<List<PK>> save(List<T> entities);
+
+	/**
+	 * Persist the given entity into database.
+	 *
+	 * @param entity
+	 *            the new instance to save.
+	 * @return the {@link CompletableFuture} with the id of the saved entity
+	 */
+	CompletableFuture<PK> save(T entity);
+
+}
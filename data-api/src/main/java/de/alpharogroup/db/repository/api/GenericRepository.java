@@ -16,13 +16,21 @@
 package de.alpharogroup.db.repository.api;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 
+import de.alpharogroup.db.criteria.PredicateFactory;
 import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.paging.Page;
 
 /**
  * The interface {@link GenericRepository} provide an API for database operations like insert,
@@ -39,6 +47,14 @@ public interface GenericRepository<T extends BaseEntity<PK>, PK extends Serializ
 		Serializable
 {
 
+	/**
+	 * Counts all persistent entities with one count statement. If the repository has a count cache
+	 * the count is cached until it expires or the repository writes.
+	 *
+	 * @return the number of all persistent entities
+	 */
+	long count();
+
 	/**
 	 * Persists the given entity.
 	 *
@@ -68,6 +84,17 @@ public interface GenericRepository<T extends BaseEntity<PK>, PK extends Serializ
 	 */
 	TypedQuery<T> createNamedTypedQuery(String name);
 
+	/**
+	 * Factory method for create a new read only {@link TypedQuery} from the given name and the
+	 * type of the generic entity. The loaded entities are read only, so no snapshot is kept for
+	 * dirty checking, and the query does not flush the persistence context.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the new read only {@link TypedQuery}
+	 */
+	TypedQuery<T> createNamedTypedQueryReadOnly(String name);
+
 	/**
 	 * Factory method for create a new instance of {@link Query} from the given sql string and
 	 * execute a native sql statement for update or delete.
@@ -135,6 +162,56 @@ public interface GenericRepository<T extends BaseEntity<PK>, PK extends Serializ
 	 */
 	void delete(T entity);
 
+	/**
+	 * Deletes the entity of the given id with a bulk delete statement without loading it. If the
+	 * entity is already managed it will be removed from the persistence context.<br>
+	 * <br>
+	 * Note: bulk delete statements do not cascade to associations.
+	 *
+	 * @param id
+	 *            the id
+	 * @return true, if an entity with the given id was deleted, otherwise false
+	 */
+	default boolean deleteById(PK id)
+	{
+		return id != null && deleteByIds(Collections.singletonList(id)) > 0;
+	}
+
+	/**
+	 * Deletes all entities of the given ids with chunked bulk delete statements without loading
+	 * them. Entities that are already managed will be removed from the persistence context.<br>
+	 * <br>
+	 * Note: bulk delete statements do not cascade to associations.
+	 *
+	 * @param ids
+	 *            the ids of the entities to delete
+	 * @return the number of deleted entities
+	 */
+	int deleteByIds(Collection<PK> ids);
+
+	/**
+	 * Deletes all entities that match the predicate of the given {@link PredicateFactory} with one
+	 * set based delete statement without loading them.<br>
+	 * <br>
+	 * Note: the set based delete statement does not cascade to associations and bypasses the
+	 * persistence context.
+	 *
+	 * @param predicateFactory
+	 *            the factory for the predicate of the where clause or null for all entities
+	 * @return the number of deleted entities
+	 */
+	int deleteWhere(PredicateFactory<T> predicateFactory);
+
+	/**
+	 * Gets the estimated number of all persistent entities from the table statistics of the
+	 * database. This is much cheaper than an exact count on large tables but only as accurate as
+	 * the last statistics update. If the database offers no statistics the exact count is
+	 * returned.
+	 *
+	 * @return the estimated number of all persistent entities
+	 */
+	long estimatedCount();
+
 	/**
 	 * Remove this instance from the session cache.
 	 *
@@ -152,6 +229,16 @@ public interface GenericRepository<T extends BaseEntity<PK>, PK extends Serializ
 	 */
 	boolean exists(PK id);
 
+	/**
+	 * Checks which of the given ids have an entry. The check is done without loading the entities
+	 * with one query for each chunk of ids.
+	 *
+	 * @param ids
+	 *            the ids to check
+	 * @return the set with the ids that have an entry
+	 */
+	Set<PK> existsAll(Collection<PK> ids);
+
 	/**
 	 * Returns a list of all persistent entities.
 	 *
@@ -159,6 +246,86 @@ public interface GenericRepository<T extends BaseEntity<PK>, PK extends Serializ
 	 */
 	List<T> findAll();
 
+	/**
+	 * Returns a list of projections of all persistent entities that match the predicate of the
+	 * given factory. Only the given attributes are selected and no entity is loaded into the
+	 * persistence context. If the given projection is a class it needs a constructor with the
+	 * types of the given attributes in the same order. If the given projection is an interface
+	 * every getter returns the value of the attribute with the same name as the getter property.
+	 *
+	 * @param <P>
+	 *            the generic type of the projection
+	 * @param projection
+	 *            the class type of the projection
+	 * @param predicateFactory
+	 *            the factory for the predicate or null for all entities
+	 * @param attributePaths
+	 *            the attributes to select, nested attributes are separated with a dot
+	 * @return list of projections
+	 */
+	<P> List<P> findAllProjected(Class<P> projection, PredicateFactory<T> predicateFactory,
+		String... attributePaths);
+
+	/**
+	 * Returns a list of projections of all persistent entities. Only the given attributes are
+	 * selected and no entity is loaded into the persistence context.
+	 *
+	 * @param <P>
+	 *            the generic type of the projection
+	 * @param projection
+	 *            the class type of the projection
+	 * @param attributePaths
+	 *            the attributes to select, nested attributes are separated with a dot
+	 * @return list of projections
+	 * @see #findAllProjected(Class, PredicateFactory, String...)
+	 */
+	<P> List<P> findAllProjected(Class<P> projection, String... attributePaths);
+
+	/**
+	 * Returns a list of all persistent entities as read only entities. No snapshot is kept for
+	 * dirty checking, so changes of the returned entities are not flushed to the database.
+	 *
+	 * @return list of all persistent entities
+	 */
+	List<T> findAllReadOnly();
+
+	/**
+	 * Returns a list of all persistent entities with the given value of the given attribute. The
+	 * query is registered once as named query and reused on every further call.
+	 *
+	 * @param attributeName
+	 *            the name of the attribute
+	 * @param value
+	 *            the value of the attribute or null for all entities where the attribute is null
+	 * @return list of entities
+	 */
+	List<T> findByAttribute(String attributeName, Object value);
+
+	/**
+	 * Returns the page of persistent entities that follows the entity with the given id in the
+	 * order of the ids. The page is selected with a keyset condition on the id instead of an
+	 * offset, so the cost of a page does not depend on its position.
+	 *
+	 * @param lastId
+	 *            the id of the last entity of the previous page or null for the first page
+	 * @param limit
+	 *            the maximum number of entities of the page
+	 * @return the {@link Page} with the entities
+	 */
+	Page<T, PK> findPageAfter(PK lastId, int limit);
+
+	/**
+	 * Performs the given action for all persistent entities. The entities are read with a server
+	 * side cursor with the given jdbc fetch size and the processed entities are detached
+	 * periodically, so the memory consumption stays flat regardless of the table size.
+	 *
+	 * @param action
+	 *            the action to perform for each entity
+	 * @param fetchSize
+	 *            the jdbc fetch size
+	 */
+	void forEach(Consumer<T> action, int fetchSize);
+
 	/**
 	 * Retrieve a persisted entity with a given id from the database.
 	 *
@@ -168,6 +335,28 @@ public interface GenericRepository<T extends BaseEntity<PK>, PK extends Serializ
 	 */
 	T get(PK id);
 
+	/**
+	 * Retrieve the persisted entities with the given ids from the database. Entities that are
+	 * already managed are taken from the persistence context and the other entities are loaded in
+	 * chunks with one query for each chunk. The returned list has the order of the given ids and
+	 * contains null as placeholder for every id that has no entity.
+	 *
+	 * @param ids
+	 *            the ids
+	 * @return the list with the entities in the order of the given ids
+	 */
+	List<T> getAll(Collection<PK> ids);
+
+	/**
+	 * Retrieve the persisted entities with the given ids from the database as a map with the ids
+	 * as keys. The map has the order of the given ids and contains only the ids that have an entity.
+	 *
+	 * @param ids
+	 *            the ids
+	 * @return the map with the ids as keys and the entities as values
+	 */
+	Map<PK, T> getAllAsMap(Collection<PK> ids);
+
 	/**
 	 * Gets the entity manager.
 	 *
@@ -184,6 +373,28 @@ public interface GenericRepository<T extends BaseEntity<PK>, PK extends Serializ
 	 */
 	Query getQuery(String hqlQuery);
 
+	/**
+	 * Gets a read only {@link Query} from the given hql query. The loaded entities are read only,
+	 * so no snapshot is kept for dirty checking, and the query does not flush the persistence
+	 * context.
+	 *
+	 * @param hqlQuery
+	 *            the hql query
+	 * @return the read only {@link Query}
+	 */
+	Query getQueryReadOnly(String hqlQuery);
+
+	/**
+	 * Retrieve a persisted entity with a given id from the database as read only entity. No
+	 * snapshot is kept for dirty checking, so changes of the returned entity are not flushed to the
+	 * database. An entity that is already managed keeps its state.
+	 *
+	 * @param id
+	 *            the id
+	 * @return An entity of type T
+	 */
+	T getReadOnly(PK id);
+
 	/**
 	 * Gets the class type.
 	 *
@@ -191,6 +402,17 @@ public interface GenericRepository<T extends BaseEntity<PK>, PK extends Serializ
 	 */
 	Class<T> getType();
 
+	/**
+	 * Inserts the given new entities with plain jdbc multi row insert statements in jdbc batches.
+	 * The persistence context is bypassed, so no lifecycle callbacks, no cascades and no dirty
+	 * checking take place. This is intended for etl like loads of large amounts of new entities.
+	 *
+	 * @param entities
+	 *            the new entities to insert
+	 * @return the number of inserted rows
+	 */
+	int jdbcBatchInsert(List<T> entities);
+
 	/**
 	 * Retrieve a persisted entity with a given id from the database.
 	 *
@@ -268,6 +490,45 @@ public interface GenericRepository<T extends BaseEntity<PK>, PK extends Serializ
 	 */
 	void setEntityManager(EntityManager entityManager);
 
+	/**
+	 * Returns a {@link Stream} of all persistent entities that is backed by a server side cursor
+	 * with the default jdbc fetch size. The processed entities are detached periodically.<br>
+	 * <br>
+	 * Note: the returned stream has to be consumed inside a transaction and has to be closed after
+	 * use, for instance with a try-with-resources statement.
+	 *
+	 * @return the {@link Stream} of all persistent entities
+	 */
+	Stream<T> streamAll();
+
+	/**
+	 * Returns a {@link Stream} of all persistent entities that is backed by a server side cursor
+	 * with the given jdbc fetch size. The processed entities are detached periodically.<br>
+	 * <br>
+	 * Note: the returned stream has to be consumed inside a transaction and has to be closed after
+	 * use, for instance with a try-with-resources statement.
+	 *
+	 * @param fetchSize
+	 *            the jdbc fetch size
+	 * @return the {@link Stream} of all persistent entities
+	 */
+	Stream<T> streamAll(int fetchSize);
+
+	/**
+	 * Updates the given attributes of all entities that match the predicate of the given
+	 * {@link PredicateFactory} with one set based update statement without loading them.<br>
+	 * <br>
+	 * Note: the set based update statement bypasses the persistence context and does not increment
+	 * the version of versioned entities.
+	 *
+	 * @param predicateFactory
+	 *            the factory for the predicate of the where clause or null for all entities
+	 * @param values
+	 *            the new values mapped to the names of the attributes
+	 * @return the number of updated entities
+	 */
+	int updateWhere(PredicateFactory<T> predicateFactory, Map<String, Object> values);
+
 	/**
 	 * Update all transient entities in the given list.
 	 *
@@ -0,0 +1,202 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.strategies;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.strategies.api.SaveOrUpdateStrategy;
+import lombok.Getter;
+
+/**
+ * The class {@link BatchSaveOrUpdateStrategy} is an implementation of the
+ * {@link SaveOrUpdateStrategy} for bulk operations. New entities are persisted instead of merged,
+ * the statements are grouped in jdbc batches of the configured batch size and the
+ * {@link EntityManager} is flushed after every batch. The entities of the flushed batch are
+ * detached afterwards, so the persistence context does not grow with the size of the given list
+ * and other entities that are managed in the persistence context of the caller stay managed. <br>
+ * <br>
+ * Note: the strategy is created with its constructor and is not a transactional proxy, so the
+ * methods have to be called in the transaction of the caller, for instance from the
+ * {@link org.springframework.transaction.annotation.Transactional} methods of the repository.
+ * Entities of the given list are detached after the bulk operation, associated entities are only
+ * detached if the association cascades the detach. Jdbc batching of inserts is not possible for
+ * entities with an identity generated primary key.
+ *
+ * @param <T>
+ *            the type of the entity object
+ * @param <PK>
+ *            the type of the primary key from the entity object
+ */
+public class BatchSaveOrUpdateStrategy<T extends BaseEntity<PK>, PK extends Serializable>
+	extends
+		DefaultSaveOrUpdateStrategy<T, PK>
+{
+
+	/** The Constant DEFAULT_BATCH_SIZE. */
+	public static final int DEFAULT_BATCH_SIZE = 50;
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The number of entities that will be flushed in one jdbc batch. */
+	@Getter
+	private final int batchSize;
+
+	/**
+	 * Instantiates a new {@link BatchSaveOrUpdateStrategy} with the default batch size.
+	 *
+	 * @param repository
+	 *            the repository
+	 */
+	public BatchSaveOrUpdateStrategy(AbstractRepository<T, PK> repository)
+	{
+		this(repository, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Instantiates a new {@link BatchSaveOrUpdateStrategy}.
+	 *
+	 * @param repository
+	 *            the repository
+	 * @param batchSize
+	 *            the number of entities that will be flushed in one jdbc batch
+	 */
+	public BatchSaveOrUpdateStrategy(AbstractRepository<T, PK> repository, int batchSize)
+	{
+		super(repository);
+		if (batchSize < 1)
+		{
+			throw new IllegalArgumentException("Given batch size must be greater than 0");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Executes the given action for each entity of the given list, flushes the
+	 * {@link EntityManager} after every batch and detaches the managed entities of the flushed
+	 * batch.
+	 *
+	 * @param entities
+	 *            the entities
+	 * @param action
+	 *            the action to execute for each entity that returns the managed entity
+	 * @return the managed entities in the order of the given entities, that are detached now
+	 */
+	protected List<T> executeInBatches(List<T> entities, UnaryOperator<T> action)
+	{
+		final EntityManager entityManager = getEntityManager();
+		final Session session = entityManager.unwrap(Session.class);
+		final Integer previousBatchSize = session.getJdbcBatchSize();
+		session.setJdbcBatchSize(batchSize);
+		final List<T> managedEntities = new ArrayList<>(entities.size());
+		try
+		{
+			int flushed = 0;
+			for (final T entity : entities)
+			{
+				managedEntities.add(action.apply(entity));
+				if (managedEntities.size() - flushed == batchSize)
+				{
+					flushed = flushAndDetach(managedEntities, flushed);
+				}
+			}
+			flushAndDetach(managedEntities, flushed);
+		}
+		finally
+		{
+			session.setJdbcBatchSize(previousBatchSize);
+		}
+		return managedEntities;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<PK> save(List<T> entities)
+	{
+		final List<PK> primaryKeys = new ArrayList<>(entities.size());
+		executeInBatches(entities, this::persistOrMerge)
+			.forEach(entity -> primaryKeys.add(entity.getId()));
+		return primaryKeys;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void saveOrUpdate(List<T> entities)
+	{
+		executeInBatches(entities, this::persistOrMerge);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void update(List<T> entities)
+	{
+		executeInBatches(entities, entity -> getEntityManager().merge(entity));
+	}
+
+	/**
+	 * Flushes the {@link EntityManager} and detaches the given managed entities from the given
+	 * index on.
+	 *
+	 * @param managedEntities
+	 *            the managed entities
+	 * @param fromIndex
+	 *            the index of the first entity that is not flushed yet
+	 * @return the number of flushed entities
+	 */
+	private int flushAndDetach(List<T> managedEntities, int fromIndex)
+	{
+		getEntityManager().flush();
+		for (final T managedEntity : managedEntities.subList(fromIndex, managedEntities.size()))
+		{
+			getEntityManager().detach(managedEntity);
+		}
+		return managedEntities.size();
+	}
+
+	/**
+	 * Persists the given entity if it is new, otherwise the given entity will be merged. New
+	 * entities are always persisted regardless of the save mode of the repository.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return the managed entity
+	 */
+	private T persistOrMerge(T entity)
+	{
+		if (isNew(entity))
+		{
+			getEntityManager().persist(entity);
+			return entity;
+		}
+		return getEntityManager().merge(entity);
+	}
+
+}
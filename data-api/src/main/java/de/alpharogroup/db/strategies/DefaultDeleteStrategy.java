@@ -16,6 +16,8 @@
 package de.alpharogroup.db.strategies;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -25,8 +27,7 @@ import org.springframework.transaction.annotation.Transactional;
 import de.alpharogroup.db.entity.BaseEntity;
 import de.alpharogroup.db.repository.AbstractRepository;
 import de.alpharogroup.db.strategies.api.DeleteStrategy;
-import de.alpharogroup.lang.TypeArgumentsExtensions;
-import lombok.Getter;
+import de.alpharogroup.db.util.PersistenceExtensions;
 import lombok.NonNull;
 
 /**
@@ -49,12 +50,6 @@ public class DefaultDeleteStrategy<T extends BaseEntity<PK>, PK extends Serializ
 	@NonNull
 	private final AbstractRepository<T, PK> repository;
 
-	/** The class type of the entity. */
-	@Getter
-	@SuppressWarnings("unchecked")
-	private final Class<T> type = (Class<T>)TypeArgumentsExtensions
-		.getFirstTypeArgument(DefaultDeleteStrategy.class, this.getClass());
-
 	/**
 	 * Instantiates a new {@link DefaultDeleteStrategy}.
 	 *
@@ -84,7 +79,7 @@ public class DefaultDeleteStrategy<T extends BaseEntity<PK>, PK extends Serializ
 	@Override
 	public void delete(PK id)
 	{
-		final T entity = getEntityManager().find(type, id);
+		final T entity = getEntityManager().find(getType(), id);
 		delete(entity);
 	}
 
@@ -105,12 +100,47 @@ public class DefaultDeleteStrategy<T extends BaseEntity<PK>, PK extends Serializ
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public boolean deleteById(PK id)
+	{
+		if (id == null)
+		{
+			return false;
+		}
+		return deleteByIds(Collections.singletonList(id)) > 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public int deleteByIds(Collection<PK> ids)
+	{
+		return PersistenceExtensions.deleteByIds(getEntityManager(), getType(), ids,
+			this.repository.getChunkSize());
+	}
+
+	/**
+	 * Gets the class type of the entity from the repository.
+	 *
+	 * @return the class type of the entity
+	 */
+	public Class<T> getType()
+	{
+		return this.repository.getType();
+	}
+
 	/**
 	 * Gets the entity manager.
 	 *
 	 * @return the entity manager
 	 */
-	private EntityManager getEntityManager()
+	protected EntityManager getEntityManager()
 	{
 		return this.repository.getEntityManager();
 	}
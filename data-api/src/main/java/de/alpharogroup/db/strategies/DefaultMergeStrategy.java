@@ -26,8 +26,6 @@ import org.springframework.transaction.annotation.Transactional;
 import de.alpharogroup.db.entity.BaseEntity;
 import de.alpharogroup.db.repository.AbstractRepository;
 import de.alpharogroup.db.strategies.api.MergeStrategy;
-import de.alpharogroup.lang.TypeArgumentsExtensions;
-import lombok.Getter;
 import lombok.NonNull;
 
 /**
@@ -50,12 +48,6 @@ public class DefaultMergeStrategy<T extends BaseEntity<PK>, PK extends Serializa
 	@NonNull
 	private final AbstractRepository<T, PK> repository;
 
-	/** The class type of the entity. */
-	@Getter
-	@SuppressWarnings("unchecked")
-	private final Class<T> type = (Class<T>)TypeArgumentsExtensions
-		.getFirstTypeArgument(DefaultMergeStrategy.class, this.getClass());
-
 	/**
 	 * Instantiates a new {@link DefaultMergeStrategy}.
 	 *
@@ -67,6 +59,16 @@ public class DefaultMergeStrategy<T extends BaseEntity<PK>, PK extends Serializa
 		this.repository = repository;
 	}
 
+	/**
+	 * Gets the class type of the entity from the repository.
+	 *
+	 * @return the class type of the entity
+	 */
+	public Class<T> getType()
+	{
+		return this.repository.getType();
+	}
+
 	/**
 	 * Gets the entity manager.
 	 *
@@ -25,9 +25,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import de.alpharogroup.db.entity.BaseEntity;
 import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.strategies.api.SaveMode;
 import de.alpharogroup.db.strategies.api.SaveOrUpdateStrategy;
-import de.alpharogroup.lang.TypeArgumentsExtensions;
-import lombok.Getter;
 import lombok.NonNull;
 
 /**
@@ -51,12 +50,6 @@ public class DefaultSaveOrUpdateStrategy<T extends BaseEntity<PK>, PK extends Se
 	@NonNull
 	private final AbstractRepository<T, PK> repository;
 
-	/** The class type of the entity. */
-	@Getter
-	@SuppressWarnings("unchecked")
-	private final Class<T> type = (Class<T>)TypeArgumentsExtensions
-		.getFirstTypeArgument(DefaultSaveOrUpdateStrategy.class, this.getClass());
-
 	/**
 	 * Instantiates a new {@link DefaultSaveOrUpdateStrategy}.
 	 *
@@ -68,16 +61,38 @@ public class DefaultSaveOrUpdateStrategy<T extends BaseEntity<PK>, PK extends Se
 		this.repository = repository;
 	}
 
+	/**
+	 * Gets the class type of the entity from the repository.
+	 *
+	 * @return the class type of the entity
+	 */
+	public Class<T> getType()
+	{
+		return this.repository.getType();
+	}
+
 	/**
 	 * Gets the entity manager.
 	 *
 	 * @return the entity manager
 	 */
-	private EntityManager getEntityManager()
+	protected EntityManager getEntityManager()
 	{
 		return this.repository.getEntityManager();
 	}
 
+	/**
+	 * Checks if the given entity is new and was never persisted.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return true, if the given entity is new, otherwise false
+	 */
+	protected boolean isNew(T entity)
+	{
+		return this.repository.getEntityMetadata().isNew(entity);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -99,8 +114,12 @@ public class DefaultSaveOrUpdateStrategy<T extends BaseEntity<PK>, PK extends Se
 	@Transactional
 	public PK save(T entity)
 	{
-		getEntityManager().merge(entity);
-		return entity.getId();
+		if (this.repository.getSaveMode() == SaveMode.PERSIST_NEW && isNew(entity))
+		{
+			getEntityManager().persist(entity);
+			return entity.getId();
+		}
+		return getEntityManager().merge(entity).getId();
 	}
 
 	/**
@@ -121,7 +140,7 @@ public class DefaultSaveOrUpdateStrategy<T extends BaseEntity<PK>, PK extends Se
 	@Override
 	public void saveOrUpdate(T entity)
 	{
-		if (entity.getId() == null)
+		if (isNew(entity))
 		{
 			save(entity);
 		}
@@ -0,0 +1,573 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.strategies;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.strategies.api.DeleteStrategy;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link DeferredDeleteStrategy} is an implementation of the {@link DeleteStrategy} that
+ * does not delete entities in the calling thread. The methods {@link #delete(List)},
+ * {@link #delete(Serializable)} and {@link #delete(BaseEntity)} only enqueue the ids of the
+ * entities after the commit of the calling transaction. A background purger removes the enqueued
+ * entities in small batches, each batch in its own transaction, with a fixed delay between the
+ * batches and only while the quiet period condition is fulfilled. So long running cascading
+ * deletes do not hold locks that stall the concurrent traffic. <br>
+ * <br>
+ * The strategy is installed with {@link AbstractRepository#setDeleteStrategy(DeleteStrategy)}
+ * after the repository is injected. As spring bean the purger is started after the properties
+ * are set and closed on the destruction of the bean, without spring {@link #start()} and
+ * {@link #close()} have to be called. If a batch fails every entity of the batch is purged in its
+ * own transaction, so one entity that can not be removed does not block the others. An entity
+ * that fails the maximum number of attempts is dropped from the queue and handed to the failure
+ * handler.<br>
+ * <br>
+ * Note: until they are purged the entities are still visible to queries and to
+ * {@link AbstractRepository#get(Serializable)}. The repository invalidates its caches on the
+ * delete call and the purger invalidates them again after the purge, so a purged entity is never
+ * served from a cache. Subclasses for entities with a deleted flag can override
+ * {@link #markDeleted(Collection)} for hide them immediately. The queue is held in memory, so ids
+ * that are not purged before a crash of the application have to be deleted again. The methods
+ * {@link #deleteById(Serializable)} and {@link #deleteByIds(Collection)} are not deferred, because
+ * they have to return the number of deleted entities.
+ *
+ * @param <T>
+ *            the type of the entity object
+ * @param <PK>
+ *            the type of the primary key from the entity object
+ */
+@Log
+public class DeferredDeleteStrategy<T extends BaseEntity<PK>, PK extends Serializable>
+	extends
+		DefaultDeleteStrategy<T, PK>
+	implements
+		AutoCloseable,
+		InitializingBean,
+		DisposableBean
+{
+
+	/** The Constant DEFAULT_BATCH_SIZE. */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
+	/** The Constant DEFAULT_MAX_ATTEMPTS. */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	/** The Constant DEFAULT_PURGE_DELAY. */
+	public static final Duration DEFAULT_PURGE_DELAY = Duration.ofSeconds(1);
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The maximum number of entities that are purged in one transaction. */
+	@Getter
+	private final int batchSize;
+
+	/** The number of failed purge attempts mapped to the ids of the entities. */
+	private final Map<PK, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+	/** The handler of the entities that failed the maximum number of attempts. */
+	private final transient BiConsumer<PK, RuntimeException> failureHandler;
+
+	/** The maximum number of attempts for purge one entity. */
+	@Getter
+	private final int maxAttempts;
+
+	/** The ids of the enqueued entities for the lookup. */
+	private final Set<PK> pendingIds = ConcurrentHashMap.newKeySet();
+
+	/** The delay between two purged batches. */
+	@Getter
+	private final Duration purgeDelay;
+
+	/** The number of purged entities. */
+	private final LongAdder purgedCount = new LongAdder();
+
+	/** The queue with the ids of the entities that will be purged. */
+	private final Queue<PK> queue = new ConcurrentLinkedQueue<>();
+
+	/** The condition if the purger is allowed to purge at the moment. */
+	private final transient BooleanSupplier quietPeriod;
+
+	/** The repository. */
+	private final AbstractRepository<T, PK> repository;
+
+	/** The scheduler of the background purger or null if the purger is not started. */
+	private transient ScheduledExecutorService scheduler;
+
+	/** The executor that runs every batch in its own transaction. */
+	private final transient TransactionalTaskExecutor taskExecutor;
+
+	/**
+	 * Instantiates a new {@link DeferredDeleteStrategy} with the default batch size and the
+	 * default purge delay that purges at any time.
+	 *
+	 * @param repository
+	 *            the repository
+	 * @param taskExecutor
+	 *            the executor that runs every batch in its own transaction
+	 */
+	public DeferredDeleteStrategy(AbstractRepository<T, PK> repository,
+		TransactionalTaskExecutor taskExecutor)
+	{
+		this(repository, taskExecutor, DEFAULT_BATCH_SIZE, DEFAULT_PURGE_DELAY, () -> true);
+	}
+
+	/**
+	 * Instantiates a new {@link DeferredDeleteStrategy}.
+	 *
+	 * @param repository
+	 *            the repository
+	 * @param taskExecutor
+	 *            the executor that runs every batch in its own transaction
+	 * @param batchSize
+	 *            the maximum number of entities that are purged in one transaction
+	 * @param purgeDelay
+	 *            the delay between two purged batches
+	 * @param quietPeriod
+	 *            the condition if the purger is allowed to purge at the moment, for instance a
+	 *            check of the current load or the time of day
+	 */
+	public DeferredDeleteStrategy(AbstractRepository<T, PK> repository,
+		TransactionalTaskExecutor taskExecutor, int batchSize, Duration purgeDelay,
+		BooleanSupplier quietPeriod)
+	{
+		this(repository, taskExecutor, batchSize, purgeDelay, quietPeriod, DEFAULT_MAX_ATTEMPTS,
+			(id, exception) -> {
+			});
+	}
+
+	/**
+	 * Instantiates a new {@link DeferredDeleteStrategy}.
+	 *
+	 * @param repository
+	 *            the repository
+	 * @param taskExecutor
+	 *            the executor that runs every batch in its own transaction
+	 * @param batchSize
+	 *            the maximum number of entities that are purged in one transaction
+	 * @param purgeDelay
+	 *            the delay between two purged batches
+	 * @param quietPeriod
+	 *            the condition if the purger is allowed to purge at the moment, for instance a
+	 *            check of the current load or the time of day
+	 * @param maxAttempts
+	 *            the maximum number of attempts for purge one entity
+	 * @param failureHandler
+	 *            the handler of the ids of the entities that failed the maximum number of
+	 *            attempts, for instance for a dead letter table
+	 */
+	public DeferredDeleteStrategy(AbstractRepository<T, PK> repository,
+		@NonNull TransactionalTaskExecutor taskExecutor, int batchSize,
+		@NonNull Duration purgeDelay, @NonNull BooleanSupplier quietPeriod, int maxAttempts,
+		@NonNull BiConsumer<PK, RuntimeException> failureHandler)
+	{
+		super(repository);
+		if (batchSize < 1 || maxAttempts < 1)
+		{
+			throw new IllegalArgumentException(
+				"Given batch size and maximum attempts must be greater than 0");
+		}
+		this.repository = repository;
+		this.taskExecutor = taskExecutor;
+		this.batchSize = batchSize;
+		this.purgeDelay = purgeDelay;
+		this.quietPeriod = quietPeriod;
+		this.maxAttempts = maxAttempts;
+		this.failureHandler = failureHandler;
+	}
+
+	/**
+	 * Starts the background purger when the strategy is created as spring bean.
+	 */
+	@Override
+	public void afterPropertiesSet()
+	{
+		start();
+	}
+
+	/**
+	 * Stops the background purger and purges all enqueued entities synchronous.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if (scheduler != null)
+		{
+			scheduler.shutdown();
+			try
+			{
+				scheduler.awaitTermination(1, TimeUnit.MINUTES);
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			scheduler = null;
+		}
+		purgeAll();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void delete(List<T> entities)
+	{
+		final List<PK> ids = new ArrayList<>(entities.size());
+		for (final T entity : entities)
+		{
+			if (entity != null && entity.getId() != null)
+			{
+				ids.add(entity.getId());
+			}
+		}
+		enqueue(ids);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void delete(PK id)
+	{
+		if (id != null)
+		{
+			enqueue(Collections.singletonList(id));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void delete(T entity)
+	{
+		if (entity != null)
+		{
+			delete(entity.getId());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deleteByIds(Collection<PK> ids)
+	{
+		final int deleted = super.deleteByIds(ids);
+		if (ids != null)
+		{
+			pendingIds.removeAll(ids);
+		}
+		return deleted;
+	}
+
+	/**
+	 * Stops the background purger and purges all enqueued entities when the strategy is destroyed
+	 * as spring bean.
+	 */
+	@Override
+	public void destroy()
+	{
+		close();
+	}
+
+	/**
+	 * Gets the number of enqueued entities that are not purged yet.
+	 *
+	 * @return the number of pending entities
+	 */
+	public int getPendingCount()
+	{
+		return pendingIds.size();
+	}
+
+	/**
+	 * Gets the number of purged entities.
+	 *
+	 * @return the number of purged entities
+	 */
+	public long getPurgedCount()
+	{
+		return purgedCount.sum();
+	}
+
+	/**
+	 * Checks if the entity with the given id is enqueued and not purged yet.
+	 *
+	 * @param id
+	 *            the id
+	 * @return true, if the entity with the given id is pending for deletion
+	 */
+	public boolean isPendingDeletion(PK id)
+	{
+		return id != null && pendingIds.contains(id);
+	}
+
+	/**
+	 * Marks the entities with the given ids as deleted in the calling transaction. This method
+	 * does nothing by default and can be overridden for entities with a deleted flag, so the
+	 * entities are hidden from queries until they are purged.
+	 *
+	 * @param ids
+	 *            the ids of the entities to mark
+	 */
+	protected void markDeleted(Collection<PK> ids)
+	{
+	}
+
+	/**
+	 * Purges all enqueued entities synchronous regardless of the quiet period.
+	 *
+	 * @return the number of purged entities
+	 */
+	public int purgeAll()
+	{
+		int purged = 0;
+		while (!queue.isEmpty())
+		{
+			purged += purgeBatch();
+		}
+		return purged;
+	}
+
+	/**
+	 * Purges the next batch of enqueued entities in a new transaction. Every entity is loaded and
+	 * removed, so the cascades of the entity are applied. If the transaction fails every entity of
+	 * the batch is purged in its own transaction. An entity that fails is enqueued again until it
+	 * failed the maximum number of attempts and is then handed to the failure handler.
+	 *
+	 * @return the number of purged entities
+	 */
+	public int purgeBatch()
+	{
+		final List<PK> ids = new ArrayList<>(batchSize);
+		PK id;
+		while (ids.size() < batchSize && (id = queue.poll()) != null)
+		{
+			ids.add(id);
+		}
+		if (ids.isEmpty())
+		{
+			return 0;
+		}
+		try
+		{
+			return purge(ids);
+		}
+		catch (final RuntimeException e)
+		{
+			if (ids.size() == 1)
+			{
+				failed(ids.get(0), e);
+				return 0;
+			}
+			log.log(Level.FINE, "Purge of " + ids.size() + " entities of type "
+				+ getType().getName() + " failed and is repeated for every entity", e);
+		}
+		int purged = 0;
+		for (final PK current : ids)
+		{
+			try
+			{
+				purged += purge(Collections.singletonList(current));
+			}
+			catch (final RuntimeException e)
+			{
+				failed(current, e);
+			}
+		}
+		return purged;
+	}
+
+	/**
+	 * Starts the background purger on its own daemon thread. The purger purges one batch after
+	 * every purge delay if the quiet period condition is fulfilled.
+	 */
+	public synchronized void start()
+	{
+		if (scheduler != null)
+		{
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable,
+				"deferred-purge-" + getType().getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::purgeInQuietPeriod, purgeDelay.toMillis(),
+			purgeDelay.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Enqueues the given ids after the commit of the current transaction or immediately if no
+	 * transaction is active.
+	 *
+	 * @param ids
+	 *            the ids to enqueue
+	 */
+	private void enqueue(List<PK> ids)
+	{
+		if (ids.isEmpty())
+		{
+			return;
+		}
+		markDeleted(ids);
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			TransactionSynchronizationManager
+				.registerSynchronization(new TransactionSynchronizationAdapter()
+				{
+					@Override
+					public void afterCompletion(final int status)
+					{
+						if (status == TransactionSynchronization.STATUS_COMMITTED)
+						{
+							offer(ids);
+						}
+					}
+				});
+		}
+		else
+		{
+			offer(ids);
+		}
+	}
+
+	/**
+	 * Counts the failed attempt of the entity with the given id. The id is enqueued again until
+	 * the maximum number of attempts is reached, then it is removed from the pending ids and handed
+	 * to the failure handler.
+	 *
+	 * @param id
+	 *            the id
+	 * @param exception
+	 *            the exception of the failed attempt
+	 */
+	private void failed(PK id, RuntimeException exception)
+	{
+		final int attempts = failedAttempts.merge(id, 1, Integer::sum);
+		if (attempts < maxAttempts)
+		{
+			log.log(Level.FINE, "Attempt " + attempts + " of " + maxAttempts + " for purge entity "
+				+ id + " of type " + getType().getName() + " failed", exception);
+			queue.offer(id);
+			return;
+		}
+		failedAttempts.remove(id);
+		pendingIds.remove(id);
+		log.log(Level.WARNING, "Purge of entity " + id + " of type " + getType().getName()
+			+ " failed " + attempts + " times and is given up", exception);
+		failureHandler.accept(id, exception);
+	}
+
+	/**
+	 * Adds the given ids to the queue if they are not already pending.
+	 *
+	 * @param ids
+	 *            the ids
+	 */
+	private void offer(List<PK> ids)
+	{
+		for (final PK id : ids)
+		{
+			if (pendingIds.add(id))
+			{
+				queue.offer(id);
+			}
+		}
+	}
+
+	/**
+	 * Purges the entities with the given ids in a new transaction.
+	 *
+	 * @param ids
+	 *            the ids
+	 * @return the number of purged entities
+	 */
+	private int purge(List<PK> ids)
+	{
+		final int purged = taskExecutor.execute(() -> {
+			int count = 0;
+			for (final PK current : ids)
+			{
+				final T entity = getEntityManager().find(getType(), current);
+				if (entity != null)
+				{
+					getEntityManager().remove(entity);
+					count++;
+				}
+			}
+			repository.invalidateCachedIds(ids);
+			return count;
+		}, false);
+		pendingIds.removeAll(ids);
+		failedAttempts.keySet().removeAll(ids);
+		purgedCount.add(purged);
+		return purged;
+	}
+
+	/**
+	 * Purges one batch if the quiet period condition is fulfilled. Failures are already logged
+	 * and must not stop the scheduled purger.
+	 */
+	private void purgeInQuietPeriod()
+	{
+		try
+		{
+			if (quietPeriod.getAsBoolean())
+			{
+				purgeBatch();
+			}
+		}
+		catch (final RuntimeException e)
+		{
+			log.log(Level.FINE, "Scheduled purge failed", e);
+		}
+	}
+
+}
@@ -16,6 +16,8 @@
 package de.alpharogroup.db.strategies.api;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import de.alpharogroup.db.entity.BaseEntity;
@@ -56,4 +58,27 @@ public interface DeleteStrategy<T extends BaseEntity<PK>, PK extends Serializabl
 	 *            the persistent entity
 	 */
 	void delete(T entity);
+
+	/**
+	 * Deletes the entity of the given id with a bulk delete statement without loading it. If the
+	 * entity is already managed it will be removed from the persistence context.
+	 *
+	 * @param id
+	 *            the id
+	 * @return true, if an entity with the given id was deleted, otherwise false
+	 */
+	default boolean deleteById(PK id)
+	{
+		return id != null && deleteByIds(Collections.singletonList(id)) > 0;
+	}
+
+	/**
+	 * Deletes all entities of the given ids with chunked bulk delete statements without loading
+	 * them. Entities that are already managed will be removed from the persistence context.
+	 *
+	 * @param ids
+	 *            the ids of the entities to delete
+	 * @return the number of deleted entities
+	 */
+	int deleteByIds(Collection<PK> ids);
 }
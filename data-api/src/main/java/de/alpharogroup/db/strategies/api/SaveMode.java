@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.strategies.api;
+
+import javax.persistence.EntityManager;
+
+/**
+ * The enum {@link SaveMode} decides how an entity is written to the database on the save process.
+ */
+public enum SaveMode
+{
+
+	/**
+	 * Every entity is merged with {@link EntityManager#merge(Object)}. This can issue an
+	 * additional select before the insert.
+	 */
+	MERGE,
+
+	/**
+	 * New entities, that are entities with a null id or a null version, are persisted with
+	 * {@link EntityManager#persist(Object)} and only detached entities are merged.
+	 */
+	PERSIST_NEW
+
+}
@@ -0,0 +1,485 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.tracking;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.persistence.PersistenceUnitUtil;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.repository.AbstractRepository;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link ChangeTracker} keeps a snapshot of the attribute values of entities that are
+ * loaded or written through a repository. On update the current state of an entity is compared
+ * with its snapshot, so unchanged entities can be skipped and changed entities can be updated with
+ * only the changed attributes. A partial update of a versioned entity increments the version and
+ * checks the version of the entity, like the update of a merge. An entity without a valid snapshot
+ * is always treated as changed.
+ * <br>
+ * <br>
+ * The snapshots of versioned entities are shared between transactions. They are taken after the
+ * commit from the committed state and are only valid for an entity with the same version, so a
+ * snapshot never hides a change that was written by another transaction or another process. The
+ * snapshots of entities without version are only valid in the transaction that took them.<br>
+ * <br>
+ * Note: collection attributes are not tracked. The shared snapshots are bounded and expire.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ * @param <PK>
+ *            the generic type of the primary key from the entity
+ */
+public class ChangeTracker<T extends BaseEntity<PK>, PK extends Serializable>
+{
+
+	/** The Constant DEFAULT_EXPIRE_AFTER_WRITE. */
+	public static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(30);
+
+	/** The maximum number of snapshots. */
+	@Getter
+	private final long maximumSize;
+
+	/** The flag if changed entities are updated with only the changed attributes. */
+	@Getter
+	private final boolean partialUpdates;
+
+	/** The repository. */
+	private final AbstractRepository<T, PK> repository;
+
+	/** The snapshots of the versioned entities mapped to the ids of the entities. */
+	private final Cache<PK, Snapshot> snapshots;
+
+	/**
+	 * Instantiates a new {@link ChangeTracker} with partial updates and the default expiration.
+	 *
+	 * @param repository
+	 *            the repository
+	 * @param maximumSize
+	 *            the maximum number of snapshots
+	 */
+	public ChangeTracker(final AbstractRepository<T, PK> repository, final long maximumSize)
+	{
+		this(repository, maximumSize, DEFAULT_EXPIRE_AFTER_WRITE, true);
+	}
+
+	/**
+	 * Instantiates a new {@link ChangeTracker}.
+	 *
+	 * @param repository
+	 *            the repository
+	 * @param maximumSize
+	 *            the maximum number of snapshots
+	 * @param expireAfterWrite
+	 *            the duration after a snapshot expires
+	 * @param partialUpdates
+	 *            the flag if changed entities are updated with only the changed attributes
+	 */
+	public ChangeTracker(@NonNull final AbstractRepository<T, PK> repository,
+		final long maximumSize, @NonNull final Duration expireAfterWrite,
+		final boolean partialUpdates)
+	{
+		this.repository = repository;
+		this.maximumSize = maximumSize;
+		this.partialUpdates = partialUpdates;
+		this.snapshots = Caffeine.newBuilder().maximumSize(maximumSize)
+			.expireAfterWrite(expireAfterWrite).build();
+	}
+
+	/**
+	 * Gets the changed attributes of the given entity compared with its snapshot.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return the new values of the changed attributes mapped to the attribute names, an empty map
+	 *         if the entity is unchanged or null if no valid snapshot of the entity exists
+	 */
+	public Map<String, Object> getChangedAttributes(final T entity)
+	{
+		if (entity.getId() == null)
+		{
+			return null;
+		}
+		final EntityPersister persister = getPersister();
+		final Object[] snapshot = getSnapshotValues(entity, persister);
+		if (snapshot == null)
+		{
+			return null;
+		}
+		final Type[] types = persister.getPropertyTypes();
+		final String[] names = persister.getPropertyNames();
+		final Object[] values = persister.getPropertyValues(entity);
+		final Map<String, Object> changedAttributes = new LinkedHashMap<>();
+		for (int i = 0; i < types.length; i++)
+		{
+			if (!types[i].isCollectionType()
+				&& !isEqual(types[i], snapshot[i], toSnapshotValue(types[i], values[i])))
+			{
+				changedAttributes.put(names[i], values[i]);
+			}
+		}
+		return changedAttributes;
+	}
+
+	/**
+	 * Checks if the given changed attributes of the given entity can be written with a partial
+	 * update. This is the case if partial updates are enabled and all changed attributes are basic
+	 * attributes or to one associations. The version of a versioned entity is written with the
+	 * partial update, so a changed version attribute can not be written with a partial update.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @param changedAttributes
+	 *            the changed attributes
+	 * @return true, if a partial update is possible, otherwise false
+	 */
+	public boolean isPartialUpdatePossible(final T entity,
+		final Map<String, Object> changedAttributes)
+	{
+		final EntityPersister persister = getPersister();
+		if (!partialUpdates || (persister.isVersioned() && changedAttributes
+			.containsKey(persister.getPropertyNames()[persister.getVersionProperty()])))
+		{
+			return false;
+		}
+		for (final String attributeName : changedAttributes.keySet())
+		{
+			if (persister.getPropertyType(attributeName).isComponentType())
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the snapshot of the entity with the given id.
+	 *
+	 * @param id
+	 *            the id
+	 */
+	public void remove(final PK id)
+	{
+		if (id != null)
+		{
+			snapshots.invalidate(id);
+			getTransactionSnapshots(false).remove(id);
+		}
+	}
+
+	/**
+	 * Removes all snapshots.
+	 */
+	public void removeAll()
+	{
+		snapshots.invalidateAll();
+		getTransactionSnapshots(false).clear();
+	}
+
+	/**
+	 * Factory method for create the snapshot of the current state of the given entity.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return the snapshot
+	 */
+	public Object[] newSnapshot(final T entity)
+	{
+		final EntityPersister persister = getPersister();
+		final Type[] types = persister.getPropertyTypes();
+		final Object[] values = persister.getPropertyValues(entity);
+		final Object[] snapshot = new Object[types.length];
+		for (int i = 0; i < types.length; i++)
+		{
+			if (!types[i].isCollectionType())
+			{
+				snapshot[i] = toSnapshotValue(types[i], values[i]);
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Takes the snapshot of the given entity.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @see #snapshot(Collection)
+	 */
+	public void snapshot(final T entity)
+	{
+		snapshot(Collections.singletonList(entity));
+	}
+
+	/**
+	 * Takes the snapshots of the given entities. If a transaction is active the snapshots of
+	 * versioned entities are taken after the commit from the committed state, so changes that are
+	 * flushed with dirty checking are part of the snapshot and a rolled back transaction stores no
+	 * snapshot. The snapshots of entities without version are taken now and are valid until the
+	 * transaction is completed. Without transaction only the snapshots of versioned entities are
+	 * taken.
+	 *
+	 * @param entities
+	 *            the entities
+	 */
+	public void snapshot(final Collection<T> entities)
+	{
+		if (entities == null || entities.isEmpty())
+		{
+			return;
+		}
+		final List<T> snapshotEntities = new ArrayList<>(entities.size());
+		for (final T entity : entities)
+		{
+			if (entity != null && entity.getId() != null)
+			{
+				snapshotEntities.add(entity);
+			}
+		}
+		if (snapshotEntities.isEmpty())
+		{
+			return;
+		}
+		final EntityPersister persister = getPersister();
+		final boolean transactionActive = TransactionSynchronizationManager
+			.isSynchronizationActive();
+		if (!persister.isVersioned())
+		{
+			if (transactionActive)
+			{
+				final Map<PK, Object[]> transactionSnapshots = getTransactionSnapshots(true);
+				snapshotEntities.forEach(
+					entity -> transactionSnapshots.put(entity.getId(), newSnapshot(entity)));
+			}
+			return;
+		}
+		if (!transactionActive)
+		{
+			snapshotEntities.forEach(entity -> store(entity, persister));
+			return;
+		}
+		TransactionSynchronizationManager
+			.registerSynchronization(new TransactionSynchronizationAdapter()
+			{
+				@Override
+				public void afterCompletion(final int status)
+				{
+					if (status == TransactionSynchronization.STATUS_COMMITTED)
+					{
+						snapshotEntities.forEach(entity -> store(entity, persister));
+					}
+				}
+			});
+	}
+
+	/**
+	 * Gets the entity persister of the entity class type of the repository.
+	 *
+	 * @return the entity persister
+	 */
+	private EntityPersister getPersister()
+	{
+		return getSessionFactory().getMetamodel().entityPersister(repository.getType());
+	}
+
+	/**
+	 * Gets the session factory of the repository.
+	 *
+	 * @return the session factory
+	 */
+	private SessionFactoryImplementor getSessionFactory()
+	{
+		return repository.getEntityManager().getEntityManagerFactory()
+			.unwrap(SessionFactoryImplementor.class);
+	}
+
+	/**
+	 * Gets the snapshot values of the given entity that are valid for the current state of the
+	 * entity.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @param persister
+	 *            the entity persister
+	 * @return the snapshot values or null if no valid snapshot exists
+	 */
+	private Object[] getSnapshotValues(final T entity, final EntityPersister persister)
+	{
+		if (!persister.isVersioned())
+		{
+			return getTransactionSnapshots(false).get(entity.getId());
+		}
+		final Snapshot snapshot = snapshots.getIfPresent(entity.getId());
+		if (snapshot == null || snapshot.version == null
+			|| !Objects.equals(snapshot.version, persister.getVersion(entity)))
+		{
+			return null;
+		}
+		return snapshot.values;
+	}
+
+	/**
+	 * Gets the snapshots of the entities without version that are taken in the current
+	 * transaction. The snapshots are removed when the transaction is completed.
+	 *
+	 * @param create
+	 *            the flag if the snapshots are bound to the current transaction if they do not
+	 *            exist yet
+	 * @return the snapshots of the current transaction or an empty map if no snapshots exist
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<PK, Object[]> getTransactionSnapshots(final boolean create)
+	{
+		Map<PK, Object[]> transactionSnapshots = (Map<PK, Object[]>)
+			TransactionSynchronizationManager.getResource(this);
+		if (transactionSnapshots == null && !create)
+		{
+			return new HashMap<>();
+		}
+		if (transactionSnapshots == null)
+		{
+			transactionSnapshots = new HashMap<>();
+			TransactionSynchronizationManager.bindResource(this, transactionSnapshots);
+			TransactionSynchronizationManager
+				.registerSynchronization(new TransactionSynchronizationAdapter()
+				{
+					@Override
+					public void afterCompletion(final int status)
+					{
+						TransactionSynchronizationManager
+							.unbindResourceIfPossible(ChangeTracker.this);
+					}
+				});
+		}
+		return transactionSnapshots;
+	}
+
+	/**
+	 * Checks if the given snapshot values are equal.
+	 *
+	 * @param type
+	 *            the type of the attribute
+	 * @param snapshotValue
+	 *            the value of the snapshot
+	 * @param currentValue
+	 *            the current value as snapshot value
+	 * @return true, if the values are equal, otherwise false
+	 */
+	private boolean isEqual(final Type type, final Object snapshotValue,
+		final Object currentValue)
+	{
+		if (type.isEntityType())
+		{
+			return Objects.equals(snapshotValue, currentValue);
+		}
+		return type.isEqual(snapshotValue, currentValue, getSessionFactory());
+	}
+
+	/**
+	 * Stores the snapshot of the current state of the given versioned entity together with its
+	 * version.
+	 *
+	 * @param entity
+	 *            the entity
+	 * @param persister
+	 *            the entity persister
+	 */
+	private void store(final T entity, final EntityPersister persister)
+	{
+		final Object version = persister.getVersion(entity);
+		if (version != null)
+		{
+			snapshots.put(entity.getId(), new Snapshot(version, newSnapshot(entity)));
+		}
+	}
+
+	/**
+	 * Converts the given attribute value to the value that is stored in the snapshot. Associated
+	 * entities are stored with their id without initializing them, all other values are deep
+	 * copied.
+	 *
+	 * @param type
+	 *            the type of the attribute
+	 * @param value
+	 *            the value of the attribute
+	 * @return the snapshot value
+	 */
+	private Object toSnapshotValue(final Type type, final Object value)
+	{
+		if (value == null)
+		{
+			return null;
+		}
+		if (type.isEntityType())
+		{
+			final PersistenceUnitUtil persistenceUnitUtil = repository.getEntityManager()
+				.getEntityManagerFactory().getPersistenceUnitUtil();
+			return persistenceUnitUtil.getIdentifier(value);
+		}
+		return type.deepCopy(value, getSessionFactory());
+	}
+
+	/**
+	 * The class {@link Snapshot} holds the snapshot values of a versioned entity together with the
+	 * version the values belong to.
+	 */
+	private static final class Snapshot
+	{
+
+		/** The snapshot values. */
+		private final Object[] values;
+
+		/** The version of the entity. */
+		private final Object version;
+
+		/**
+		 * Instantiates a new {@link Snapshot}.
+		 *
+		 * @param version
+		 *            the version of the entity
+		 * @param values
+		 *            the snapshot values
+		 */
+		Snapshot(final Object version, final Object[] values)
+		{
+			this.version = version;
+			this.values = values;
+		}
+
+	}
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.metadata.EntityMetadataRegistry;
+import lombok.experimental.UtilityClass;
+
+/**
+ * The class {@link PersistenceExtensions} provides helper methods for set based operations on the
+ * {@link EntityManager} that are shared between repositories and strategies.
+ */
+@UtilityClass
+public class PersistenceExtensions
+{
+
+	/** The Constant DEFAULT_CHUNK_SIZE for the number of parameters in one in clause. */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	/** The Constant DEFAULT_FETCH_SIZE for the number of rows fetched in one jdbc round trip. */
+	public static final int DEFAULT_FETCH_SIZE = 100;
+
+	/**
+	 * Deletes all entities of the given type with the given ids with bulk delete statements. The
+	 * ids are split in chunks of the given size and for each chunk one delete statement is
+	 * executed. Entities with the given ids that are already managed from the given
+	 * {@link EntityManager} are detached after the deletion, so the persistence context stays
+	 * consistent with the database. <br>
+	 * <br>
+	 * Note: bulk delete statements do not cascade to associations and do not invoke lifecycle
+	 * callbacks.
+	 *
+	 * @param <T>
+	 *            the generic type of the entity
+	 * @param <PK>
+	 *            the generic type of the primary key
+	 * @param entityManager
+	 *            the entity manager
+	 * @param type
+	 *            the class type of the entity
+	 * @param ids
+	 *            the ids of the entities to delete
+	 * @param chunkSize
+	 *            the maximum number of ids in one delete statement
+	 * @return the number of deleted entities
+	 */
+	public static <T extends BaseEntity<PK>, PK extends Serializable> int deleteByIds(
+		final EntityManager entityManager, final Class<T> type, final Collection<PK> ids,
+		final int chunkSize)
+	{
+		if (ids == null || ids.isEmpty())
+		{
+			return 0;
+		}
+		final String jpqlString = EntityMetadataRegistry.getEntityMetadata(entityManager, type)
+			.getDeleteByIdsString();
+		int deleted = 0;
+		for (final List<PK> chunk : partition(ids, chunkSize))
+		{
+			deleted += entityManager.createQuery(jpqlString).setParameter("ids", chunk)
+				.executeUpdate();
+			for (final PK id : chunk)
+			{
+				final T managed = getManagedEntity(entityManager, type, id);
+				if (managed != null)
+				{
+					entityManager.detach(managed);
+				}
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Gets the entity with the given id if it is already managed from the given
+	 * {@link EntityManager}. In difference to {@link EntityManager#find(Class, Object)} this method
+	 * never hits the database.
+	 *
+	 * @param <T>
+	 *            the generic type of the entity
+	 * @param entityManager
+	 *            the entity manager
+	 * @param type
+	 *            the class type of the entity
+	 * @param id
+	 *            the id
+	 * @return the managed entity or null if no entity with the given id is managed
+	 */
+	public static <T> T getManagedEntity(final EntityManager entityManager, final Class<T> type,
+		final Object id)
+	{
+		final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+		final EntityPersister persister = session.getFactory().getMetamodel()
+			.entityPersister(type);
+		final EntityKey entityKey = session.generateEntityKey((Serializable)id, persister);
+		return type.cast(session.getPersistenceContext().getEntity(entityKey));
+	}
+
+	/**
+	 * Splits the given collection in consecutive lists of the given size. The last list can be
+	 * smaller.
+	 *
+	 * @param <E>
+	 *            the generic type of the elements
+	 * @param elements
+	 *            the elements to split
+	 * @param chunkSize
+	 *            the size of the chunks
+	 * @return the list with the chunks
+	 */
+	public static <E> List<List<E>> partition(final Collection<E> elements, final int chunkSize)
+	{
+		if (chunkSize < 1)
+		{
+			throw new IllegalArgumentException("Given chunk size must be greater than 0");
+		}
+		final List<List<E>> chunks = new ArrayList<>();
+		List<E> chunk = new ArrayList<>(Math.min(chunkSize, elements.size()));
+		for (final E element : elements)
+		{
+			chunk.add(element);
+			if (chunk.size() == chunkSize)
+			{
+				chunks.add(chunk);
+				chunk = new ArrayList<>(chunkSize);
+			}
+		}
+		if (!chunk.isEmpty())
+		{
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+/**
+ * The class {@link ScrollableResultsIterator} iterates over the entities of a
+ * {@link ScrollableResults} and evicts the already processed entities from the {@link Session}
+ * after every chunk of the given size, so the memory consumption stays flat regardless of the
+ * number of rows.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ */
+public class ScrollableResultsIterator<T> implements Iterator<T>, AutoCloseable
+{
+
+	/** The processed entities that will be evicted with the next chunk. */
+	private final List<T> processed;
+
+	/** The scrollable results. */
+	private final ScrollableResults results;
+
+	/** The session. */
+	private final Session session;
+
+	/** The number of processed entities after the session will be evicted. */
+	private final int evictSize;
+
+	/** The class type of the entity. */
+	private final Class<T> type;
+
+	/** The flag if the cursor is already moved to the next row. */
+	private Boolean hasNext;
+
+	/**
+	 * Instantiates a new {@link ScrollableResultsIterator}.
+	 *
+	 * @param session
+	 *            the session
+	 * @param results
+	 *            the scrollable results with the entity in the first column
+	 * @param type
+	 *            the class type of the entity
+	 * @param evictSize
+	 *            the number of processed entities after the session will be evicted
+	 */
+	public ScrollableResultsIterator(final Session session, final ScrollableResults results,
+		final Class<T> type, final int evictSize)
+	{
+		if (evictSize < 1)
+		{
+			throw new IllegalArgumentException("Given evict size must be greater than 0");
+		}
+		this.session = session;
+		this.results = results;
+		this.type = type;
+		this.evictSize = evictSize;
+		this.processed = new ArrayList<>(evictSize);
+	}
+
+	/**
+	 * Factory method for create a new {@link Stream} over the given {@link ScrollableResults}. The
+	 * returned stream has to be closed for release the underlying cursor.
+	 *
+	 * @param <T>
+	 *            the generic type of the entity
+	 * @param session
+	 *            the session
+	 * @param results
+	 *            the scrollable results with the entity in the first column
+	 * @param type
+	 *            the class type of the entity
+	 * @param evictSize
+	 *            the number of processed entities after the session will be evicted
+	 * @return the new {@link Stream}
+	 */
+	public static <T> Stream<T> stream(final Session session, final ScrollableResults results,
+		final Class<T> type, final int evictSize)
+	{
+		final ScrollableResultsIterator<T> iterator = new ScrollableResultsIterator<>(session,
+			results, type, evictSize);
+		return StreamSupport
+			.stream(Spliterators.spliteratorUnknownSize(iterator,
+				Spliterator.ORDERED | Spliterator.NONNULL), false)
+			.onClose(iterator::close);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close()
+	{
+		evictProcessed();
+		results.close();
+	}
+
+	/**
+	 * Evicts the processed entities from the session.
+	 */
+	private void evictProcessed()
+	{
+		for (final T entity : processed)
+		{
+			session.evict(entity);
+		}
+		processed.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		if (hasNext == null)
+		{
+			hasNext = results.next();
+		}
+		return hasNext;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T next()
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+		hasNext = null;
+		if (processed.size() == evictSize)
+		{
+			evictProcessed();
+		}
+		final T entity = type.cast(results.get(0));
+		processed.add(entity);
+		return entity;
+	}
+
+}
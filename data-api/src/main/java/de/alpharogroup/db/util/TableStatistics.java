@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Session;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * The class {@link TableStatistics} reads the estimated number of rows of a table from the
+ * statistics of the database vendor. The estimation is cheap but only as accurate as the last
+ * statistics update of the database.
+ */
+@UtilityClass
+public class TableStatistics
+{
+
+	/** The names of the database products mapped to the entity manager factories. */
+	private static final Map<EntityManagerFactory, String> DATABASE_PRODUCT_NAMES = Collections
+		.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * Gets the estimated number of rows of the given table from the statistics of the database.
+	 * Supported are PostgreSQL, MySQL, MariaDB, Oracle and Microsoft SQL Server.
+	 *
+	 * @param entityManager
+	 *            the entity manager
+	 * @param tableName
+	 *            the name of the table
+	 * @return the estimated number of rows or null if the database offers no statistics for the
+	 *         given table
+	 */
+	public static Long getEstimatedRowCount(final EntityManager entityManager,
+		final String tableName)
+	{
+		final String sqlString = getEstimatedRowCountSql(getDatabaseProductName(entityManager));
+		if (sqlString == null)
+		{
+			return null;
+		}
+		final List<?> result = entityManager.createNativeQuery(sqlString)
+			.setParameter(1, tableName).getResultList();
+		if (result.isEmpty() || !(result.get(0) instanceof Number))
+		{
+			return null;
+		}
+		final long estimatedRowCount = ((Number)result.get(0)).longValue();
+		return estimatedRowCount < 0 ? null : estimatedRowCount;
+	}
+
+	/**
+	 * Gets the name of the database product of the connection of the given entity manager. The
+	 * name is read only once per entity manager factory from the connection meta data and is
+	 * cached for all further calls, so the entity manager has to be in a transaction only on the
+	 * first call.
+	 *
+	 * @param entityManager
+	 *            the entity manager
+	 * @return the name of the database product
+	 */
+	public static String getDatabaseProductName(final EntityManager entityManager)
+	{
+		return DATABASE_PRODUCT_NAMES.computeIfAbsent(entityManager.getEntityManagerFactory(),
+			entityManagerFactory -> entityManager.unwrap(Session.class).doReturningWork(
+				connection -> connection.getMetaData().getDatabaseProductName()));
+	}
+
+	/**
+	 * Gets the native sql string that selects the estimated number of rows of the table in the
+	 * first parameter for the given database product.
+	 *
+	 * @param databaseProductName
+	 *            the name of the database product
+	 * @return the native sql string or null if the database product offers no statistics
+	 */
+	private static String getEstimatedRowCountSql(final String databaseProductName)
+	{
+		final String productName = databaseProductName.toLowerCase(Locale.ROOT);
+		if (productName.contains("postgresql"))
+		{
+			return "select cast(reltuples as bigint) from pg_class "
+				+ "where oid = to_regclass(cast(?1 as text))";
+		}
+		if (productName.contains("mysql") || productName.contains("mariadb"))
+		{
+			return "select table_rows from information_schema.tables "
+				+ "where table_schema = database() and table_name = ?1";
+		}
+		if (productName.contains("oracle"))
+		{
+			return "select num_rows from user_tables where table_name = upper(?1)";
+		}
+		if (productName.contains("microsoft sql server"))
+		{
+			return "select sum(row_count) from sys.dm_db_partition_stats "
+				+ "where object_id = object_id(?1) and index_id < 2";
+		}
+		return null;
+	}
+
+}
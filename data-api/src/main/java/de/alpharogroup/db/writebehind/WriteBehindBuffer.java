@@ -0,0 +1,589 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.writebehind;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.repository.api.GenericRepository;
+import de.alpharogroup.db.util.PersistenceExtensions;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link WriteBehindBuffer} is an opt-in write behind layer around a
+ * {@link GenericRepository} for entities that are updated with a high frequency, like counters or
+ * last seen timestamps. Repeated writes of the entity with the same id are coalesced in memory and
+ * only the latest state is written with the method {@link GenericRepository#saveOrUpdate(List)}
+ * in jdbc batches. A flush is triggered if the number of buffered entities reaches the maximum
+ * size or after the flush interval. Every flush runs on a background thread and writes every
+ * chunk of the batch size in its own transaction. If a chunk fails every entity of the chunk is
+ * written in its own transaction, so one entity that can not be written does not block the
+ * others. An entity that fails the maximum number of attempts is removed from the buffer and
+ * reported with {@link WriteBehindListener#onFlushAbandoned(Object, Throwable)}. If the number of
+ * buffered entities reaches the hard limit, the writing thread flushes synchronous and the write
+ * is rejected if the buffer is still full. The method {@link #close()} flushes synchronous and
+ * has to be called on shutdown, as spring bean it is called on the destruction of the bean. A
+ * write that is accepted before the buffer is closed is always written with the final flush.
+ * <br>
+ * <br>
+ * Note: buffered writes are lost on a crash unless a {@link WriteBehindListener} persists them.
+ * Only entities with an id can be buffered, new entities have to be saved with the repository.
+ * The buffer keeps the given instance and does not copy it, so the instance must not be changed
+ * after the write. The flush merges the instance, so a new version is not written back to it and
+ * a versioned entity has to be loaded again before it is written another time.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ * @param <PK>
+ *            the generic type of the primary key from the entity
+ */
+@Log
+public class WriteBehindBuffer<T extends BaseEntity<PK>, PK extends Serializable>
+	implements
+		AutoCloseable,
+		DisposableBean
+{
+
+	/** The Constant DEFAULT_BATCH_SIZE. */
+	public static final int DEFAULT_BATCH_SIZE = 50;
+
+	/** The Constant DEFAULT_FLUSH_INTERVAL. */
+	public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(5);
+
+	/** The Constant DEFAULT_MAX_ATTEMPTS. */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	/** The Constant DEFAULT_MAX_SIZE. */
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	/** The number of entities that will be written in one jdbc batch. */
+	@Getter
+	private final int batchSize;
+
+	/** The buffered writes mapped to the id of the entity. */
+	private final Map<PK, PendingWrite<T>> buffer = new ConcurrentHashMap<>();
+
+	/** The flag if the buffer is closed. */
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	/**
+	 * The lock that the writes share and the close holds exclusive, so no write is buffered after
+	 * the buffer is closed and the scheduler is shut down.
+	 */
+	private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+	/** The number of writes that replaced an already buffered write. */
+	private final LongAdder coalescedCount = new LongAdder();
+
+	/** The number of failed flush attempts mapped to the ids of the entities. */
+	private final Map<PK, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+	/** The number of flushed entities. */
+	private final LongAdder flushedCount = new LongAdder();
+
+	/** The interval of the time triggered flush. */
+	@Getter
+	private final Duration flushInterval;
+
+	/** The flag if a size triggered flush is already requested. */
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+	/** The number of buffered entities that rejects further writes of not buffered ids. */
+	@Getter
+	private final int hardLimit;
+
+	/** The listener that is notified about buffered and flushed entities. */
+	@Getter
+	private final WriteBehindListener<T> listener;
+
+	/** The maximum number of attempts for flush one entity. */
+	@Getter
+	private final int maxAttempts;
+
+	/** The number of buffered entities that triggers a flush. */
+	@Getter
+	private final int maxSize;
+
+	/** The repository that writes the entities. */
+	@Getter
+	private final GenericRepository<T, PK> repository;
+
+	/** The scheduler of the background flushes. */
+	private final ScheduledExecutorService scheduler;
+
+	/** The executor that runs every flush in its own transaction. */
+	@Getter
+	private final TransactionalTaskExecutor taskExecutor;
+
+	/** The number of writes. */
+	private final LongAdder writeCount = new LongAdder();
+
+	/**
+	 * Instantiates a new {@link WriteBehindBuffer} with the default batch size, the default
+	 * maximum size, the default flush interval and without listener.
+	 *
+	 * @param repository
+	 *            the repository that writes the entities
+	 * @param taskExecutor
+	 *            the executor that runs every flush in its own transaction
+	 */
+	public WriteBehindBuffer(final GenericRepository<T, PK> repository,
+		final TransactionalTaskExecutor taskExecutor)
+	{
+		this(repository, taskExecutor, DEFAULT_BATCH_SIZE, DEFAULT_MAX_SIZE,
+			DEFAULT_FLUSH_INTERVAL, new WriteBehindListener<T>()
+			{
+			});
+	}
+
+	/**
+	 * Instantiates a new {@link WriteBehindBuffer} with the default maximum number of attempts
+	 * and a hard limit of ten times the maximum size and starts the time triggered flush.
+	 *
+	 * @param repository
+	 *            the repository that writes the entities
+	 * @param taskExecutor
+	 *            the executor that runs every flush in its own transaction
+	 * @param batchSize
+	 *            the number of entities that will be written in one jdbc batch
+	 * @param maxSize
+	 *            the number of buffered entities that triggers a flush
+	 * @param flushInterval
+	 *            the interval of the time triggered flush
+	 * @param listener
+	 *            the listener that is notified about buffered and flushed entities
+	 */
+	public WriteBehindBuffer(final GenericRepository<T, PK> repository,
+		final TransactionalTaskExecutor taskExecutor, final int batchSize, final int maxSize,
+		final Duration flushInterval, final WriteBehindListener<T> listener)
+	{
+		this(repository, taskExecutor, batchSize, maxSize, flushInterval, listener,
+			DEFAULT_MAX_ATTEMPTS, maxSize * 10);
+	}
+
+	/**
+	 * Instantiates a new {@link WriteBehindBuffer} and starts the time triggered flush.
+	 *
+	 * @param repository
+	 *            the repository that writes the entities
+	 * @param taskExecutor
+	 *            the executor that runs every flush in its own transaction
+	 * @param batchSize
+	 *            the number of entities that will be written in one jdbc batch
+	 * @param maxSize
+	 *            the number of buffered entities that triggers a flush
+	 * @param flushInterval
+	 *            the interval of the time triggered flush
+	 * @param listener
+	 *            the listener that is notified about buffered and flushed entities
+	 * @param maxAttempts
+	 *            the maximum number of attempts for flush one entity
+	 * @param hardLimit
+	 *            the number of buffered entities that rejects further writes of not buffered ids,
+	 *            must not be less than the maximum size
+	 */
+	public WriteBehindBuffer(@NonNull final GenericRepository<T, PK> repository,
+		@NonNull final TransactionalTaskExecutor taskExecutor, final int batchSize,
+		final int maxSize, @NonNull final Duration flushInterval,
+		@NonNull final WriteBehindListener<T> listener, final int maxAttempts,
+		final int hardLimit)
+	{
+		if (batchSize < 1 || maxSize < 1 || maxAttempts < 1 || flushInterval.isZero()
+			|| flushInterval.isNegative())
+		{
+			throw new IllegalArgumentException("Given batch size, maximum size, maximum attempts "
+				+ "and flush interval must be greater than 0");
+		}
+		if (hardLimit < maxSize)
+		{
+			throw new IllegalArgumentException(
+				"Given hard limit must not be less than the maximum size");
+		}
+		this.repository = repository;
+		this.taskExecutor = taskExecutor;
+		this.batchSize = batchSize;
+		this.maxSize = maxSize;
+		this.flushInterval = flushInterval;
+		this.listener = listener;
+		this.maxAttempts = maxAttempts;
+		this.hardLimit = hardLimit;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable,
+				"write-behind-" + repository.getType().getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(),
+			flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the background flushes and flushes all buffered entities synchronous. After this
+	 * method is called no more entities can be buffered. Writes that are running are completed
+	 * before the buffer is closed, so they are written with the final flush.
+	 */
+	@Override
+	public void close()
+	{
+		closeLock.writeLock().lock();
+		try
+		{
+			if (!closed.compareAndSet(false, true))
+			{
+				return;
+			}
+		}
+		finally
+		{
+			closeLock.writeLock().unlock();
+		}
+		scheduler.shutdown();
+		try
+		{
+			scheduler.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	/**
+	 * Stops the background flushes and flushes all buffered entities synchronous when the buffer
+	 * is destroyed as spring bean.
+	 */
+	@Override
+	public void destroy()
+	{
+		close();
+	}
+
+	/**
+	 * Writes the latest state of all buffered entities. Every chunk of the batch size is written in
+	 * its own transaction and the entities of a failed chunk are written one by one. Entities that
+	 * are written again while the flush is running stay in the buffer for the next flush. Entities
+	 * that fail stay in the buffer until they failed the maximum number of attempts and are
+	 * reported to the listener.
+	 *
+	 * @return the number of flushed entities
+	 */
+	public synchronized int flush()
+	{
+		flushRequested.set(false);
+		if (buffer.isEmpty())
+		{
+			return 0;
+		}
+		final List<PendingWrite<T>> pendingWrites = new ArrayList<>(buffer.values());
+		final List<T> failedEntities = new ArrayList<>();
+		RuntimeException cause = null;
+		int flushed = 0;
+		for (final List<PendingWrite<T>> chunk : PersistenceExtensions.partition(pendingWrites,
+			batchSize))
+		{
+			try
+			{
+				flushed += writeChunk(chunk);
+				continue;
+			}
+			catch (final RuntimeException e)
+			{
+				log.log(Level.FINE, "Write behind flush of " + chunk.size() + " entities of type "
+					+ repository.getType().getName() + " failed and is repeated for every entity",
+					e);
+			}
+			for (final PendingWrite<T> pendingWrite : chunk)
+			{
+				try
+				{
+					flushed += writeChunk(Collections.singletonList(pendingWrite));
+				}
+				catch (final RuntimeException e)
+				{
+					cause = e;
+					if (failed(pendingWrite, e))
+					{
+						failedEntities.add(pendingWrite.getEntity());
+					}
+				}
+			}
+		}
+		if (!failedEntities.isEmpty())
+		{
+			listener.onFlushFailed(failedEntities, cause);
+		}
+		return flushed;
+	}
+
+	/**
+	 * Gets the entity with the given id. A buffered state is returned before the state of the
+	 * database, so a caller reads its own writes.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the entity or null if no entity with the given id exists
+	 */
+	public T get(final PK id)
+	{
+		final T pending = getPending(id);
+		return pending != null ? pending : repository.get(id);
+	}
+
+	/**
+	 * Gets the number of writes that replaced an already buffered write.
+	 *
+	 * @return the number of coalesced writes
+	 */
+	public long getCoalescedCount()
+	{
+		return coalescedCount.sum();
+	}
+
+	/**
+	 * Gets the number of flushed entities.
+	 *
+	 * @return the number of flushed entities
+	 */
+	public long getFlushedCount()
+	{
+		return flushedCount.sum();
+	}
+
+	/**
+	 * Gets the buffered state of the entity with the given id.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the buffered entity or null if no write of the entity with the given id is buffered
+	 */
+	public T getPending(final PK id)
+	{
+		final PendingWrite<T> pendingWrite = id != null ? buffer.get(id) : null;
+		return pendingWrite != null ? pendingWrite.getEntity() : null;
+	}
+
+	/**
+	 * Gets the number of buffered entities.
+	 *
+	 * @return the number of buffered entities
+	 */
+	public int getPendingCount()
+	{
+		return buffer.size();
+	}
+
+	/**
+	 * Gets the number of writes.
+	 *
+	 * @return the number of writes
+	 */
+	public long getWriteCount()
+	{
+		return writeCount.sum();
+	}
+
+	/**
+	 * Buffers the given entity. A buffered write of the entity with the same id is replaced. If
+	 * the number of buffered entities reaches the maximum size a flush is triggered. If the number
+	 * of buffered entities reaches the hard limit, the calling thread flushes synchronous before
+	 * the entity is buffered.
+	 *
+	 * @param entity
+	 *            the entity to write
+	 * @throws IllegalArgumentException
+	 *             if the given entity has no id
+	 * @throws IllegalStateException
+	 *             if this buffer is closed or if the buffer is still full after the flush
+	 */
+	public void write(@NonNull final T entity)
+	{
+		if (entity.getId() == null)
+		{
+			throw new IllegalArgumentException(
+				"Given entity has no id and must be saved with the repository");
+		}
+		closeLock.readLock().lock();
+		try
+		{
+			if (closed.get())
+			{
+				throw new IllegalStateException("Write behind buffer is already closed");
+			}
+			if (hardLimit <= buffer.size() && !buffer.containsKey(entity.getId()))
+			{
+				flush();
+				if (hardLimit <= buffer.size())
+				{
+					throw new IllegalStateException("Write behind buffer of entity type "
+						+ repository.getType().getName() + " is full with " + buffer.size()
+						+ " entities");
+				}
+			}
+			writeCount.increment();
+			failedAttempts.remove(entity.getId());
+			if (buffer.put(entity.getId(), new PendingWrite<>(entity)) != null)
+			{
+				coalescedCount.increment();
+			}
+			listener.onBuffered(entity);
+			if (maxSize <= buffer.size() && flushRequested.compareAndSet(false, true))
+			{
+				// the scheduler is shut down only after the close lock is released
+				scheduler.execute(this::flushQuietly);
+			}
+		}
+		finally
+		{
+			closeLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Counts the failed attempt of the given buffered write. If the maximum number of attempts is
+	 * reached the write is removed from the buffer, unless it is replaced in the meantime, and is
+	 * reported to the listener.
+	 *
+	 * @param pendingWrite
+	 *            the buffered write
+	 * @param exception
+	 *            the exception of the failed attempt
+	 * @return true, if the write stays in the buffer and is retried, otherwise false
+	 */
+	private boolean failed(final PendingWrite<T> pendingWrite, final RuntimeException exception)
+	{
+		final T entity = pendingWrite.getEntity();
+		final int attempts = failedAttempts.merge(entity.getId(), 1, Integer::sum);
+		if (attempts < maxAttempts)
+		{
+			return true;
+		}
+		failedAttempts.remove(entity.getId());
+		if (buffer.remove(entity.getId(), pendingWrite))
+		{
+			log.log(Level.WARNING, "Write behind flush of entity " + entity.getId() + " of type "
+				+ repository.getType().getName() + " failed " + attempts + " times and is given up",
+				exception);
+			listener.onFlushAbandoned(entity, exception);
+		}
+		return false;
+	}
+
+	/**
+	 * Flushes the buffered entities and logs a failure, so the scheduled flushes are not stopped.
+	 */
+	private void flushQuietly()
+	{
+		try
+		{
+			flush();
+		}
+		catch (final RuntimeException e)
+		{
+			log.log(Level.WARNING, "Write behind flush of entity type "
+				+ repository.getType().getName() + " failed unexpected", e);
+		}
+	}
+
+	/**
+	 * Writes the entities of the given buffered writes in one jdbc batch in a new transaction and
+	 * removes the writes from the buffer that are not replaced in the meantime.
+	 *
+	 * @param chunk
+	 *            the buffered writes
+	 * @return the number of flushed entities
+	 */
+	private int writeChunk(final List<PendingWrite<T>> chunk)
+	{
+		final List<T> entities = new ArrayList<>(chunk.size());
+		chunk.forEach(pendingWrite -> entities.add(pendingWrite.getEntity()));
+		taskExecutor.execute(() -> {
+			final EntityManager entityManager = repository.getEntityManager();
+			final Session session = entityManager.unwrap(Session.class);
+			final Integer previousBatchSize = session.getJdbcBatchSize();
+			session.setJdbcBatchSize(batchSize);
+			try
+			{
+				repository.saveOrUpdate(entities);
+				entityManager.flush();
+				entityManager.clear();
+			}
+			finally
+			{
+				session.setJdbcBatchSize(previousBatchSize);
+			}
+			return null;
+		}, false);
+		for (final PendingWrite<T> pendingWrite : chunk)
+		{
+			failedAttempts.remove(pendingWrite.getEntity().getId());
+			buffer.remove(pendingWrite.getEntity().getId(), pendingWrite);
+		}
+		flushedCount.add(entities.size());
+		listener.onFlushed(entities);
+		return entities.size();
+	}
+
+	/**
+	 * The class {@link PendingWrite} wraps one buffered entity, so a later write of the same
+	 * instance is distinguished from the write that is already flushed.
+	 *
+	 * @param <T>
+	 *            the generic type of the entity
+	 */
+	private static final class PendingWrite<T>
+	{
+
+		/** The entity. */
+		@Getter
+		private final T entity;
+
+		/**
+		 * Instantiates a new {@link PendingWrite}.
+		 *
+		 * @param entity
+		 *            the entity
+		 */
+		PendingWrite(final T entity)
+		{
+			this.entity = entity;
+		}
+
+	}
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.writebehind;
+
+import java.util.List;
+
+/**
+ * The interface {@link WriteBehindListener} is notified from the {@link WriteBehindBuffer} about
+ * buffered and flushed entities. It can be used as durability hook, for instance for write the
+ * buffered state in a journal that is truncated after the flush and replayed after a crash.
+ *
+ * @param <T>
+ *            the generic type of the entity
+ */
+public interface WriteBehindListener<T>
+{
+
+	/**
+	 * Is called after the given entity is buffered. This method is called in the writing thread,
+	 * so the write is only acknowledged after this method returns.
+	 *
+	 * @param entity
+	 *            the buffered entity
+	 */
+	default void onBuffered(T entity)
+	{
+	}
+
+	/**
+	 * Is called after the given entity failed the maximum number of flush attempts. The entity is
+	 * removed from the buffer and will not be written.
+	 *
+	 * @param entity
+	 *            the entity that is given up
+	 * @param throwable
+	 *            the cause of the last failure
+	 */
+	default void onFlushAbandoned(T entity, Throwable throwable)
+	{
+	}
+
+	/**
+	 * Is called after the flush of the given entities failed. The entities stay in the buffer
+	 * unless they are replaced from a later write and the flush will be retried until the maximum
+	 * number of attempts is reached.
+	 *
+	 * @param entities
+	 *            the entities that could not be flushed
+	 * @param throwable
+	 *            the cause of the failure
+	 */
+	default void onFlushFailed(List<T> entities, Throwable throwable)
+	{
+	}
+
+	/**
+	 * Is called after the given entities are flushed and the transaction is committed.
+	 *
+	 * @param entities
+	 *            the flushed entities
+	 */
+	default void onFlushed(List<T> entities)
+	{
+	}
+
+}
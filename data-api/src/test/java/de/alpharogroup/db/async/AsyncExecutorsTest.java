@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.async;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.async.AsyncExecutors.ConcurrencyLimitedExecutorService;
+
+/**
+ * The unit test class for the class {@link AsyncExecutors}.
+ */
+public class AsyncExecutorsTest
+{
+
+	/**
+	 * Test method for {@link AsyncExecutors#newBoundedExecutorService(int, int, String)} that
+	 * checks that a task is executed in the calling thread if the queue is full.
+	 *
+	 * @throws Exception
+	 *             is thrown if the test fails
+	 */
+	@Test
+	public void testNewBoundedExecutorService() throws Exception
+	{
+		final ExecutorService executorService = AsyncExecutors.newBoundedExecutorService(1, 1,
+			"test-");
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<String> threadNames = new CopyOnWriteArrayList<>();
+		try
+		{
+			final Future<?> blocking = executorService.submit(() -> {
+				threadNames.add(Thread.currentThread().getName());
+				release.await();
+				return null;
+			});
+			final Future<?> queued = executorService.submit(() -> {
+			});
+			executorService.submit(() -> {
+				threadNames.add(Thread.currentThread().getName());
+			});
+			release.countDown();
+			blocking.get(5, TimeUnit.SECONDS);
+			queued.get(5, TimeUnit.SECONDS);
+		}
+		finally
+		{
+			executorService.shutdown();
+		}
+		assertEquals(2, threadNames.size());
+		assertTrue(threadNames.contains("test-1"));
+		assertTrue(threadNames.contains(Thread.currentThread().getName()));
+	}
+
+	/**
+	 * Test method for {@link AsyncExecutors#newVirtualThreadExecutor(int)}. On a java virtual
+	 * machine without virtual threads an {@link UnsupportedOperationException} is expected.
+	 *
+	 * @throws Exception
+	 *             is thrown if the test fails
+	 */
+	@Test
+	public void testNewVirtualThreadExecutor() throws Exception
+	{
+		if (!AsyncExecutors.isVirtualThreadSupported())
+		{
+			try
+			{
+				AsyncExecutors.newVirtualThreadExecutor(2);
+				throw new AssertionError("UnsupportedOperationException expected");
+			}
+			catch (final UnsupportedOperationException e)
+			{
+				return;
+			}
+		}
+		final ExecutorService executorService = AsyncExecutors.newVirtualThreadExecutor(2);
+		assertEquals(1, executorService.submit(() -> 1).get(5, TimeUnit.SECONDS).intValue());
+		executorService.shutdown();
+		assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Test method for {@link AsyncExecutors#newVirtualThreadExecutor(int)} with a maximum
+	 * concurrency that is not greater than 0.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewVirtualThreadExecutorWithInvalidConcurrency()
+	{
+		AsyncExecutors.newVirtualThreadExecutor(0);
+	}
+
+	/**
+	 * Test method for the class {@link ConcurrencyLimitedExecutorService} that
+	 * checks the bounded concurrency and the delegated shutdown.
+	 *
+	 * @throws Exception
+	 *             is thrown if the test fails
+	 */
+	@Test
+	public void testConcurrencyLimitedExecutorService() throws Exception
+	{
+		final ExecutorService delegate = Executors.newFixedThreadPool(4);
+		final ExecutorService executorService = new ConcurrencyLimitedExecutorService(delegate,
+			2);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 8; i++)
+		{
+			futures.add(executorService.submit(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				Thread.sleep(20);
+				running.decrementAndGet();
+				return null;
+			}));
+		}
+		for (final Future<?> future : futures)
+		{
+			future.get(5, TimeUnit.SECONDS);
+		}
+		assertTrue(maxRunning.get() <= 2);
+		executorService.shutdown();
+		assertTrue(delegate.isShutdown());
+		assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+		assertTrue(executorService.isTerminated());
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link CountCache}.
+ */
+public class CountCacheTest
+{
+
+	/** The number of calls of the loader. */
+	private AtomicInteger loads;
+
+	/**
+	 * Sets up the load counter.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		loads = new AtomicInteger();
+	}
+
+	/**
+	 * Loads a count and counts the calls.
+	 *
+	 * @return the number of calls of the loader
+	 */
+	private long load()
+	{
+		return loads.incrementAndGet();
+	}
+
+	/**
+	 * Test method for {@link CountCache#get(java.util.function.LongSupplier)} that checks that the
+	 * count is loaded once within the time to live.
+	 */
+	@Test
+	public void testGet()
+	{
+		final CountCache cache = new CountCache(Duration.ofMinutes(1));
+		assertEquals(1L, cache.get(this::load));
+		assertEquals(1L, cache.get(this::load));
+		assertEquals(1, loads.get());
+	}
+
+	/**
+	 * Test method for {@link CountCache#get(java.util.function.LongSupplier)} with an expired
+	 * count.
+	 */
+	@Test
+	public void testGetWithExpiredCount()
+	{
+		final CountCache cache = new CountCache(Duration.ZERO);
+		assertEquals(1L, cache.get(this::load));
+		assertEquals(2L, cache.get(this::load));
+	}
+
+	/**
+	 * Test method for {@link CountCache#invalidate()}.
+	 */
+	@Test
+	public void testInvalidate()
+	{
+		final CountCache cache = new CountCache(Duration.ofMinutes(1));
+		assertEquals(1L, cache.get(this::load));
+		cache.invalidate();
+		assertEquals(2L, cache.get(this::load));
+		assertEquals(2L, cache.get(this::load));
+	}
+
+	/**
+	 * Test method for {@link CountCache#get(java.util.function.LongSupplier)} that checks that a
+	 * count that was loaded while the cache was invalidated is not cached.
+	 */
+	@Test
+	public void testGetWithInvalidationWhileLoading()
+	{
+		final CountCache cache = new CountCache(Duration.ofMinutes(1));
+		assertEquals(5L, cache.get(() -> {
+			cache.invalidate();
+			return 5L;
+		}));
+		assertEquals(1L, cache.get(this::load));
+	}
+
+	/**
+	 * Test method for {@link CountCache#CountCache(Duration)} without a time to live.
+	 */
+	@Test(expectedExceptions = NullPointerException.class)
+	public void testNewWithoutTimeToLive()
+	{
+		new CountCache(null);
+	}
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The unit test class for the class {@link EntityCache}.
+ */
+public class EntityCacheTest
+{
+
+	/** The entity cache. */
+	private EntityCache<TestItem, Integer> cache;
+
+	/** The number of calls of the loader. */
+	private AtomicInteger loads;
+
+	/**
+	 * Sets up a new entity cache.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		cache = new EntityCache<>(10);
+		loads = new AtomicInteger();
+	}
+
+	/**
+	 * Loads a new test item with the given id and counts the calls.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the new test item
+	 */
+	private TestItem load(final Integer id)
+	{
+		loads.incrementAndGet();
+		final TestItem item = TestItem.newTestItem(id);
+		item.setId(id);
+		return item;
+	}
+
+	/**
+	 * Test method for {@link EntityCache#get(java.io.Serializable, java.util.function.Function)}
+	 * that checks that the entity is loaded once and every caller gets its own copy.
+	 */
+	@Test
+	public void testGet()
+	{
+		final TestItem first = cache.get(1, this::load);
+		final TestItem second = cache.get(1, this::load);
+		assertEquals(1, loads.get());
+		assertNotSame(first, second);
+		assertEquals("item-1", second.getName());
+		first.setName("changed");
+		assertEquals("item-1", cache.get(1, this::load).getName());
+		assertEquals(1, cache.getStatistics().missCount());
+		assertEquals(2, cache.getStatistics().hitCount());
+	}
+
+	/**
+	 * Test method for {@link EntityCache#get(java.io.Serializable, java.util.function.Function)}
+	 * with a loader that finds no entity.
+	 */
+	@Test
+	public void testGetWithMissingEntity()
+	{
+		assertNull(cache.get(1, id -> null));
+		assertFalse(cache.contains(1));
+		assertNull(cache.getIfPresent(1));
+	}
+
+	/**
+	 * Test method for {@link EntityCache#invalidate(java.io.Serializable)} and
+	 * {@link EntityCache#invalidateAll()}.
+	 */
+	@Test
+	public void testInvalidate()
+	{
+		cache.get(1, this::load);
+		cache.get(2, this::load);
+		cache.get(3, this::load);
+		assertTrue(cache.contains(1));
+		cache.invalidate(1);
+		cache.invalidate(null);
+		assertFalse(cache.contains(1));
+		assertTrue(cache.contains(2));
+		cache.get(1, this::load);
+		assertEquals(4, loads.get());
+		cache.invalidateAll();
+		assertFalse(cache.contains(1));
+		assertFalse(cache.contains(2));
+		assertFalse(cache.contains(3));
+	}
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import javax.cache.CacheManager;
+
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+import de.alpharogroup.db.test.TestVersionedItem;
+
+/**
+ * The unit test class for the class {@link SecondLevelCacheConfiguration}.
+ */
+public class SecondLevelCacheConfigurationTest
+{
+
+	/**
+	 * The repository of the test items with a region with the default name.
+	 */
+	@CacheRegion(maximumSize = 100)
+	public static class CachedItemRepository extends AbstractRepository<TestItem, Integer>
+	{
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+	}
+
+	/**
+	 * The repository of the versioned test items with a named region.
+	 */
+	@CacheRegion(name = "versioned-items", timeToLiveSeconds = 60,
+		concurrencyStrategy = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+	public static class CachedVersionedItemRepository
+		extends
+			AbstractRepository<TestVersionedItem, Integer>
+	{
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+	}
+
+	/**
+	 * The repository of the test items without region.
+	 */
+	public static class ItemRepository extends AbstractRepository<TestItem, Integer>
+	{
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+	}
+
+	/**
+	 * Test method for {@link SecondLevelCacheConfiguration#getRegionName(Class)}.
+	 */
+	@Test
+	public void testGetRegionName()
+	{
+		assertEquals(TestItem.class.getName(),
+			SecondLevelCacheConfiguration.getRegionName(CachedItemRepository.class));
+		assertEquals("versioned-items",
+			SecondLevelCacheConfiguration.getRegionName(CachedVersionedItemRepository.class));
+		assertNull(SecondLevelCacheConfiguration.getRegionName(ItemRepository.class));
+	}
+
+	/**
+	 * Test method for {@link SecondLevelCacheConfiguration#newJpaProperties(CacheManager)} with
+	 * the regions of repositories.
+	 */
+	@Test
+	public void testNewJpaProperties()
+	{
+		final SecondLevelCacheConfiguration configuration = new SecondLevelCacheConfiguration()
+			.addRepositories(CachedItemRepository.class, CachedVersionedItemRepository.class,
+				ItemRepository.class);
+		final CacheManager cacheManager = configuration.newCacheManager();
+		try
+		{
+			final Properties properties = configuration.newJpaProperties(cacheManager);
+			assertEquals("read-write," + TestItem.class.getName(),
+				properties.get("hibernate.ejb.classcache." + TestItem.class.getName()));
+			assertEquals("nonstrict-read-write,versioned-items",
+				properties.get("hibernate.ejb.classcache." + TestVersionedItem.class.getName()));
+			assertEquals("false", properties.get("hibernate.cache.use_query_cache"));
+			assertNull(properties.get("hibernate.generate_statistics"));
+			assertNotNull(cacheManager.getCache(TestItem.class.getName()));
+			assertNotNull(cacheManager.getCache("versioned-items"));
+			assertNull(cacheManager.getCache(SecondLevelCacheConfiguration.QUERY_RESULTS_REGION));
+		}
+		finally
+		{
+			cacheManager.close();
+		}
+	}
+
+	/**
+	 * Test method for {@link SecondLevelCacheConfiguration#newCacheManager()} with the query
+	 * cache.
+	 */
+	@Test
+	public void testNewCacheManagerWithQueryCache()
+	{
+		final SecondLevelCacheConfiguration configuration = new SecondLevelCacheConfiguration()
+			.enableQueryCache(50, Duration.ofMinutes(1));
+		final CacheManager cacheManager = configuration.newCacheManager();
+		try
+		{
+			assertNotNull(
+				cacheManager.getCache(SecondLevelCacheConfiguration.QUERY_RESULTS_REGION));
+			assertNotNull(
+				cacheManager.getCache(SecondLevelCacheConfiguration.UPDATE_TIMESTAMPS_REGION));
+			assertEquals("true", configuration.newJpaProperties(cacheManager)
+				.get("hibernate.cache.use_query_cache"));
+		}
+		finally
+		{
+			cacheManager.close();
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link SecondLevelCacheConfiguration#addRegion(Class, String, long, Duration, CacheConcurrencyStrategy)}
+	 * with the concurrency strategy NONE.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testAddRegionWithoutConcurrencyStrategy()
+	{
+		new SecondLevelCacheConfiguration().addRegion(TestItem.class, "items", 10, null,
+			CacheConcurrencyStrategy.NONE);
+	}
+
+	/**
+	 * Test method for {@link SecondLevelCacheConfiguration#getRegionStatistics(
+	 * javax.persistence.EntityManagerFactory, String)} that checks that an entity manager factory
+	 * with the created properties serves a loaded entity from the second level cache.
+	 */
+	@Test
+	public void testGetRegionStatistics()
+	{
+		final SecondLevelCacheConfiguration configuration = new SecondLevelCacheConfiguration()
+			.addRepositories(CachedItemRepository.class).enableStatistics();
+		final CacheManager cacheManager = configuration.newCacheManager();
+		try (TestDatabase database = new TestDatabase(
+			configuration.newJpaProperties(cacheManager)))
+		{
+			final CachedItemRepository repository = database.connect(new CachedItemRepository());
+			final Integer id = database.insertItems(repository, 1).get(0);
+			database.inTransaction(() -> repository.get(id));
+			database.inTransaction(() -> repository.get(id));
+			final CacheRegionStatistics statistics = repository.getCacheRegionStatistics();
+			assertNotNull(statistics);
+			assertEquals(2, statistics.getHitCount());
+			assertEquals(0, statistics.getMissCount());
+			assertNull(new ItemRepository().getCacheRegionStatistics());
+		}
+		finally
+		{
+			cacheManager.close();
+		}
+	}
+
+}
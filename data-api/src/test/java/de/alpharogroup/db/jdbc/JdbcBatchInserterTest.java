@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.jdbc;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+import de.alpharogroup.db.test.TestVersionedItem;
+
+/**
+ * The unit test class for the class {@link JdbcBatchInserter}.
+ */
+public class JdbcBatchInserterTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/**
+	 * Sets up a new database.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+	}
+
+	/**
+	 * Closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		database.close();
+	}
+
+	/**
+	 * Factory method for create a new {@link JdbcBatchInserter} for the given entity class type.
+	 *
+	 * @param <T>
+	 *            the generic type of the entity
+	 * @param type
+	 *            the class type of the entity
+	 * @param rowsPerStatement
+	 *            the number of rows in one insert statement
+	 * @return the new {@link JdbcBatchInserter}
+	 */
+	private <T extends BaseEntity<Integer>> JdbcBatchInserter<T, Integer> newInserter(
+		final Class<T> type, final int rowsPerStatement)
+	{
+		return new JdbcBatchInserter<>(database.getEntityManagerFactory(),
+			database.getJdbcTemplate(), type, rowsPerStatement);
+	}
+
+	/**
+	 * Test method for {@link JdbcBatchInserter#insert(List)} with full statements and a statement
+	 * with the remaining rows.
+	 */
+	@Test
+	public void testInsert()
+	{
+		final List<TestItem> items = database.newItems(7);
+		assertEquals(7, newInserter(TestItem.class, 3).insert(items));
+		assertEquals(7, database.countItems());
+		for (final TestItem item : items)
+		{
+			assertNotNull(item.getId());
+			assertEquals(item.getName(), database.findName(item.getId()));
+		}
+	}
+
+	/**
+	 * Test method for {@link JdbcBatchInserter#insert(List)} with null and with no entities.
+	 */
+	@Test
+	public void testInsertWithoutEntities()
+	{
+		final JdbcBatchInserter<TestItem, Integer> inserter = newInserter(TestItem.class, 3);
+		assertEquals(0, inserter.insert(null));
+		assertEquals(0, inserter.insert(Collections.emptyList()));
+		assertEquals(0, database.countItems());
+	}
+
+	/**
+	 * Test method for {@link JdbcBatchInserter#insert(List)} with a versioned entity that gets
+	 * the initial version.
+	 */
+	@Test
+	public void testInsertWithVersion()
+	{
+		final List<TestVersionedItem> items = new ArrayList<>();
+		items.add(TestVersionedItem.newTestVersionedItem(0));
+		items.add(TestVersionedItem.newTestVersionedItem(1));
+		assertEquals(2, newInserter(TestVersionedItem.class, 2).insert(items));
+		for (final TestVersionedItem item : items)
+		{
+			assertEquals(0, item.getVersion().intValue());
+			assertEquals(Integer.valueOf(0), database.getJdbcTemplate().queryForObject(
+				"select version from test_versioned_items where id = ?", Integer.class,
+				item.getId()));
+		}
+	}
+
+	/**
+	 * Test method for {@link JdbcBatchInserter#newInsertString(int)}.
+	 */
+	@Test
+	public void testNewInsertString()
+	{
+		final String actual = newInserter(TestItem.class, 2).newInsertString(2);
+		assertEquals("insert into test_items (id, name, quantity) values (?, ?, ?), (?, ?, ?)",
+			actual);
+	}
+
+	/**
+	 * Test method for
+	 * {@link JdbcBatchInserter#JdbcBatchInserter(javax.persistence.EntityManagerFactory, org.springframework.jdbc.core.JdbcTemplate, Class, int)}
+	 * with a number of rows per statement that is not greater than 0.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewWithInvalidRowsPerStatement()
+	{
+		newInserter(TestItem.class, 0);
+	}
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metadata;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import javax.persistence.EntityManager;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+import de.alpharogroup.db.test.TestVersionedItem;
+
+/**
+ * The unit test class for the class {@link EntityMetadataRegistry}.
+ */
+public class EntityMetadataRegistryTest
+{
+
+	/**
+	 * The repository class with a resolvable type argument.
+	 */
+	static class TestItemRepository extends AbstractRepository<TestItem, Integer>
+	{
+		private static final long serialVersionUID = 1L;
+	}
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The entity manager. */
+	private EntityManager entityManager;
+
+	/**
+	 * Sets up a new database.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		entityManager = database.getEntityManagerFactory().createEntityManager();
+	}
+
+	/**
+	 * Closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		entityManager.close();
+		database.close();
+	}
+
+	/**
+	 * Test method for
+	 * {@link EntityMetadataRegistry#getEntityMetadata(EntityManager, Class)}.
+	 */
+	@Test
+	public void testGetEntityMetadata()
+	{
+		final EntityMetadata<TestItem, Integer> metadata = EntityMetadataRegistry
+			.getEntityMetadata(entityManager, TestItem.class);
+		assertSame(metadata, EntityMetadataRegistry.getEntityMetadata(entityManager,
+			TestItem.class));
+		assertEquals(TestItem.class, metadata.getType());
+		assertEquals("TestItem", metadata.getEntityName());
+		assertEquals("test_items", metadata.getTableName());
+		assertEquals("id", metadata.getIdAttributeName());
+		assertEquals(Integer.class, metadata.getIdType());
+		assertEquals("select e from TestItem e", metadata.getSelectAllString());
+		assertEquals("delete from TestItem e where e.id in (:ids)",
+			metadata.getDeleteByIdsString());
+		assertFalse(metadata.isVersioned());
+	}
+
+	/**
+	 * Test method for {@link EntityMetadata#isNew(de.alpharogroup.db.entity.BaseEntity)} and
+	 * {@link EntityMetadata#getVersion(de.alpharogroup.db.entity.BaseEntity)} of an entity without
+	 * version.
+	 */
+	@Test
+	public void testIsNew()
+	{
+		final EntityMetadata<TestItem, Integer> metadata = EntityMetadataRegistry
+			.getEntityMetadata(entityManager, TestItem.class);
+		final TestItem item = TestItem.newTestItem(0);
+		assertTrue(metadata.isNew(item));
+		item.setId(1);
+		assertFalse(metadata.isNew(item));
+		assertNull(metadata.getVersion(item));
+	}
+
+	/**
+	 * Test method for {@link EntityMetadata#isNew(de.alpharogroup.db.entity.BaseEntity)} and
+	 * {@link EntityMetadata#getVersion(de.alpharogroup.db.entity.BaseEntity)} of a versioned
+	 * entity.
+	 */
+	@Test
+	public void testIsNewWithVersion()
+	{
+		final EntityMetadata<TestVersionedItem, Integer> metadata = EntityMetadataRegistry
+			.getEntityMetadata(entityManager, TestVersionedItem.class);
+		assertTrue(metadata.isVersioned());
+		final TestVersionedItem item = TestVersionedItem.newTestVersionedItem(0);
+		item.setId(1);
+		assertTrue(metadata.isNew(item));
+		item.setVersion(3);
+		assertFalse(metadata.isNew(item));
+		assertEquals(3, metadata.getVersion(item));
+	}
+
+	/**
+	 * Test method for {@link EntityMetadataRegistry#getFirstTypeArgument(Class, Class)} and
+	 * {@link EntityMetadataRegistry#getFirstTypeArgument(Class)}.
+	 */
+	@Test
+	public void testGetFirstTypeArgument()
+	{
+		final Class<TestItem> expected = TestItem.class;
+		assertEquals(expected, EntityMetadataRegistry
+			.<TestItem> getFirstTypeArgument(AbstractRepository.class, TestItemRepository.class));
+		assertEquals(expected,
+			EntityMetadataRegistry.<TestItem> getFirstTypeArgument(TestItemRepository.class));
+	}
+
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.metrics;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.fail;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.repository.api.GenericRepository;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The unit test class for the class {@link OperationMetrics}.
+ */
+public class OperationMetricsTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The operation metrics. */
+	private OperationMetrics metrics;
+
+	/**
+	 * Sets up a new test database and new operation metrics.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		metrics = new OperationMetrics("test", TestItem.class.getName());
+	}
+
+	/**
+	 * Closes the test database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		database.close();
+	}
+
+	/**
+	 * Factory method for create a new transaction template for transactions with the given name,
+	 * like the transactions that the spring transaction interceptor starts.
+	 *
+	 * @param name
+	 *            the name of the transactions
+	 * @return the new transaction template
+	 */
+	private TransactionTemplate newTransactionTemplate(final String name)
+	{
+		final TransactionTemplate transactionTemplate = new TransactionTemplate(
+			database.getTransactionManager());
+		transactionTemplate.setName(name);
+		return transactionTemplate;
+	}
+
+	/**
+	 * Test method for {@link OperationMetrics#record(String, java.util.function.Supplier)}.
+	 */
+	@Test
+	public void testRecord()
+	{
+		assertEquals("result", metrics.record("get", () -> "result"));
+		try
+		{
+			metrics.record("get", () -> {
+				throw new IllegalStateException();
+			});
+			fail("The exception of the operation should be thrown.");
+		}
+		catch (final IllegalStateException e)
+		{
+			// expected
+		}
+		final MethodMetricsSnapshot snapshot = metrics.getMethodMetrics("get").snapshot();
+		assertEquals(2, snapshot.getCalls());
+		assertEquals(1, snapshot.getErrors());
+	}
+
+	/**
+	 * Test method for {@link OperationMetrics#record(String, Runnable)} that checks that only the
+	 * outermost call is recorded.
+	 */
+	@Test
+	public void testRecordNestedCall()
+	{
+		metrics.record("saveOrUpdate(T)", () -> metrics.record("save(T)", () -> "saved"));
+		assertEquals(1, metrics.getMethodMetrics("saveOrUpdate(T)").snapshot().getCalls());
+		assertEquals(0, metrics.getMethodMetrics("save(T)").snapshot().getCalls());
+	}
+
+	/**
+	 * Test method for {@link OperationMetrics#record(Class, String, java.util.function.Supplier)}
+	 * that checks that a call in the transaction that was started for the method is recorded
+	 * after the commit.
+	 */
+	@Test
+	public void testRecordAfterCommit()
+	{
+		newTransactionTemplate(OperationMetricsTest.class.getName() + ".save")
+			.execute(status -> {
+				metrics.record(OperationMetricsTest.class, "save(T)", () -> "saved");
+				assertEquals(0, metrics.getMethodMetrics("save(T)").snapshot().getCalls());
+				return null;
+			});
+		final MethodMetricsSnapshot snapshot = metrics.getMethodMetrics("save(T)").snapshot();
+		assertEquals(1, snapshot.getCalls());
+		assertEquals(0, snapshot.getErrors());
+	}
+
+	/**
+	 * Test method for {@link OperationMetrics#record(Class, String, Runnable)} that checks that a
+	 * call is recorded as error if the transaction that was started for the method is rolled back.
+	 */
+	@Test
+	public void testRecordWithRollback()
+	{
+		newTransactionTemplate(OperationMetricsTest.class.getName() + ".delete")
+			.execute(status -> {
+				metrics.record(OperationMetricsTest.class, "delete(PK)", () -> {
+				});
+				status.setRollbackOnly();
+				return null;
+			});
+		final MethodMetricsSnapshot snapshot = metrics.getMethodMetrics("delete(PK)").snapshot();
+		assertEquals(1, snapshot.getCalls());
+		assertEquals(1, snapshot.getErrors());
+	}
+
+	/**
+	 * Test method for {@link OperationMetrics#record(Class, String, java.util.function.Supplier)}
+	 * that checks that a call in a transaction of another method is recorded immediately.
+	 */
+	@Test
+	public void testRecordInTransactionOfAnotherMethod()
+	{
+		newTransactionTemplate(OperationMetricsTest.class.getName() + ".update")
+			.execute(status -> {
+				metrics.record(OperationMetricsTest.class, "get", () -> "result");
+				assertEquals(1, metrics.getMethodMetrics("get").snapshot().getCalls());
+				status.setRollbackOnly();
+				return null;
+			});
+		final MethodMetricsSnapshot snapshot = metrics.getMethodMetrics("get").snapshot();
+		assertEquals(1, snapshot.getCalls());
+		assertEquals(0, snapshot.getErrors());
+	}
+
+	/**
+	 * Test method for {@link OperationMetrics#record(Class, String, java.util.function.Supplier)}
+	 * with a repository behind a spring transaction proxy that checks that a commit that fails is
+	 * recorded as error.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRecordWithTransactionProxy()
+	{
+		final AbstractRepository<TestItem, Integer> repository = database
+			.connect(new AbstractRepository<TestItem, Integer>()
+			{
+				private static final long serialVersionUID = 1L;
+			});
+		final Integer id = database.insertItems(repository, 1).get(0);
+		final ProxyFactory proxyFactory = new ProxyFactory(repository);
+		proxyFactory.addAdvice(new TransactionInterceptor(database.getTransactionManager(),
+			new AnnotationTransactionAttributeSource()));
+		final GenericRepository<TestItem, Integer> proxy =
+			(GenericRepository<TestItem, Integer>)proxyFactory.getProxy();
+		repository.getOperationMetrics().reset();
+
+		final TestItem item = TestItem.newTestItem(1);
+		item.setId(id);
+		proxy.merge(item);
+		item.setName(new String(new char[100]).replace('\0', 'x'));
+		try
+		{
+			proxy.merge(item);
+			fail("The commit should fail because the name is too long.");
+		}
+		catch (final RuntimeException e)
+		{
+			// expected
+		}
+		final MethodMetricsSnapshot snapshot = repository.getOperationMetrics()
+			.getMethodMetrics("merge(T)").snapshot();
+		assertEquals(2, snapshot.getCalls());
+		assertEquals(1, snapshot.getErrors());
+		assertEquals("item-1", database.findName(id));
+	}
+
+}
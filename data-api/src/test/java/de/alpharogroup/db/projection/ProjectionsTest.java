@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.projection;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+import lombok.Getter;
+
+/**
+ * The unit test class for the class {@link Projections}.
+ */
+public class ProjectionsTest
+{
+
+	/**
+	 * The projection interface with the name and the quantity of a test item.
+	 */
+	public interface ItemView
+	{
+
+		/**
+		 * Gets the name.
+		 *
+		 * @return the name
+		 */
+		String getName();
+
+		/**
+		 * Gets the quantity.
+		 *
+		 * @return the quantity
+		 */
+		int getQuantity();
+
+	}
+
+	/**
+	 * The projection class with the name and the quantity of a test item.
+	 */
+	@Getter
+	public static class ItemDto
+	{
+
+		/** The name. */
+		private final String name;
+
+		/** The quantity. */
+		private final int quantity;
+
+		/**
+		 * Instantiates a new {@link ItemDto}.
+		 *
+		 * @param name
+		 *            the name
+		 * @param quantity
+		 *            the quantity
+		 */
+		public ItemDto(final String name, final int quantity)
+		{
+			this.name = name;
+			this.quantity = quantity;
+		}
+
+	}
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The repository. */
+	private AbstractRepository<TestItem, Integer> repository;
+
+	/**
+	 * Sets up a new database with inserted test items and a repository.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		repository = database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+		});
+		database.insertItems(repository, 3);
+	}
+
+	/**
+	 * Closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		database.close();
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#findAllProjected(Class, String...)} with a
+	 * projection class.
+	 */
+	@Test
+	public void testFindAllProjectedWithClass()
+	{
+		final List<ItemDto> actual = repository.findAllProjected(ItemDto.class, "name",
+			"quantity");
+		assertEquals(3, actual.size());
+		actual.sort((a, b) -> Integer.compare(a.getQuantity(), b.getQuantity()));
+		assertEquals("item-2", actual.get(2).getName());
+		assertEquals(2, actual.get(2).getQuantity());
+	}
+
+	/**
+	 * Test method for
+	 * {@link AbstractRepository#findAllProjected(Class, de.alpharogroup.db.criteria.PredicateFactory, String...)}
+	 * with a projection interface and a predicate.
+	 */
+	@Test
+	public void testFindAllProjectedWithInterface()
+	{
+		final List<ItemView> actual = repository.findAllProjected(ItemView.class,
+			(root, builder) -> builder.equal(root.get("quantity"), 1), "name", "quantity");
+		assertEquals(1, actual.size());
+		assertEquals("item-1", actual.get(0).getName());
+		assertEquals(1, actual.get(0).getQuantity());
+	}
+
+	/**
+	 * Test method for {@link Projections#newProjection(Class, javax.persistence.Tuple)} with an
+	 * attribute that is not selected.
+	 */
+	@Test
+	public void testNewProjectionWithoutSelectedAttribute()
+	{
+		final List<ItemView> actual = repository.findAllProjected(ItemView.class, "name");
+		assertEquals(3, actual.size());
+		assertEquals(0, actual.get(0).getQuantity());
+		assertNull(repository.findAllProjected(ItemView.class, "quantity").get(0).getName());
+	}
+
+	/**
+	 * Test method for {@link Projections#newSelections(javax.persistence.criteria.Root, String...)}
+	 * without attribute paths.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewSelectionsWithoutAttributePaths()
+	{
+		repository.findAllProjected(ItemView.class);
+	}
+
+	/**
+	 * Test method for {@link Projections#newSelections(javax.persistence.criteria.Root, String...)}
+	 * with two attribute paths with the same property name.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewSelectionsWithDuplicatePropertyName()
+	{
+		repository.findAllProjected(ItemView.class, "name", "name");
+	}
+
+	/**
+	 * Test method for {@link Projections#getPropertyName(String)}.
+	 */
+	@Test
+	public void testGetPropertyName()
+	{
+		assertEquals("city", Projections.getPropertyName("address.city"));
+		assertEquals("name", Projections.getPropertyName("name"));
+	}
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.query;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The unit test class for the class {@link QueryRegistry}.
+ */
+public class QueryRegistryTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The ids of the inserted test items. */
+	private List<Integer> ids;
+
+	/** The query registry of the repository. */
+	private QueryRegistry<TestItem, Integer> queryRegistry;
+
+	/** The repository. */
+	private AbstractRepository<TestItem, Integer> repository;
+
+	/**
+	 * Sets up a new database with inserted test items and a repository.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		repository = database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+		});
+		ids = database.insertItems(repository, 3);
+		queryRegistry = new QueryRegistry<>(repository);
+	}
+
+	/**
+	 * Closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		database.close();
+	}
+
+	/**
+	 * Test method for {@link QueryRegistry#countQuery()} that checks that the query is registered
+	 * only on the first request.
+	 */
+	@Test
+	public void testCountQuery()
+	{
+		assertEquals(3L, queryRegistry.countQuery().getSingleResult().longValue());
+		assertEquals(3L, queryRegistry.countQuery().getSingleResult().longValue());
+		assertEquals(1, queryRegistry.getRegistryMissCount());
+		assertEquals(1, queryRegistry.getRegistryHitCount());
+		assertTrue(queryRegistry.getRegisteredQueryNames().contains("TestItem.count"));
+	}
+
+	/**
+	 * Test method for {@link QueryRegistry#findAllQuery()}.
+	 */
+	@Test
+	public void testFindAllQuery()
+	{
+		assertEquals(3, queryRegistry.findAllQuery().getResultList().size());
+		assertTrue(queryRegistry.getRegisteredQueryNames().contains("TestItem.findAll"));
+	}
+
+	/**
+	 * Test method for {@link QueryRegistry#findByAttributeQuery(String, Object)} with a value and
+	 * with null.
+	 */
+	@Test
+	public void testFindByAttributeQuery()
+	{
+		database.getJdbcTemplate().update("update test_items set name = null where id = ?",
+			ids.get(2));
+		final List<TestItem> actual = queryRegistry.findByAttributeQuery("name", "item-1")
+			.getResultList();
+		assertEquals(1, actual.size());
+		assertEquals(ids.get(1), actual.get(0).getId());
+		assertEquals(0,
+			queryRegistry.findByAttributeQuery("name", "unknown").getResultList().size());
+		final List<TestItem> nullNames = queryRegistry.findByAttributeQuery("name", null)
+			.getResultList();
+		assertEquals(1, nullNames.size());
+		assertEquals(ids.get(2), nullNames.get(0).getId());
+		assertEquals(2, queryRegistry.getRegistryMissCount());
+		assertEquals(1, queryRegistry.getRegistryHitCount());
+		assertTrue(queryRegistry.getRegisteredQueryNames().contains("TestItem.findBy.name"));
+		assertTrue(
+			queryRegistry.getRegisteredQueryNames().contains("TestItem.findBy.name.isNull"));
+	}
+
+	/**
+	 * Test method for {@link QueryRegistry#findByAttributeQuery(String, Object)} with an attribute
+	 * name that is not an attribute of the entity.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testFindByAttributeQueryWithUnknownAttribute()
+	{
+		queryRegistry.findByAttributeQuery("name = name or 1", 1);
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#findByAttribute(String, Object)} that uses the
+	 * query registry of the repository.
+	 */
+	@Test
+	public void testFindByAttributeOfRepository()
+	{
+		final QueryRegistry<TestItem, Integer> repositoryQueryRegistry = repository
+			.getQueryRegistry();
+		final long missCount = repositoryQueryRegistry.getRegistryMissCount();
+		assertEquals(1, repository.findByAttribute("quantity", 2).size());
+		assertEquals(1, repository.findByAttribute("quantity", 0).size());
+		assertEquals(missCount + 1, repositoryQueryRegistry.getRegistryMissCount());
+	}
+
+}
@@ -0,0 +1,615 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.repository;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.cache.CountCache;
+import de.alpharogroup.db.cache.EntityCache;
+import de.alpharogroup.db.criteria.PredicateFactory;
+import de.alpharogroup.db.metrics.OperationMetrics;
+import de.alpharogroup.db.paging.Page;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+import de.alpharogroup.db.tracking.ChangeTracker;
+
+/**
+ * The unit test class for the class {@link AbstractRepository}.
+ */
+public class AbstractRepositoryTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The repository with the default strategies. */
+	private AbstractRepository<TestItem, Integer> repository;
+
+	/**
+	 * Sets up a new database and a repository with the default strategies.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		repository = database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+		});
+	}
+
+	/**
+	 * Closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		database.close();
+	}
+
+	/**
+	 * Factory method for create a new repository with an entity cache that is connected with the
+	 * test database.
+	 *
+	 * @return the new repository
+	 */
+	private AbstractRepository<TestItem, Integer> newCachedRepository()
+	{
+		return database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public EntityCache<TestItem, Integer> newEntityCache()
+			{
+				return new EntityCache<>(10);
+			}
+		});
+	}
+
+	/**
+	 * Factory method for create a new repository with a change tracker that is connected with the
+	 * test database.
+	 *
+	 * @return the new repository
+	 */
+	private AbstractRepository<TestItem, Integer> newTrackedRepository()
+	{
+		return database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public ChangeTracker<TestItem, Integer> newChangeTracker()
+			{
+				return new ChangeTracker<>(this, 100);
+			}
+		});
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#count()}.
+	 */
+	@Test
+	public void testCount()
+	{
+		assertEquals(0L, repository.count());
+		database.insertItems(repository, 3);
+		assertEquals(3L, repository.count());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#count()} with a count cache that checks that the
+	 * cached count is invalidated on writes of the repository.
+	 */
+	@Test
+	public void testCountWithCountCache()
+	{
+		final AbstractRepository<TestItem, Integer> cachedRepository = database
+			.connect(new AbstractRepository<TestItem, Integer>()
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public CountCache newCountCache()
+				{
+					return new CountCache(Duration.ofMinutes(1));
+				}
+			});
+		final List<Integer> ids = database.insertItems(cachedRepository, 2);
+		assertEquals(2L, cachedRepository.count());
+		database.insertItems(repository, 1);
+		assertEquals(2L, cachedRepository.count());
+		database.insertItems(cachedRepository, 1);
+		assertEquals(4L, cachedRepository.count());
+		database.inTransaction(() -> cachedRepository.deleteById(ids.get(0)));
+		assertEquals(3L, cachedRepository.count());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#estimatedCount()} that checks that the exact count
+	 * is used on databases without table statistics.
+	 */
+	@Test
+	public void testEstimatedCount()
+	{
+		database.insertItems(repository, 4);
+		assertEquals(4L, (long)database.inTransaction(repository::estimatedCount));
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#deleteById(java.io.Serializable)}.
+	 */
+	@Test
+	public void testDeleteById()
+	{
+		final List<Integer> ids = database.insertItems(repository, 2);
+		assertTrue(database.inTransaction(() -> repository.deleteById(ids.get(0))));
+		assertFalse(database.inTransaction(() -> repository.deleteById(ids.get(0))));
+		assertFalse(database.inTransaction(() -> repository.deleteById(null)));
+		assertEquals(1, database.countItems());
+		assertEquals("item-1", database.findName(ids.get(1)));
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#deleteByIds(java.util.Collection)} with more ids
+	 * than the chunk size and an id that does not exist.
+	 */
+	@Test
+	public void testDeleteByIds()
+	{
+		final List<Integer> ids = database.insertItems(repository, 6);
+		repository.setChunkSize(2);
+		final List<Integer> deleteIds = new ArrayList<>(ids.subList(0, 4));
+		deleteIds.add(Integer.MAX_VALUE);
+		final int actual = database.inTransaction(() -> repository.deleteByIds(deleteIds));
+		assertEquals(4, actual);
+		assertEquals(2, database.countItems());
+		assertEquals("item-4", database.findName(ids.get(4)));
+		assertEquals("item-5", database.findName(ids.get(5)));
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#deleteByIds(java.util.Collection)} with an entity
+	 * that is managed from the current persistence context.
+	 */
+	@Test
+	public void testDeleteByIdsDetachesManagedEntity()
+	{
+		final List<Integer> ids = database.insertItems(repository, 2);
+		database.inTransaction(() -> {
+			final TestItem managed = repository.get(ids.get(0));
+			assertTrue(repository.getEntityManager().contains(managed));
+			assertEquals(1, repository.deleteByIds(Collections.singletonList(ids.get(0))));
+			assertFalse(repository.getEntityManager().contains(managed));
+			assertNull(repository.getEntityManager().find(TestItem.class, ids.get(0)));
+		});
+		assertEquals(1, database.countItems());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#deleteByIds(java.util.Collection)} with null and
+	 * with no ids.
+	 */
+	@Test
+	public void testDeleteByIdsWithoutIds()
+	{
+		database.insertItems(repository, 2);
+		assertEquals(0, database.inTransaction(() -> repository.deleteByIds(null)).intValue());
+		assertEquals(0, database
+			.inTransaction(() -> repository.deleteByIds(Collections.emptyList())).intValue());
+		assertEquals(2, database.countItems());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#deleteWhere(PredicateFactory)}.
+	 */
+	@Test
+	public void testDeleteWhere()
+	{
+		final List<Integer> ids = database.insertItems(repository, 5);
+		final int actual = database.inTransaction(() -> repository
+			.deleteWhere((root, builder) -> builder.lessThan(root.get("quantity"), 3)));
+		assertEquals(3, actual);
+		assertEquals(2, database.countItems());
+		assertEquals("item-3", database.findName(ids.get(3)));
+		assertEquals(2, database.inTransaction(() -> repository.deleteWhere(null)).intValue());
+		assertEquals(0, database.countItems());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#exists(java.io.Serializable)}.
+	 */
+	@Test
+	public void testExists()
+	{
+		final List<Integer> ids = database.insertItems(repository, 1);
+		assertTrue(database.inTransaction(() -> repository.exists(ids.get(0))));
+		assertFalse(database.inTransaction(() -> repository.exists(Integer.MAX_VALUE)));
+		assertFalse(database.inTransaction(() -> repository.exists(null)));
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#exists(java.io.Serializable)} with an entity that
+	 * is only managed from the current persistence context and not flushed yet.
+	 */
+	@Test
+	public void testExistsWithManagedEntity()
+	{
+		database.inRollbackTransaction(() -> {
+			final TestItem item = TestItem.newTestItem(0);
+			repository.getEntityManager().persist(item);
+			assertTrue(repository.exists(item.getId()));
+		});
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#existsAll(java.util.Collection)} with more ids
+	 * than the chunk size and an id that does not exist.
+	 */
+	@Test
+	public void testExistsAll()
+	{
+		final List<Integer> ids = database.insertItems(repository, 5);
+		repository.setChunkSize(2);
+		final List<Integer> requested = new ArrayList<>(ids);
+		requested.add(Integer.MAX_VALUE);
+		final Set<Integer> actual = database.inTransaction(() -> repository.existsAll(requested));
+		assertEquals(new HashSet<>(ids), actual);
+		assertTrue(repository.existsAll(null).isEmpty());
+		assertTrue(repository.existsAll(Collections.emptyList()).isEmpty());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#measure(String, java.util.function.Supplier)} that
+	 * checks that the calls of create, refresh, jdbcBatchInsert, streamAll and forEach are
+	 * recorded in the operation metrics.
+	 */
+	@Test
+	public void testMeasure()
+	{
+		final OperationMetrics metrics = repository.getOperationMetrics();
+		metrics.reset();
+		final TestItem item = TestItem.newTestItem(1);
+		database.inTransaction(() -> {
+			repository.create(item);
+			repository.getEntityManager().flush();
+			repository.refresh(item);
+		});
+		repository.jdbcBatchInsert(database.newItems(2));
+		database.inTransaction(() -> {
+			repository.forEach(entity -> {
+			}, 10);
+			try (Stream<TestItem> stream = repository.streamAll())
+			{
+				assertEquals(3, stream.count());
+			}
+		});
+		for (final String methodName : Arrays.asList("create", "refresh", "jdbcBatchInsert",
+			"forEach", "streamAll"))
+		{
+			assertEquals(methodName, 1, metrics.getMethodMetrics(methodName).snapshot().getCalls());
+		}
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#findAllReadOnly()} that checks that changes of the
+	 * read only entities are not flushed and no snapshots are taken.
+	 */
+	@Test
+	public void testFindAllReadOnly()
+	{
+		final AbstractRepository<TestItem, Integer> trackedRepository = newTrackedRepository();
+		final List<Integer> ids = database.insertItems(trackedRepository, 3);
+		database.inTransaction(() -> {
+			final List<TestItem> items = trackedRepository.findAllReadOnly();
+			assertEquals(3, items.size());
+			for (final TestItem item : items)
+			{
+				assertNull(trackedRepository.getChangeTracker().getChangedAttributes(item));
+				item.setName("changed");
+			}
+		});
+		for (final Integer id : ids)
+		{
+			assertTrue(database.findName(id).startsWith("item-"));
+		}
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#findPageAfter(java.io.Serializable, int)} that
+	 * walks all pages.
+	 */
+	@Test
+	public void testFindPageAfter()
+	{
+		final List<Integer> ids = database.insertItems(repository, 7);
+		final List<Integer> actual = new ArrayList<>();
+		final List<Integer> pageSizes = new ArrayList<>();
+		Integer lastId = null;
+		Page<TestItem, Integer> page;
+		do
+		{
+			final Integer previousLastId = lastId;
+			page = database.inTransaction(() -> repository.findPageAfter(previousLastId, 3));
+			assertEquals(3, page.getLimit());
+			page.getContent().forEach(item -> actual.add(item.getId()));
+			pageSizes.add(page.getContent().size());
+			lastId = page.getLastId();
+		}
+		while (page.hasNext());
+		assertEquals(ids, actual);
+		assertEquals(Arrays.asList(3, 3, 1), pageSizes);
+		assertEquals(ids.get(6), lastId);
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#findPageAfter(java.io.Serializable, int)} where
+	 * the last page is full.
+	 */
+	@Test
+	public void testFindPageAfterWithFullLastPage()
+	{
+		final List<Integer> ids = database.insertItems(repository, 4);
+		final Page<TestItem, Integer> first = database
+			.inTransaction(() -> repository.findPageAfter(null, 2));
+		assertTrue(first.hasNext());
+		assertEquals(ids.get(1), first.getLastId());
+		final Page<TestItem, Integer> last = database
+			.inTransaction(() -> repository.findPageAfter(first.getLastId(), 2));
+		assertFalse(last.hasNext());
+		assertEquals(2, last.getContent().size());
+		assertEquals(ids.get(3), last.getLastId());
+		final Page<TestItem, Integer> empty = database
+			.inTransaction(() -> repository.findPageAfter(last.getLastId(), 2));
+		assertTrue(empty.isEmpty());
+		assertFalse(empty.hasNext());
+		assertNull(empty.getLastId());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#findPageAfter(java.io.Serializable, int)} with a
+	 * limit that is not greater than 0.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testFindPageAfterWithInvalidLimit()
+	{
+		repository.findPageAfter(null, 0);
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#forEach(java.util.function.Consumer, int)}.
+	 */
+	@Test
+	public void testForEach()
+	{
+		final List<Integer> ids = database.insertItems(repository, 5);
+		final List<Integer> actual = new ArrayList<>();
+		database.inTransaction(() -> repository.forEach(item -> actual.add(item.getId()), 2));
+		Collections.sort(actual);
+		assertEquals(ids, actual);
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#getAll(java.util.Collection)} with more ids than
+	 * the chunk size, an id that does not exist and an entity that is already managed.
+	 */
+	@Test
+	public void testGetAll()
+	{
+		final List<Integer> ids = database.insertItems(repository, 5);
+		repository.setChunkSize(2);
+		final List<Integer> requested = Arrays.asList(ids.get(3), Integer.MAX_VALUE, ids.get(0),
+			ids.get(4), ids.get(1));
+		database.inTransaction(() -> {
+			final TestItem managed = repository.getEntityManager().find(TestItem.class, ids.get(0));
+			final List<TestItem> actual = repository.getAll(requested);
+			assertEquals(5, actual.size());
+			assertEquals(ids.get(3), actual.get(0).getId());
+			assertNull(actual.get(1));
+			assertSame(managed, actual.get(2));
+			assertEquals(ids.get(4), actual.get(3).getId());
+			assertEquals(ids.get(1), actual.get(4).getId());
+		});
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#getAllAsMap(java.util.Collection)}.
+	 */
+	@Test
+	public void testGetAllAsMap()
+	{
+		final List<Integer> ids = database.insertItems(repository, 3);
+		final Map<Integer, TestItem> actual = database.inTransaction(
+			() -> repository.getAllAsMap(Arrays.asList(ids.get(2), Integer.MAX_VALUE, ids.get(0))));
+		assertEquals(Arrays.asList(ids.get(2), ids.get(0)), new ArrayList<>(actual.keySet()));
+		assertEquals("item-2", actual.get(ids.get(2)).getName());
+		assertEquals("item-0", actual.get(ids.get(0)).getName());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#getAll(java.util.Collection)} with null and with
+	 * no ids.
+	 */
+	@Test
+	public void testGetAllWithoutIds()
+	{
+		assertTrue(repository.getAll(null).isEmpty());
+		assertTrue(repository.getAll(Collections.emptyList()).isEmpty());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#getReadOnly(java.io.Serializable)} that checks that
+	 * changes of the read only entity are not flushed and no snapshot is taken.
+	 */
+	@Test
+	public void testGetReadOnly()
+	{
+		final AbstractRepository<TestItem, Integer> trackedRepository = newTrackedRepository();
+		final Integer id = database.insertItems(trackedRepository, 1).get(0);
+		database.inTransaction(() -> {
+			final TestItem item = trackedRepository.getReadOnly(id);
+			assertNull(trackedRepository.getChangeTracker().getChangedAttributes(item));
+			item.setName("changed");
+			assertNull(trackedRepository.getReadOnly(null));
+		});
+		assertEquals("item-0", database.findName(id));
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#get(java.io.Serializable)} with an entity cache
+	 * outside of a transaction.
+	 */
+	@Test
+	public void testGetWithEntityCache()
+	{
+		final AbstractRepository<TestItem, Integer> cachedRepository = newCachedRepository();
+		final List<Integer> ids = database.insertItems(cachedRepository, 1);
+		final Integer id = ids.get(0);
+		final TestItem first = cachedRepository.get(id);
+		database.getJdbcTemplate().update("update test_items set name = ? where id = ?",
+			"changed", id);
+		final TestItem second = cachedRepository.get(id);
+		assertNotSame(first, second);
+		assertEquals("item-0", second.getName());
+		assertTrue(cachedRepository.getEntityCache().contains(id));
+		database.inTransaction(() -> cachedRepository.deleteById(id));
+		assertFalse(cachedRepository.getEntityCache().contains(id));
+		assertNull(cachedRepository.get(id));
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#get(java.io.Serializable)} with an entity cache
+	 * inside of a read write transaction.
+	 */
+	@Test
+	public void testGetWithEntityCacheInReadWriteTransaction()
+	{
+		final AbstractRepository<TestItem, Integer> cachedRepository = newCachedRepository();
+		final Integer id = database.insertItems(cachedRepository, 1).get(0);
+		cachedRepository.get(id);
+		assertTrue(cachedRepository.getEntityCache().contains(id));
+		database.inTransaction(() -> {
+			final TestItem managed = cachedRepository.get(id);
+			assertTrue(cachedRepository.getEntityManager().contains(managed));
+			managed.setName("changed");
+		});
+		assertFalse(cachedRepository.getEntityCache().contains(id));
+		assertEquals("changed", cachedRepository.get(id).getName());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#streamAll()}.
+	 */
+	@Test
+	public void testStreamAll()
+	{
+		final List<Integer> ids = database.insertItems(repository, 5);
+		final List<Integer> actual = database.inTransaction(() -> {
+			try (Stream<TestItem> stream = repository.streamAll())
+			{
+				return stream.map(TestItem::getId).sorted().collect(Collectors.toList());
+			}
+		});
+		assertEquals(ids, actual);
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#streamAll(int)} that checks that the processed
+	 * entities are evicted after every chunk and when the stream is closed.
+	 */
+	@Test
+	public void testStreamAllEvictsProcessedEntities()
+	{
+		database.insertItems(repository, 5);
+		database.inTransaction(() -> {
+			final EntityManager entityManager = repository.getEntityManager();
+			final List<TestItem> processed = new ArrayList<>();
+			try (Stream<TestItem> stream = repository.streamAll(2))
+			{
+				final Iterator<TestItem> iterator = stream.iterator();
+				processed.add(iterator.next());
+				processed.add(iterator.next());
+				assertTrue(entityManager.contains(processed.get(0)));
+				assertTrue(entityManager.contains(processed.get(1)));
+				processed.add(iterator.next());
+				assertFalse(entityManager.contains(processed.get(0)));
+				assertFalse(entityManager.contains(processed.get(1)));
+				assertTrue(entityManager.contains(processed.get(2)));
+			}
+			assertFalse(entityManager.contains(processed.get(2)));
+		});
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#updateWhere(PredicateFactory, Map)} that checks
+	 * that the entity cache is invalidated.
+	 */
+	@Test
+	public void testUpdateWhere()
+	{
+		final AbstractRepository<TestItem, Integer> cachedRepository = newCachedRepository();
+		final List<Integer> ids = database.insertItems(cachedRepository, 5);
+		cachedRepository.get(ids.get(4));
+		final Map<String, Object> values = new HashMap<>();
+		values.put("name", "bulk");
+		final int actual = database.inTransaction(() -> cachedRepository.updateWhere(
+			(root, builder) -> builder.greaterThanOrEqualTo(root.get("quantity"), 3), values));
+		assertEquals(2, actual);
+		assertEquals("item-2", database.findName(ids.get(2)));
+		assertEquals("bulk", database.findName(ids.get(3)));
+		assertEquals("bulk", database.findName(ids.get(4)));
+		assertFalse(cachedRepository.getEntityCache().contains(ids.get(4)));
+		assertEquals("bulk", cachedRepository.get(ids.get(4)).getName());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#updateWhere(PredicateFactory, Map)} with null and
+	 * with no values.
+	 */
+	@Test
+	public void testUpdateWhereWithoutValues()
+	{
+		database.insertItems(repository, 2);
+		assertEquals(0, repository.updateWhere(null, null));
+		assertEquals(0, repository.updateWhere(null, Collections.emptyMap()));
+	}
+
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.strategies;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.strategies.api.SaveOrUpdateStrategy;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The unit test class for the class {@link BatchSaveOrUpdateStrategy}.
+ */
+public class BatchSaveOrUpdateStrategyTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The repository with the batch save or update strategy. */
+	private AbstractRepository<TestItem, Integer> repository;
+
+	/**
+	 * Sets up a new database and a repository with a batch size of 3.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		repository = database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public SaveOrUpdateStrategy<TestItem, Integer> newSaveOrUpdateStrategy()
+			{
+				return new BatchSaveOrUpdateStrategy<>(this, 3);
+			}
+		});
+	}
+
+	/**
+	 * Closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		database.close();
+	}
+
+	/**
+	 * Test method for {@link BatchSaveOrUpdateStrategy#BatchSaveOrUpdateStrategy(AbstractRepository, int)}
+	 * with a batch size that is not greater than 0.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewWithInvalidBatchSize()
+	{
+		new BatchSaveOrUpdateStrategy<>(repository, 0);
+	}
+
+	/**
+	 * Test method for {@link BatchSaveOrUpdateStrategy#save(List)}.
+	 */
+	@Test
+	public void testSave()
+	{
+		final List<TestItem> items = database.newItems(7);
+		final List<Integer> ids = database.inTransaction(() -> {
+			final List<Integer> primaryKeys = repository.save(items);
+			for (final TestItem item : items)
+			{
+				assertNotNull(item.getId());
+				assertFalse(repository.getEntityManager().contains(item));
+			}
+			return primaryKeys;
+		});
+		assertEquals(7, ids.size());
+		assertEquals(7, database.countItems());
+		for (int i = 0; i < items.size(); i++)
+		{
+			assertEquals(items.get(i).getId(), ids.get(i));
+			assertEquals(items.get(i).getName(), database.findName(ids.get(i)));
+		}
+	}
+
+	/**
+	 * Test method for {@link BatchSaveOrUpdateStrategy#save(List)} that keeps the entities
+	 * managed that are not part of the given list.
+	 */
+	@Test
+	public void testSaveKeepsOtherEntitiesManaged()
+	{
+		final List<Integer> ids = database.insertItems(repository, 1);
+		database.inTransaction(() -> {
+			final TestItem managed = repository.get(ids.get(0));
+			repository.save(database.newItems(7));
+			assertTrue(repository.getEntityManager().contains(managed));
+			managed.setName("dirty-checked");
+		});
+		assertEquals(8, database.countItems());
+		assertEquals("dirty-checked", database.findName(ids.get(0)));
+	}
+
+	/**
+	 * Test method for {@link BatchSaveOrUpdateStrategy#saveOrUpdate(List)} with new and persisted
+	 * entities.
+	 */
+	@Test
+	public void testSaveOrUpdate()
+	{
+		final List<TestItem> items = database.newItems(4);
+		database.inTransaction(() -> repository.save(items));
+		items.get(0).setName("changed-0");
+		items.get(3).setName("changed-3");
+		final List<TestItem> newItems = database.newItems(2);
+		items.addAll(newItems);
+		database.inTransaction(() -> repository.saveOrUpdate(items));
+		assertEquals(6, database.countItems());
+		assertEquals("changed-0", database.findName(items.get(0).getId()));
+		assertEquals("item-1", database.findName(items.get(1).getId()));
+		assertEquals("changed-3", database.findName(items.get(3).getId()));
+		for (final TestItem newItem : newItems)
+		{
+			assertNotNull(newItem.getId());
+		}
+	}
+
+	/**
+	 * Test method for {@link BatchSaveOrUpdateStrategy#update(List)}.
+	 */
+	@Test
+	public void testUpdate()
+	{
+		final List<TestItem> items = database.newItems(5);
+		database.inTransaction(() -> repository.save(items));
+		items.forEach(item -> item.setQuantity(item.getQuantity() + 100));
+		database.inTransaction(() -> repository.update(items));
+		final Integer actual = database.getJdbcTemplate()
+			.queryForObject("select sum(quantity) from test_items", Integer.class);
+		assertEquals(Integer.valueOf(510), actual);
+	}
+
+}
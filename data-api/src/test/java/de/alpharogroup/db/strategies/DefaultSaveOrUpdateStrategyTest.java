@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.strategies;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.strategies.api.SaveMode;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The unit test class for the class {@link DefaultSaveOrUpdateStrategy}.
+ */
+public class DefaultSaveOrUpdateStrategyTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The repository with the default save or update strategy. */
+	private AbstractRepository<TestItem, Integer> repository;
+
+	/**
+	 * Sets up a new database and a repository with the default strategies.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		repository = database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+		});
+	}
+
+	/**
+	 * Closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		database.close();
+	}
+
+	/**
+	 * Test method for {@link DefaultSaveOrUpdateStrategy#save(TestItem)} with the save mode
+	 * {@link SaveMode#MERGE} that saves a managed copy of the given entity.
+	 */
+	@Test
+	public void testSaveWithMerge()
+	{
+		final TestItem item = TestItem.newTestItem(0);
+		database.inTransaction(() -> {
+			final Integer id = repository.save(item);
+			assertNotNull(id);
+			assertNull(item.getId());
+			assertFalse(repository.getEntityManager().contains(item));
+			assertEquals("item-0",
+				repository.getEntityManager().find(TestItem.class, id).getName());
+		});
+		assertEquals(1, database.countItems());
+	}
+
+	/**
+	 * Test method for {@link DefaultSaveOrUpdateStrategy#save(TestItem)} with the save mode
+	 * {@link SaveMode#PERSIST_NEW} that persists the given new entity.
+	 */
+	@Test
+	public void testSaveWithPersistNew()
+	{
+		repository.setSaveMode(SaveMode.PERSIST_NEW);
+		final TestItem item = TestItem.newTestItem(0);
+		final Integer id = database.inTransaction(() -> {
+			final Integer primaryKey = repository.save(item);
+			assertTrue(repository.getEntityManager().contains(item));
+			return primaryKey;
+		});
+		assertNotNull(id);
+		assertEquals(id, item.getId());
+		assertEquals("item-0", database.findName(id));
+	}
+
+	/**
+	 * Test method for {@link DefaultSaveOrUpdateStrategy#save(TestItem)} with the save mode
+	 * {@link SaveMode#PERSIST_NEW} that still merges a detached entity.
+	 */
+	@Test
+	public void testSaveWithPersistNewMergesDetachedEntity()
+	{
+		repository.setSaveMode(SaveMode.PERSIST_NEW);
+		final List<Integer> ids = database.insertItems(repository, 1);
+		final TestItem detached = database.inTransaction(() -> repository.get(ids.get(0)));
+		detached.setName("changed");
+		database.inTransaction(() -> {
+			assertEquals(ids.get(0), repository.save(detached));
+			assertFalse(repository.getEntityManager().contains(detached));
+		});
+		assertEquals(1, database.countItems());
+		assertEquals("changed", database.findName(ids.get(0)));
+	}
+
+	/**
+	 * Test method for {@link DefaultSaveOrUpdateStrategy#saveOrUpdate(TestItem)} with a new and
+	 * a detached entity.
+	 */
+	@Test
+	public void testSaveOrUpdate()
+	{
+		repository.setSaveMode(SaveMode.PERSIST_NEW);
+		final List<Integer> ids = database.insertItems(repository, 1);
+		final TestItem detached = database.inTransaction(() -> repository.get(ids.get(0)));
+		detached.setName("changed");
+		final TestItem item = TestItem.newTestItem(1);
+		database.inTransaction(() -> {
+			repository.saveOrUpdate(detached);
+			repository.saveOrUpdate(item);
+		});
+		assertNotNull(item.getId());
+		assertEquals(2, database.countItems());
+		assertEquals("changed", database.findName(ids.get(0)));
+		assertEquals("item-1", database.findName(item.getId()));
+	}
+
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.strategies;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The unit test class for the class {@link DeferredDeleteStrategy}.
+ */
+public class DeferredDeleteStrategyTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The ids of the entities that are given up from the strategy. */
+	private List<Integer> failedIds;
+
+	/** The ids of the inserted test items. */
+	private List<Integer> ids;
+
+	/** The repository with the default strategies. */
+	private AbstractRepository<TestItem, Integer> repository;
+
+	/** The strategy under test. */
+	private DeferredDeleteStrategy<TestItem, Integer> strategy;
+
+	/**
+	 * Sets up a new database with inserted test items.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		repository = database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+		});
+		ids = database.insertItems(repository, 3);
+		failedIds = new ArrayList<>();
+	}
+
+	/**
+	 * Closes the strategy and the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		if (strategy != null)
+		{
+			strategy.close();
+			strategy = null;
+		}
+		database.close();
+	}
+
+	/**
+	 * Test method for {@link DeferredDeleteStrategy#delete(de.alpharogroup.db.entity.BaseEntity)}
+	 * that enqueues the entity after the commit and deletes it with the purge.
+	 */
+	@Test
+	public void testDelete()
+	{
+		strategy = install(newTaskExecutor(), 10, 3);
+		database.inTransaction(() -> {
+			repository.delete(repository.get(ids.get(0)));
+			assertFalse(strategy.isPendingDeletion(ids.get(0)));
+		});
+		assertTrue(strategy.isPendingDeletion(ids.get(0)));
+		assertEquals(1, strategy.getPendingCount());
+		assertEquals(3, database.countItems());
+
+		assertEquals(1, strategy.purgeAll());
+		assertFalse(strategy.isPendingDeletion(ids.get(0)));
+		assertEquals(1, strategy.getPurgedCount());
+		assertEquals(2, database.countItems());
+	}
+
+	/**
+	 * Test method for {@link DeferredDeleteStrategy#deleteByIds(java.util.Collection)} that
+	 * deletes an entity that is pending for deletion immediately.
+	 */
+	@Test
+	public void testDeleteByIds()
+	{
+		strategy = install(newTaskExecutor(), 10, 3);
+		repository.delete(ids.get(0));
+		assertTrue(strategy.isPendingDeletion(ids.get(0)));
+		final int actual = database
+			.inTransaction(() -> repository.deleteByIds(Collections.singletonList(ids.get(0))));
+		assertEquals(1, actual);
+		assertFalse(strategy.isPendingDeletion(ids.get(0)));
+		assertEquals(0, strategy.purgeAll());
+		assertEquals(2, database.countItems());
+	}
+
+	/**
+	 * Test method for {@link DeferredDeleteStrategy#delete(java.io.Serializable)} in a transaction
+	 * that is rolled back.
+	 */
+	@Test
+	public void testDeleteInRolledBackTransaction()
+	{
+		strategy = install(newTaskExecutor(), 10, 3);
+		database.inRollbackTransaction(() -> repository.delete(ids.get(0)));
+		assertFalse(strategy.isPendingDeletion(ids.get(0)));
+		assertEquals(0, strategy.purgeAll());
+		assertEquals(3, database.countItems());
+	}
+
+	/**
+	 * Test method for {@link DeferredDeleteStrategy#purgeBatch()} that purges at most the batch
+	 * size.
+	 */
+	@Test
+	public void testPurgeBatch()
+	{
+		strategy = install(newTaskExecutor(), 2, 3);
+		ids.forEach(repository::delete);
+		assertEquals(3, strategy.getPendingCount());
+		assertEquals(2, strategy.purgeBatch());
+		assertEquals(1, database.countItems());
+		assertEquals(1, strategy.purgeBatch());
+		assertEquals(0, strategy.purgeBatch());
+		assertEquals(0, database.countItems());
+		assertEquals(0, strategy.getPendingCount());
+	}
+
+	/**
+	 * Test method for {@link DeferredDeleteStrategy#purgeBatch()} where every purge fails, so the
+	 * entity is given up after the maximum number of attempts.
+	 */
+	@Test
+	public void testPurgeBatchWithFailingPurge()
+	{
+		strategy = install(new TransactionalTaskExecutor(new FailingTransactionManager(),
+			Runnable::run), 10, 2);
+		repository.delete(ids.get(0));
+
+		assertEquals(0, strategy.purgeBatch());
+		assertTrue(strategy.isPendingDeletion(ids.get(0)));
+		assertTrue(failedIds.isEmpty());
+
+		assertEquals(0, strategy.purgeBatch());
+		assertFalse(strategy.isPendingDeletion(ids.get(0)));
+		assertEquals(Collections.singletonList(ids.get(0)), failedIds);
+		assertEquals(0, strategy.purgeBatch());
+		assertEquals(3, database.countItems());
+	}
+
+	/**
+	 * Creates a new {@link DeferredDeleteStrategy} that is not started and installs it in the
+	 * repository.
+	 *
+	 * @param taskExecutor
+	 *            the task executor
+	 * @param batchSize
+	 *            the batch size
+	 * @param maxAttempts
+	 *            the maximum number of attempts
+	 * @return the installed {@link DeferredDeleteStrategy}
+	 */
+	private DeferredDeleteStrategy<TestItem, Integer> install(
+		final TransactionalTaskExecutor taskExecutor, final int batchSize, final int maxAttempts)
+	{
+		final DeferredDeleteStrategy<TestItem, Integer> deleteStrategy =
+			new DeferredDeleteStrategy<>(repository, taskExecutor, batchSize, Duration.ofHours(1),
+				() -> true, maxAttempts, (id, exception) -> failedIds.add(id));
+		repository.setDeleteStrategy(deleteStrategy);
+		return deleteStrategy;
+	}
+
+	/**
+	 * Factory method for create a new {@link TransactionalTaskExecutor} that runs the tasks in the
+	 * calling thread.
+	 *
+	 * @return the new {@link TransactionalTaskExecutor}
+	 */
+	private TransactionalTaskExecutor newTaskExecutor()
+	{
+		return new TransactionalTaskExecutor(database.getTransactionManager(), Runnable::run);
+	}
+
+	/**
+	 * The class {@link FailingTransactionManager} can not create any transaction.
+	 */
+	private static final class FailingTransactionManager implements PlatformTransactionManager
+	{
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void commit(final TransactionStatus status)
+		{
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public TransactionStatus getTransaction(final TransactionDefinition definition)
+		{
+			throw new CannotCreateTransactionException("Transactions are not available");
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void rollback(final TransactionStatus status)
+		{
+		}
+
+	}
+
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import lombok.Getter;
+
+/**
+ * The class {@link TestDatabase} sets up an embedded in memory h2 database with the entity manager
+ * factory and the transaction manager for the repository and strategy tests. The annotation
+ * {@link org.springframework.transaction.annotation.Transactional} is not evaluated without a
+ * spring context, so the tests start their transactions with the methods of this class.
+ */
+public class TestDatabase implements AutoCloseable
+{
+
+	/** The data source. */
+	@Getter
+	private final DataSource dataSource;
+
+	/** The entity manager factory. */
+	@Getter
+	private final EntityManagerFactory entityManagerFactory;
+
+	/** The jdbc template. */
+	@Getter
+	private final JdbcTemplate jdbcTemplate;
+
+	/** The transaction manager. */
+	@Getter
+	private final JpaTransactionManager transactionManager;
+
+	/** The transaction template. */
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Instantiates a new {@link TestDatabase} with a new empty in memory database.
+	 */
+	public TestDatabase()
+	{
+		this(new Properties());
+	}
+
+	/**
+	 * Instantiates a new {@link TestDatabase} with a new empty in memory database and the given
+	 * additional jpa properties, for instance for the second level cache.
+	 *
+	 * @param additionalJpaProperties
+	 *            the additional jpa properties
+	 */
+	public TestDatabase(final Properties additionalJpaProperties)
+	{
+		final DriverManagerDataSource driverManagerDataSource = new DriverManagerDataSource();
+		driverManagerDataSource.setDriverClassName("org.h2.Driver");
+		driverManagerDataSource
+			.setUrl("jdbc:h2:mem:test" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+		driverManagerDataSource.setUsername("sa");
+		driverManagerDataSource.setPassword("");
+		this.dataSource = driverManagerDataSource;
+
+		final HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+		vendorAdapter.setDatabase(Database.H2);
+		vendorAdapter.setShowSql(false);
+		final Properties jpaProperties = new Properties();
+		jpaProperties.setProperty("hibernate.hbm2ddl.auto", "create");
+		jpaProperties.putAll(additionalJpaProperties);
+		final LocalContainerEntityManagerFactoryBean factoryBean =
+			new LocalContainerEntityManagerFactoryBean();
+		factoryBean.setPersistenceUnitName("test");
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setPackagesToScan(TestItem.class.getPackage().getName());
+		factoryBean.setJpaVendorAdapter(vendorAdapter);
+		factoryBean.setJpaProperties(jpaProperties);
+		factoryBean.afterPropertiesSet();
+		this.entityManagerFactory = factoryBean.getObject();
+
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionManager = new JpaTransactionManager(entityManagerFactory);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close()
+	{
+		entityManagerFactory.close();
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	/**
+	 * Connects the given repository with this database.
+	 *
+	 * @param <R>
+	 *            the generic type of the repository
+	 * @param repository
+	 *            the repository
+	 * @return the given repository
+	 */
+	public <R extends AbstractRepository<?, ?>> R connect(final R repository)
+	{
+		repository.setEntityManager(
+			SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+		repository.setDataSource(dataSource);
+		repository.setJdbcTemplate(jdbcTemplate);
+		return repository;
+	}
+
+	/**
+	 * Counts the rows of the table of the test items with jdbc.
+	 *
+	 * @return the number of rows
+	 */
+	public int countItems()
+	{
+		return jdbcTemplate.queryForObject("select count(*) from test_items", Integer.class);
+	}
+
+	/**
+	 * Finds the name of the test item with the given id with jdbc.
+	 *
+	 * @param id
+	 *            the id
+	 * @return the name
+	 */
+	public String findName(final Integer id)
+	{
+		return jdbcTemplate.queryForObject("select name from test_items where id = ?",
+			String.class, id);
+	}
+
+	/**
+	 * Executes the given action in a new transaction.
+	 *
+	 * @param <R>
+	 *            the generic type of the result
+	 * @param action
+	 *            the action
+	 * @return the result of the action
+	 */
+	public <R> R inTransaction(final Supplier<R> action)
+	{
+		return transactionTemplate.execute(status -> action.get());
+	}
+
+	/**
+	 * Executes the given action in a new transaction.
+	 *
+	 * @param action
+	 *            the action
+	 */
+	public void inTransaction(final Runnable action)
+	{
+		transactionTemplate.execute(status -> {
+			action.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Executes the given action in a new transaction that is rolled back.
+	 *
+	 * @param action
+	 *            the action
+	 */
+	public void inRollbackTransaction(final Runnable action)
+	{
+		transactionTemplate.execute(status -> {
+			action.run();
+			status.setRollbackOnly();
+			return null;
+		});
+	}
+
+	/**
+	 * Inserts the given number of new test items with the given repository in one transaction.
+	 *
+	 * @param repository
+	 *            the repository
+	 * @param count
+	 *            the number of test items
+	 * @return the ids of the inserted test items
+	 */
+	public List<Integer> insertItems(final AbstractRepository<TestItem, Integer> repository,
+		final int count)
+	{
+		final List<TestItem> items = newItems(count);
+		return inTransaction(() -> repository.save(items));
+	}
+
+	/**
+	 * Factory method for create the given number of new test items that are not persisted.
+	 *
+	 * @param count
+	 *            the number of test items
+	 * @return the new test items
+	 */
+	public List<TestItem> newItems(final int count)
+	{
+		final List<TestItem> items = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			items.add(TestItem.newTestItem(i));
+		}
+		return items;
+	}
+
+}
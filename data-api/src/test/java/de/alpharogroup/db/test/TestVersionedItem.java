@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.test;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The entity class {@link TestVersionedItem} is the entity with an optimistic lock version for
+ * the repository and strategy tests.
+ */
+@Entity
+@Table(name = "test_versioned_items")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TestVersionedItem extends BaseEntity<Integer>
+{
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The name. */
+	@Column(name = "name", length = 64)
+	private String name;
+
+	/** The quantity. */
+	@Column(name = "quantity")
+	private int quantity;
+
+	/** The version. */
+	@Version
+	@Column(name = "version")
+	private Integer version;
+
+	/**
+	 * Factory method for create a new {@link TestVersionedItem} with generated values from the
+	 * given sequence number.
+	 *
+	 * @param sequenceNumber
+	 *            the sequence number
+	 * @return the new {@link TestVersionedItem}
+	 */
+	public static TestVersionedItem newTestVersionedItem(final int sequenceNumber)
+	{
+		final TestVersionedItem item = new TestVersionedItem();
+		item.setName("item-" + sequenceNumber);
+		item.setQuantity(sequenceNumber);
+		return item;
+	}
+
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.tracking;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.OptimisticLockException;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+import de.alpharogroup.db.test.TestVersionedItem;
+
+/**
+ * The unit test class for the class {@link ChangeTracker}.
+ */
+public class ChangeTrackerTest
+{
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The ids of the inserted test items. */
+	private List<Integer> ids;
+
+	/** The repository with the change tracker. */
+	private AbstractRepository<TestItem, Integer> repository;
+
+	/**
+	 * Sets up a new database with inserted test items and a repository with a change tracker.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		repository = database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public ChangeTracker<TestItem, Integer> newChangeTracker()
+			{
+				return new ChangeTracker<>(this, 100);
+			}
+		});
+		ids = database.insertItems(repository, 3);
+	}
+
+	/**
+	 * Closes the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		database.close();
+	}
+
+	/**
+	 * Test method for {@link ChangeTracker#getChangedAttributes(de.alpharogroup.db.entity.BaseEntity)}
+	 * of a loaded entity.
+	 */
+	@Test
+	public void testGetChangedAttributes()
+	{
+		database.inTransaction(() -> {
+			final ChangeTracker<TestItem, Integer> tracker = repository.getChangeTracker();
+			final TestItem item = repository.get(ids.get(0));
+			assertTrue(tracker.getChangedAttributes(item).isEmpty());
+			item.setName("changed");
+			final Map<String, Object> actual = tracker.getChangedAttributes(item);
+			assertEquals(Collections.singletonMap("name", "changed"), actual);
+			assertTrue(tracker.isPartialUpdatePossible(item, actual));
+		});
+	}
+
+	/**
+	 * Test method for {@link ChangeTracker#getChangedAttributes(de.alpharogroup.db.entity.BaseEntity)}
+	 * of entities without a valid snapshot.
+	 */
+	@Test
+	public void testGetChangedAttributesWithoutSnapshot()
+	{
+		final ChangeTracker<TestItem, Integer> tracker = repository.getChangeTracker();
+		final TestItem item = database.inTransaction(() -> {
+			final TestItem loaded = repository.get(ids.get(0));
+			final TestItem notLoaded = repository.getEntityManager().find(TestItem.class,
+				ids.get(1));
+			assertNull(tracker.getChangedAttributes(notLoaded));
+			tracker.remove(loaded.getId());
+			assertNull(tracker.getChangedAttributes(loaded));
+			tracker.snapshot(loaded);
+			assertTrue(tracker.getChangedAttributes(loaded).isEmpty());
+			return loaded;
+		});
+		// the snapshots of entities without version are bound to the transaction
+		assertNull(tracker.getChangedAttributes(item));
+		assertNull(tracker.getChangedAttributes(TestItem.newTestItem(7)));
+	}
+
+	/**
+	 * Test method for {@link ChangeTracker#isPartialUpdatePossible(de.alpharogroup.db.entity.BaseEntity, Map)}
+	 * with disabled partial updates.
+	 */
+	@Test
+	public void testIsPartialUpdatePossibleWithDisabledPartialUpdates()
+	{
+		final ChangeTracker<TestItem, Integer> tracker = new ChangeTracker<>(repository, 100,
+			ChangeTracker.DEFAULT_EXPIRE_AFTER_WRITE, false);
+		final TestItem item = TestItem.newTestItem(0);
+		assertFalse(
+			tracker.isPartialUpdatePossible(item, Collections.singletonMap("name", "changed")));
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#update(de.alpharogroup.db.entity.BaseEntity)} that
+	 * writes only the changed attribute of a detached entity, so a concurrent change of another
+	 * attribute is not overwritten.
+	 */
+	@Test
+	public void testUpdateWritesOnlyChangedAttribute()
+	{
+		database.inTransaction(() -> {
+			final TestItem item = repository.get(ids.get(0));
+			repository.getEntityManager().detach(item);
+			database.getJdbcTemplate()
+				.update("update test_items set quantity = 42 where id = ?", item.getId());
+			item.setName("changed");
+			repository.update(item);
+		});
+		assertEquals("changed", database.findName(ids.get(0)));
+		assertEquals(Integer.valueOf(42), database.getJdbcTemplate().queryForObject(
+			"select quantity from test_items where id = ?", Integer.class, ids.get(0)));
+		assertEquals("item-1", database.findName(ids.get(1)));
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#update(de.alpharogroup.db.entity.BaseEntity)} that
+	 * writes only the changed attribute of a detached versioned entity with a snapshot of a
+	 * previous transaction and increments the version.
+	 */
+	@Test
+	public void testUpdateWithVersionWritesOnlyChangedAttribute()
+	{
+		final AbstractRepository<TestVersionedItem, Integer> versionedRepository =
+			newVersionedRepository();
+		final Integer id = database.inTransaction(
+			() -> versionedRepository.save(TestVersionedItem.newTestVersionedItem(0)));
+		final TestVersionedItem item = database.inTransaction(() -> versionedRepository.get(id));
+		assertEquals(0, item.getVersion().intValue());
+		database.getJdbcTemplate()
+			.update("update test_versioned_items set quantity = 42 where id = ?", id);
+		item.setName("changed");
+		database.inTransaction(() -> versionedRepository.update(item));
+		assertEquals(1, item.getVersion().intValue());
+		final Map<String, Object> row = database.getJdbcTemplate().queryForMap(
+			"select name, quantity, version from test_versioned_items where id = ?", id);
+		assertEquals("changed", row.get("NAME"));
+		assertEquals(42, row.get("QUANTITY"));
+		assertEquals(1, row.get("VERSION"));
+		assertTrue(versionedRepository.getChangeTracker().getChangedAttributes(item).isEmpty());
+	}
+
+	/**
+	 * Test method for {@link AbstractRepository#update(de.alpharogroup.db.entity.BaseEntity)} with
+	 * a detached versioned entity that was updated by another transaction in the meantime.
+	 */
+	@Test(expectedExceptions = OptimisticLockException.class)
+	public void testUpdateWithVersionOfAnotherTransaction()
+	{
+		final AbstractRepository<TestVersionedItem, Integer> versionedRepository =
+			newVersionedRepository();
+		final Integer id = database.inTransaction(
+			() -> versionedRepository.save(TestVersionedItem.newTestVersionedItem(0)));
+		final TestVersionedItem item = database.inTransaction(() -> versionedRepository.get(id));
+		database.getJdbcTemplate().update(
+			"update test_versioned_items set quantity = 42, version = version + 1 where id = ?",
+			id);
+		item.setName("changed");
+		database.inTransaction(() -> versionedRepository.update(item));
+	}
+
+	/**
+	 * Factory method for create a new repository of the versioned test entity with a change
+	 * tracker that is connected with the test database.
+	 *
+	 * @return the new repository
+	 */
+	private AbstractRepository<TestVersionedItem, Integer> newVersionedRepository()
+	{
+		return database.connect(new AbstractRepository<TestVersionedItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public ChangeTracker<TestVersionedItem, Integer> newChangeTracker()
+			{
+				return new ChangeTracker<>(this, 100);
+			}
+		});
+	}
+
+}
@@ -0,0 +1,354 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.writebehind;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.async.TransactionalTaskExecutor;
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.test.TestDatabase;
+import de.alpharogroup.db.test.TestItem;
+
+/**
+ * The unit test class for the class {@link WriteBehindBuffer}.
+ */
+public class WriteBehindBufferTest
+{
+
+	/** The Constant TOO_LONG_NAME that does not fit in the name column. */
+	private static final String TOO_LONG_NAME = new String(new char[65]).replace('\0', 'x');
+
+	/** The buffer under test. */
+	private WriteBehindBuffer<TestItem, Integer> buffer;
+
+	/** The test database. */
+	private TestDatabase database;
+
+	/** The detached test items that are inserted in the database. */
+	private List<TestItem> items;
+
+	/** The listener that records the notifications of the buffer. */
+	private RecordingListener listener;
+
+	/** The repository with the default strategies. */
+	private AbstractRepository<TestItem, Integer> repository;
+
+	/**
+	 * Sets up a new database with inserted test items.
+	 */
+	@BeforeMethod
+	public void setUp()
+	{
+		database = new TestDatabase();
+		repository = database.connect(new AbstractRepository<TestItem, Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+		});
+		database.insertItems(repository, 4);
+		items = database.inTransaction(() -> repository.findPageAfter(null, 4).getContent());
+		listener = new RecordingListener();
+	}
+
+	/**
+	 * Closes the buffer and the database.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		if (buffer != null)
+		{
+			buffer.close();
+			buffer = null;
+		}
+		database.close();
+	}
+
+	/**
+	 * Test method for {@link WriteBehindBuffer#close()} while other threads are writing. Every
+	 * write that is accepted before the buffer is closed has to be written with the final flush
+	 * and every later write has to be rejected with an {@link IllegalStateException}.
+	 *
+	 * @throws InterruptedException
+	 *             if the current thread is interrupted while waiting for the writers
+	 */
+	@Test
+	public void testCloseWithConcurrentWrites() throws InterruptedException
+	{
+		buffer = newBuffer(10, 1, 3, 100);
+		final CountDownLatch written = new CountDownLatch(items.size());
+		final ExecutorService executorService = Executors.newFixedThreadPool(items.size());
+		try
+		{
+			// every writer owns one id and returns the last quantity that was accepted
+			final List<CompletableFuture<Integer>> writers = items.stream()
+				.map(item -> CompletableFuture.supplyAsync(() -> {
+					int accepted = 0;
+					for (int quantity = 1;; quantity++)
+					{
+						final TestItem copy = new TestItem();
+						copy.setId(item.getId());
+						copy.setName(item.getName());
+						copy.setQuantity(quantity);
+						try
+						{
+							buffer.write(copy);
+						}
+						catch (final IllegalStateException e)
+						{
+							return accepted;
+						}
+						accepted = quantity;
+						if (accepted == 10)
+						{
+							written.countDown();
+						}
+					}
+				}, executorService)).collect(Collectors.toList());
+			written.await();
+			buffer.close();
+
+			for (int i = 0; i < items.size(); i++)
+			{
+				final Integer accepted = writers.get(i).join();
+				final Integer actual = database.getJdbcTemplate().queryForObject(
+					"select quantity from test_items where id = ?", Integer.class,
+					items.get(i).getId());
+				assertEquals(accepted, actual);
+			}
+			assertEquals(0, buffer.getPendingCount());
+		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test method for {@link WriteBehindBuffer#destroy()} that flushes the buffered entities.
+	 */
+	@Test
+	public void testDestroy()
+	{
+		buffer = newBuffer(10, 10, 3, 100);
+		items.get(0).setName("destroyed");
+		buffer.write(items.get(0));
+		buffer.destroy();
+
+		assertEquals(0, buffer.getPendingCount());
+		assertEquals("destroyed", database.findName(items.get(0).getId()));
+	}
+
+	/**
+	 * Test method for {@link WriteBehindBuffer#flush()} where one entity of the chunk can not be
+	 * written.
+	 */
+	@Test
+	public void testFlushWithFailingEntity()
+	{
+		buffer = newBuffer(10, 10, 2, 10);
+		items.get(0).setName("changed-0");
+		items.get(1).setName(TOO_LONG_NAME);
+		items.get(2).setName("changed-2");
+		buffer.write(items.get(0));
+		buffer.write(items.get(1));
+		buffer.write(items.get(2));
+
+		assertEquals(2, buffer.flush());
+		assertEquals("changed-0", database.findName(items.get(0).getId()));
+		assertEquals("item-1", database.findName(items.get(1).getId()));
+		assertEquals("changed-2", database.findName(items.get(2).getId()));
+		assertEquals(1, buffer.getPendingCount());
+		assertSame(items.get(1), buffer.getPending(items.get(1).getId()));
+		assertEquals(1, listener.failed.size());
+		assertSame(items.get(1), listener.failed.get(0));
+		assertEquals(0, listener.abandoned.size());
+
+		// the second failed attempt reaches the maximum attempts and gives up the entity
+		assertEquals(0, buffer.flush());
+		assertEquals(0, buffer.getPendingCount());
+		assertEquals(1, listener.abandoned.size());
+		assertSame(items.get(1), listener.abandoned.get(0));
+		assertEquals("item-1", database.findName(items.get(1).getId()));
+		assertEquals(2, buffer.getFlushedCount());
+	}
+
+	/**
+	 * Test method for {@link WriteBehindBuffer#write(de.alpharogroup.db.entity.BaseEntity)} that
+	 * coalesces the writes of the same id.
+	 */
+	@Test
+	public void testWrite()
+	{
+		buffer = newBuffer(10, 10, 3, 100);
+		final TestItem first = items.get(0);
+		first.setName("first");
+		buffer.write(first);
+		final TestItem latest = database.inTransaction(() -> repository.get(first.getId()));
+		latest.setName("latest");
+		buffer.write(latest);
+		buffer.write(items.get(1));
+
+		assertEquals(3, buffer.getWriteCount());
+		assertEquals(1, buffer.getCoalescedCount());
+		assertEquals(2, buffer.getPendingCount());
+		assertSame(latest, buffer.get(first.getId()));
+		assertEquals("item-0", database.findName(first.getId()));
+
+		assertEquals(2, buffer.flush());
+		assertEquals(0, buffer.getPendingCount());
+		assertEquals("latest", database.findName(first.getId()));
+		assertEquals(2, listener.flushed.size());
+		assertNull(buffer.getPending(first.getId()));
+	}
+
+	/**
+	 * Test method for {@link WriteBehindBuffer#write(de.alpharogroup.db.entity.BaseEntity)} that
+	 * flushes synchronous if the hard limit is reached.
+	 */
+	@Test
+	public void testWriteAtHardLimit()
+	{
+		buffer = newBuffer(10, 2, 3, 2);
+		items.forEach(item -> item.setQuantity(item.getQuantity() + 100));
+		items.forEach(buffer::write);
+		buffer.close();
+		final Integer actual = database.getJdbcTemplate()
+			.queryForObject("select sum(quantity) from test_items", Integer.class);
+		assertEquals(Integer.valueOf(406), actual);
+	}
+
+	/**
+	 * Test method for {@link WriteBehindBuffer#write(de.alpharogroup.db.entity.BaseEntity)} that
+	 * is rejected because the buffer is still full after the synchronous flush.
+	 */
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testWriteAtHardLimitWithFailingEntities()
+	{
+		buffer = newBuffer(10, 2, 10, 2);
+		items.get(0).setName(TOO_LONG_NAME);
+		items.get(1).setName(TOO_LONG_NAME);
+		buffer.write(items.get(0));
+		buffer.write(items.get(1));
+		buffer.write(items.get(2));
+	}
+
+	/**
+	 * Test method for {@link WriteBehindBuffer#write(de.alpharogroup.db.entity.BaseEntity)} after
+	 * the buffer is closed.
+	 */
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testWriteAfterClose()
+	{
+		buffer = newBuffer(10, 10, 3, 100);
+		buffer.close();
+		buffer.write(items.get(0));
+	}
+
+	/**
+	 * Test method for {@link WriteBehindBuffer#write(de.alpharogroup.db.entity.BaseEntity)} with
+	 * an entity without id.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testWriteWithoutId()
+	{
+		buffer = newBuffer(10, 10, 3, 100);
+		buffer.write(TestItem.newTestItem(0));
+	}
+
+	/**
+	 * Factory method for create a new {@link WriteBehindBuffer} with a flush interval that does
+	 * not trigger a flush while the test is running.
+	 *
+	 * @param batchSize
+	 *            the batch size
+	 * @param maxSize
+	 *            the maximum size
+	 * @param maxAttempts
+	 *            the maximum number of attempts
+	 * @param hardLimit
+	 *            the hard limit
+	 * @return the new {@link WriteBehindBuffer}
+	 */
+	private WriteBehindBuffer<TestItem, Integer> newBuffer(final int batchSize, final int maxSize,
+		final int maxAttempts, final int hardLimit)
+	{
+		return new WriteBehindBuffer<>(repository,
+			new TransactionalTaskExecutor(database.getTransactionManager(), Runnable::run),
+			batchSize, maxSize, Duration.ofHours(1), listener, maxAttempts, hardLimit);
+	}
+
+	/**
+	 * The class {@link RecordingListener} records the notifications of the buffer.
+	 */
+	private static final class RecordingListener implements WriteBehindListener<TestItem>
+	{
+
+		/** The entities that are given up. */
+		private final List<TestItem> abandoned = new ArrayList<>();
+
+		/** The entities of the failed flushes. */
+		private final List<TestItem> failed = new ArrayList<>();
+
+		/** The flushed entities. */
+		private final List<TestItem> flushed = new ArrayList<>();
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized void onFlushAbandoned(final TestItem entity,
+			final Throwable throwable)
+		{
+			abandoned.add(entity);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized void onFlushed(final List<TestItem> entities)
+		{
+			flushed.addAll(entities);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized void onFlushFailed(final List<TestItem> entities,
+			final Throwable throwable)
+		{
+			failed.addAll(entities);
+		}
+
+	}
+
+}
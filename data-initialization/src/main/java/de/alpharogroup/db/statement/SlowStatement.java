@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.statement;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The class {@link SlowStatement} holds one executed sql statement with its duration and the
+ * method that executed it.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SlowStatement
+{
+
+	/** The number of rows of a batch execution or 1 for a single execution. */
+	private final int batchSize;
+
+	/** The number of bound parameters of one row. */
+	private final int bindCount;
+
+	/** The calling method, for instance the repository method, or null if not resolved. */
+	private final String caller;
+
+	/** The duration in nanoseconds. */
+	private final long durationNanos;
+
+	/** The time in milliseconds when the statement was executed. */
+	private final long executedAt;
+
+	/** The sql string. */
+	private final String sql;
+
+	/**
+	 * Gets the duration in milliseconds.
+	 *
+	 * @return the duration in milliseconds
+	 */
+	public long getDurationMillis()
+	{
+		return durationNanos / 1_000_000;
+	}
+
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.statement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+import lombok.Getter;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link SlowStatementLog} receives the durations of all executed sql statements from a
+ * {@link StatementTimingDataSource}. Statements over the configured threshold are logged with the
+ * calling method and the slowest statements are kept in a table of fixed size. Statements under
+ * the threshold cost only a comparison and a counter increment.
+ */
+@Log
+public class SlowStatementLog
+{
+
+	/** The Constant DEFAULT_THRESHOLD_MILLIS. */
+	public static final long DEFAULT_THRESHOLD_MILLIS = 500;
+
+	/** The Constant DEFAULT_TOP_SIZE. */
+	public static final int DEFAULT_TOP_SIZE = 20;
+
+	/** The Constant IGNORED_PACKAGES for resolving the calling method. */
+	private static final String[] IGNORED_PACKAGES = { "java.", "javax.", "jdk.", "sun.",
+			"com.sun.", "org.hibernate.", "org.springframework.", "org.h2.", "com.zaxxer.",
+			"org.apache.", "de.alpharogroup.db.statement." };
+
+	/** The number of executed statements. */
+	private final LongAdder executionCount = new LongAdder();
+
+	/** The number of statements over the threshold. */
+	private final LongAdder slowExecutionCount = new LongAdder();
+
+	/** The slowest statements with the fastest one at the head. */
+	private final PriorityQueue<SlowStatement> slowestStatements;
+
+	/** The threshold in nanoseconds. */
+	private final long thresholdNanos;
+
+	/** The maximum number of kept slowest statements. */
+	@Getter
+	private final int topSize;
+
+	/**
+	 * Instantiates a new {@link SlowStatementLog} with the default threshold and table size.
+	 */
+	public SlowStatementLog()
+	{
+		this(DEFAULT_THRESHOLD_MILLIS, DEFAULT_TOP_SIZE);
+	}
+
+	/**
+	 * Instantiates a new {@link SlowStatementLog}.
+	 *
+	 * @param thresholdMillis
+	 *            the threshold in milliseconds over that a statement is logged and kept
+	 * @param topSize
+	 *            the maximum number of kept slowest statements
+	 */
+	public SlowStatementLog(final long thresholdMillis, final int topSize)
+	{
+		if (topSize < 1)
+		{
+			throw new IllegalArgumentException("Given top size must be greater than 0");
+		}
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.topSize = topSize;
+		this.slowestStatements = new PriorityQueue<>(topSize,
+			Comparator.comparingLong(SlowStatement::getDurationNanos));
+	}
+
+	/**
+	 * Gets the number of executed statements.
+	 *
+	 * @return the number of executed statements
+	 */
+	public long getExecutionCount()
+	{
+		return executionCount.sum();
+	}
+
+	/**
+	 * Gets the number of statements over the threshold.
+	 *
+	 * @return the number of statements over the threshold
+	 */
+	public long getSlowExecutionCount()
+	{
+		return slowExecutionCount.sum();
+	}
+
+	/**
+	 * Gets the slowest statements ordered by their duration with the slowest first.
+	 *
+	 * @return the slowest statements
+	 */
+	public List<SlowStatement> getSlowestStatements()
+	{
+		final List<SlowStatement> statements;
+		synchronized (slowestStatements)
+		{
+			statements = new ArrayList<>(slowestStatements);
+		}
+		statements.sort(Comparator.comparingLong(SlowStatement::getDurationNanos).reversed());
+		return statements;
+	}
+
+	/**
+	 * Gets the threshold in milliseconds.
+	 *
+	 * @return the threshold in milliseconds
+	 */
+	public long getThresholdMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+	}
+
+	/**
+	 * Records one executed statement. If the duration is over the threshold the statement is
+	 * logged with the calling method and kept if it belongs to the slowest statements.
+	 *
+	 * @param sql
+	 *            the sql string
+	 * @param bindCount
+	 *            the number of bound parameters of one row
+	 * @param batchSize
+	 *            the number of rows of a batch execution or 1 for a single execution
+	 * @param durationNanos
+	 *            the duration in nanoseconds
+	 */
+	public void record(final String sql, final int bindCount, final int batchSize,
+		final long durationNanos)
+	{
+		executionCount.increment();
+		if (durationNanos < thresholdNanos)
+		{
+			return;
+		}
+		slowExecutionCount.increment();
+		final SlowStatement statement = new SlowStatement(batchSize, bindCount, getCaller(),
+			durationNanos, System.currentTimeMillis(), sql);
+		log.log(Level.WARNING,
+			"Slow statement with {0} ms, {1} binds and batch size {2} from {3}: {4}",
+			new Object[] { statement.getDurationMillis(), bindCount, batchSize,
+					statement.getCaller(), sql });
+		synchronized (slowestStatements)
+		{
+			if (slowestStatements.size() < topSize)
+			{
+				slowestStatements.add(statement);
+			}
+			else if (slowestStatements.peek().getDurationNanos() < durationNanos)
+			{
+				slowestStatements.poll();
+				slowestStatements.add(statement);
+			}
+		}
+	}
+
+	/**
+	 * Removes all kept statements and resets the counters.
+	 */
+	public void reset()
+	{
+		synchronized (slowestStatements)
+		{
+			slowestStatements.clear();
+		}
+		executionCount.reset();
+		slowExecutionCount.reset();
+	}
+
+	/**
+	 * Resolves the calling method from the stack of the current thread. Frames of the jdk, the
+	 * frameworks, the drivers and the statement timing and synthetic lambda frames are skipped and
+	 * the first repository frame is preferred.
+	 *
+	 * @return the calling method or null if no calling method is found
+	 */
+	private static String getCaller()
+	{
+		String caller = null;
+		for (final StackTraceElement element : Thread.currentThread().getStackTrace())
+		{
+			final String className = element.getClassName();
+			if (isIgnored(className) || element.getMethodName().startsWith("lambda$"))
+			{
+				continue;
+			}
+			final String frame = className + "." + element.getMethodName() + ":"
+				+ element.getLineNumber();
+			if (className.contains("Repository"))
+			{
+				return frame;
+			}
+			if (caller == null)
+			{
+				caller = frame;
+			}
+		}
+		return caller;
+	}
+
+	/**
+	 * Checks if the given class name belongs to an ignored package or a generated proxy.
+	 *
+	 * @param className
+	 *            the class name
+	 * @return true, if the class is ignored, otherwise false
+	 */
+	private static boolean isIgnored(final String className)
+	{
+		if (className.contains("$Proxy") || className.contains("$$"))
+		{
+			return true;
+		}
+		for (final String ignoredPackage : IGNORED_PACKAGES)
+		{
+			if (className.startsWith(ignoredPackage))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.statement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+/**
+ * The class {@link StatementTimingDataSource} wraps a {@link DataSource} with dynamic proxies for
+ * the {@link Connection}, {@link Statement}, {@link PreparedStatement} and
+ * {@link CallableStatement} objects. Every execution is timed and reported with its sql string
+ * and its number of bound parameters to a {@link SlowStatementLog}.
+ */
+@UtilityClass
+public class StatementTimingDataSource
+{
+
+	/**
+	 * Wraps the given {@link DataSource}, so all statements of its connections are timed and
+	 * reported to the given {@link SlowStatementLog}.
+	 *
+	 * @param dataSource
+	 *            the data source to wrap
+	 * @param slowStatementLog
+	 *            the slow statement log
+	 * @return the wrapped {@link DataSource}
+	 */
+	public static DataSource wrap(@NonNull final DataSource dataSource,
+		@NonNull final SlowStatementLog slowStatementLog)
+	{
+		return newProxy(DataSource.class, dataSource, (proxy, method, args) -> {
+			final Object result = invoke(dataSource, method, args);
+			if (result instanceof Connection)
+			{
+				return wrapConnection((Connection)result, slowStatementLog);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Invokes the given method on the given target and unwraps the exception of the target.
+	 *
+	 * @param target
+	 *            the target
+	 * @param method
+	 *            the method
+	 * @param args
+	 *            the arguments
+	 * @return the result of the method
+	 * @throws Throwable
+	 *             the exception of the target
+	 */
+	private static Object invoke(final Object target, final Method method, final Object[] args)
+		throws Throwable
+	{
+		try
+		{
+			return method.invoke(target, args);
+		}
+		catch (final InvocationTargetException e)
+		{
+			throw e.getTargetException();
+		}
+	}
+
+	/**
+	 * Factory method for create a new dynamic proxy of the given interface.
+	 *
+	 * @param <I>
+	 *            the generic type of the interface
+	 * @param type
+	 *            the interface
+	 * @param target
+	 *            the proxied target
+	 * @param handler
+	 *            the invocation handler
+	 * @return the new dynamic proxy
+	 */
+	private static <I> I newProxy(final Class<I> type, final Object target,
+		final InvocationHandler handler)
+	{
+		return type.cast(Proxy.newProxyInstance(target.getClass().getClassLoader() != null
+			? target.getClass().getClassLoader()
+			: StatementTimingDataSource.class.getClassLoader(), new Class<?>[] { type },
+			handler));
+	}
+
+	/**
+	 * Wraps the given {@link Connection}, so the statements created from it are timed.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @param slowStatementLog
+	 *            the slow statement log
+	 * @return the wrapped {@link Connection}
+	 */
+	private static Connection wrapConnection(final Connection connection,
+		final SlowStatementLog slowStatementLog)
+	{
+		return newProxy(Connection.class, connection, (proxy, method, args) -> {
+			final Object result = invoke(connection, method, args);
+			final String name = method.getName();
+			if (result instanceof CallableStatement)
+			{
+				return wrapStatement(CallableStatement.class, (Statement)result, (String)args[0],
+					slowStatementLog);
+			}
+			if (result instanceof PreparedStatement && name.startsWith("prepare"))
+			{
+				return wrapStatement(PreparedStatement.class, (Statement)result,
+					(String)args[0], slowStatementLog);
+			}
+			if (result instanceof Statement)
+			{
+				return wrapStatement(Statement.class, (Statement)result, null,
+					slowStatementLog);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Wraps the given {@link Statement}, so its executions are timed.
+	 *
+	 * @param <S>
+	 *            the generic type of the statement
+	 * @param type
+	 *            the interface of the statement
+	 * @param statement
+	 *            the statement
+	 * @param preparedSql
+	 *            the sql string of a prepared statement or null for a plain statement
+	 * @param slowStatementLog
+	 *            the slow statement log
+	 * @return the wrapped statement
+	 */
+	private static <S extends Statement> S wrapStatement(final Class<S> type,
+		final Statement statement, final String preparedSql,
+		final SlowStatementLog slowStatementLog)
+	{
+		return newProxy(type, statement, new StatementHandler(statement, preparedSql,
+			slowStatementLog));
+	}
+
+	/**
+	 * The class {@link StatementHandler} times the executions of one statement and counts its
+	 * bound parameters and batch rows.
+	 */
+	private static final class StatementHandler implements InvocationHandler
+	{
+
+		/** The sql strings of the batch of a plain statement. */
+		private final List<String> batchSql = new ArrayList<>();
+
+		/** The number of rows of the current batch. */
+		private int batchSize;
+
+		/** The highest parameter index that is bound since the last execution. */
+		private int bindCount;
+
+		/** The sql string of a prepared statement or null for a plain statement. */
+		private final String preparedSql;
+
+		/** The slow statement log. */
+		private final SlowStatementLog slowStatementLog;
+
+		/** The statement. */
+		private final Statement statement;
+
+		/**
+		 * Instantiates a new {@link StatementHandler}.
+		 *
+		 * @param statement
+		 *            the statement
+		 * @param preparedSql
+		 *            the sql string of a prepared statement or null for a plain statement
+		 * @param slowStatementLog
+		 *            the slow statement log
+		 */
+		StatementHandler(final Statement statement, final String preparedSql,
+			final SlowStatementLog slowStatementLog)
+		{
+			this.statement = statement;
+			this.preparedSql = preparedSql;
+			this.slowStatementLog = slowStatementLog;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args)
+			throws Throwable
+		{
+			final String name = method.getName();
+			if (name.startsWith("set") && args != null && 1 < args.length
+				&& args[0] instanceof Integer)
+			{
+				bindCount = Math.max(bindCount, (Integer)args[0]);
+			}
+			else if ("clearParameters".equals(name))
+			{
+				bindCount = 0;
+			}
+			else if ("addBatch".equals(name))
+			{
+				batchSize++;
+				if (args != null && args.length == 1)
+				{
+					batchSql.add((String)args[0]);
+				}
+			}
+			else if ("clearBatch".equals(name))
+			{
+				batchSize = 0;
+				batchSql.clear();
+			}
+			else if (name.startsWith("execute"))
+			{
+				return execute(method, args);
+			}
+			return StatementTimingDataSource.invoke(statement, method, args);
+		}
+
+		/**
+		 * Executes the given execute method, times it and reports it to the slow statement
+		 * log.
+		 *
+		 * @param method
+		 *            the execute method
+		 * @param args
+		 *            the arguments
+		 * @return the result of the execution
+		 * @throws Throwable
+		 *             the exception of the statement
+		 */
+		private Object execute(final Method method, final Object[] args) throws Throwable
+		{
+			final boolean batch = method.getName().contains("Batch");
+			final String sql;
+			if (args != null && 0 < args.length && args[0] instanceof String)
+			{
+				sql = (String)args[0];
+			}
+			else if (batch && preparedSql == null)
+			{
+				sql = String.join("; ", batchSql);
+			}
+			else
+			{
+				sql = preparedSql;
+			}
+			final long start = System.nanoTime();
+			try
+			{
+				return StatementTimingDataSource.invoke(statement, method, args);
+			}
+			finally
+			{
+				slowStatementLog.record(sql, bindCount, batch ? batchSize : 1,
+					System.nanoTime() - start);
+				if (batch)
+				{
+					batchSize = 0;
+					batchSql.clear();
+				}
+			}
+		}
+
+	}
+
+}
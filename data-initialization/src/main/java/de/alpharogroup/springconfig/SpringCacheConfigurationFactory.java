@@ -26,6 +26,7 @@ import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.cache.interceptor.SimpleCacheErrorHandler;
 import org.springframework.cache.interceptor.SimpleCacheResolver;
 import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.cache.support.CompositeCacheManager;
 import org.springframework.core.io.ClassPathResource;
 
@@ -132,4 +133,20 @@ public class SpringCacheConfigurationFactory
 		return cacheManger;
 	}
 
+	/**
+	 * Factory method for create the new {@link JCacheCacheManager} object from the given JCache
+	 * (JSR-107) {@link javax.cache.CacheManager} object. With this the caches that are configured
+	 * in code for the hibernate second level cache can be shared with the spring cache
+	 * abstraction.
+	 *
+	 * @param cacheManager
+	 *            the JCache {@link javax.cache.CacheManager} object
+	 * @return the new {@link JCacheCacheManager}
+	 */
+	public static JCacheCacheManager newJCacheCacheManager(
+		final javax.cache.CacheManager cacheManager)
+	{
+		return new JCacheCacheManager(cacheManager);
+	}
+
 }
@@ -28,6 +28,9 @@ import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.Database;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 
+import de.alpharogroup.db.statement.SlowStatementLog;
+import de.alpharogroup.db.statement.StatementTimingDataSource;
+
 /**
  * A factory class for creating jpa configuration objects.
  * @deprecated use instead same name class in project spring-tool-extensions
@@ -54,6 +57,23 @@ public class SpringJpaFactory
 		return dataSource;
 	}
 
+	/**
+	 * Factory method for create the new {@link DataSource} object from the given
+	 * {@link DataSourceBean} object that times all executed statements and reports them to the
+	 * given {@link SlowStatementLog} object.
+	 *
+	 * @param dataSourceBean
+	 *            the {@link DataSourceBean} object
+	 * @param slowStatementLog
+	 *            the {@link SlowStatementLog} object
+	 * @return the new {@link DataSource}
+	 */
+	public static DataSource newDataSource(final DataSourceBean dataSourceBean,
+		final SlowStatementLog slowStatementLog)
+	{
+		return StatementTimingDataSource.wrap(newDataSource(dataSourceBean), slowStatementLog);
+	}
+
 	/**
 	 * Factory method for create the new {@link LocalContainerEntityManagerFactoryBean} object from
 	 * the given persistence unit name as {@link String} object, the {@link DataSource} object, the
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.statement;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import de.alpharogroup.db.test.TestStatementRepository;
+
+/**
+ * The unit test class for the class {@link SlowStatementLog}.
+ */
+public class SlowStatementLogTest
+{
+
+	/**
+	 * Test method for {@link SlowStatementLog#record(String, int, int, long)} that checks that the
+	 * first repository frame outside of lambda frames is reported as caller.
+	 */
+	@Test
+	public void testRecordWithRepositoryCaller()
+	{
+		final SlowStatementLog slowStatementLog = new SlowStatementLog(0, 5);
+		new TestStatementRepository().execute(() -> slowStatementLog.record("select 1", 0, 1,
+			TimeUnit.MILLISECONDS.toNanos(10)));
+		final List<SlowStatement> statements = slowStatementLog.getSlowestStatements();
+		assertEquals(1, statements.size());
+		assertTrue(statements.get(0).getCaller(), statements.get(0).getCaller()
+			.startsWith(TestStatementRepository.class.getName() + ".execute:"));
+	}
+
+	/**
+	 * Test method for {@link SlowStatementLog#record(String, int, int, long)} that checks that the
+	 * slowest statements are kept and statements under the threshold are only counted.
+	 */
+	@Test
+	public void testRecord()
+	{
+		final SlowStatementLog slowStatementLog = new SlowStatementLog(5, 2);
+		slowStatementLog.record("select 1", 0, 1, TimeUnit.MILLISECONDS.toNanos(1));
+		slowStatementLog.record("select 2", 0, 1, TimeUnit.MILLISECONDS.toNanos(20));
+		slowStatementLog.record("select 3", 0, 1, TimeUnit.MILLISECONDS.toNanos(10));
+		slowStatementLog.record("select 4", 0, 1, TimeUnit.MILLISECONDS.toNanos(30));
+		assertEquals(4, slowStatementLog.getExecutionCount());
+		assertEquals(3, slowStatementLog.getSlowExecutionCount());
+		final List<SlowStatement> statements = slowStatementLog.getSlowestStatements();
+		assertEquals(2, statements.size());
+		assertEquals("select 4", statements.get(0).getSql());
+		assertEquals("select 2", statements.get(1).getSql());
+		slowStatementLog.reset();
+		assertEquals(0, slowStatementLog.getExecutionCount());
+		assertTrue(slowStatementLog.getSlowestStatements().isEmpty());
+	}
+
+}
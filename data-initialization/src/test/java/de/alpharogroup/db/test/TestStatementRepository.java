@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.test;
+
+import java.util.function.Supplier;
+
+/**
+ * The class {@link TestStatementRepository} is a repository for the slow statement log tests that
+ * executes the statements inside of a lambda, like the measured methods of the repositories.
+ */
+public class TestStatementRepository
+{
+
+	/**
+	 * Executes the given statement inside of a lambda.
+	 *
+	 * @param statement
+	 *            the statement
+	 */
+	public void execute(final Runnable statement)
+	{
+		final Supplier<Void> operation = () -> {
+			statement.run();
+			return null;
+		};
+		operation.get();
+	}
+
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.strategies.BatchSaveOrUpdateStrategy;
+import lombok.Getter;
+
+/**
+ * The class {@link BenchmarkDatabase} sets up an embedded in memory h2 database with the entity
+ * manager factory and the transaction template for the repository benchmarks. Because the
+ * benchmarks run without a spring context every repository call has to be executed with
+ * {@link #inTransaction(Supplier)}.
+ */
+public class BenchmarkDatabase implements AutoCloseable
+{
+
+	/** The data source. */
+	@Getter
+	private final DataSource dataSource;
+
+	/** The entity manager factory. */
+	@Getter
+	private final EntityManagerFactory entityManagerFactory;
+
+	/** The jdbc template. */
+	@Getter
+	private final JdbcTemplate jdbcTemplate;
+
+	/** The sequence number for new benchmark items. */
+	private long sequenceNumber;
+
+	/** The transaction template. */
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Instantiates a new {@link BenchmarkDatabase} with a new empty in memory database.
+	 */
+	public BenchmarkDatabase()
+	{
+		final DriverManagerDataSource driverManagerDataSource = new DriverManagerDataSource();
+		driverManagerDataSource.setDriverClassName("org.h2.Driver");
+		driverManagerDataSource
+			.setUrl("jdbc:h2:mem:benchmark" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+		driverManagerDataSource.setUsername("sa");
+		driverManagerDataSource.setPassword("");
+		this.dataSource = driverManagerDataSource;
+
+		final HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+		vendorAdapter.setDatabase(Database.H2);
+		vendorAdapter.setShowSql(false);
+		final Properties jpaProperties = new Properties();
+		jpaProperties.setProperty("hibernate.hbm2ddl.auto", "create");
+		final LocalContainerEntityManagerFactoryBean entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+		entityManagerFactoryBean.setPersistenceUnitName("benchmark");
+		entityManagerFactoryBean.setDataSource(dataSource);
+		entityManagerFactoryBean.setPackagesToScan(BenchmarkItem.class.getPackage().getName());
+		entityManagerFactoryBean.setJpaVendorAdapter(vendorAdapter);
+		entityManagerFactoryBean.setJpaProperties(jpaProperties);
+		entityManagerFactoryBean.afterPropertiesSet();
+		this.entityManagerFactory = entityManagerFactoryBean.getObject();
+
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(
+			new JpaTransactionManager(entityManagerFactory));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close()
+	{
+		entityManagerFactory.close();
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	/**
+	 * Executes the given action in a new transaction.
+	 *
+	 * @param <R>
+	 *            the generic type of the result
+	 * @param action
+	 *            the action
+	 * @return the result of the action
+	 */
+	public <R> R inTransaction(final Supplier<R> action)
+	{
+		return transactionTemplate.execute(status -> action.get());
+	}
+
+	/**
+	 * Executes the given action in a new transaction.
+	 *
+	 * @param action
+	 *            the action
+	 */
+	public void inTransaction(final Runnable action)
+	{
+		transactionTemplate.execute(status -> {
+			action.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Inserts the given number of new benchmark items with the given repository in one
+	 * transaction.
+	 *
+	 * @param repository
+	 *            the repository
+	 * @param count
+	 *            the number of benchmark items
+	 * @return the inserted and detached benchmark items
+	 */
+	public List<BenchmarkItem> insertItems(
+		final AbstractRepository<BenchmarkItem, Integer> repository, final int count)
+	{
+		final List<BenchmarkItem> items = newItems(count);
+		inTransaction(() -> repository.save(items));
+		return items;
+	}
+
+	/**
+	 * Factory method for create the given number of new benchmark items that are not persisted.
+	 *
+	 * @param count
+	 *            the number of benchmark items
+	 * @return the new benchmark items
+	 */
+	public List<BenchmarkItem> newItems(final int count)
+	{
+		final List<BenchmarkItem> items = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			items.add(BenchmarkItem.newBenchmarkItem(sequenceNumber++));
+		}
+		return items;
+	}
+
+	/**
+	 * Factory method for create a new repository with the strategies of the given mode and the
+	 * default batch size that is connected to this database.
+	 *
+	 * @param strategyMode
+	 *            the strategy mode
+	 * @return the new repository
+	 */
+	public AbstractRepository<BenchmarkItem, Integer> newRepository(
+		final StrategyMode strategyMode)
+	{
+		return newRepository(strategyMode, BatchSaveOrUpdateStrategy.DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Factory method for create a new repository with the strategies of the given mode and the
+	 * given batch size that is connected to this database.
+	 *
+	 * @param strategyMode
+	 *            the strategy mode
+	 * @param batchSize
+	 *            the batch size of the batch save or update strategy
+	 * @return the new repository
+	 */
+	public AbstractRepository<BenchmarkItem, Integer> newRepository(
+		final StrategyMode strategyMode, final int batchSize)
+	{
+		final AbstractRepository<BenchmarkItem, Integer> repository = strategyMode
+			.newRepository(batchSize);
+		repository.setEntityManager(
+			SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+		repository.setDataSource(dataSource);
+		repository.setJdbcTemplate(jdbcTemplate);
+		return repository;
+	}
+
+	/**
+	 * Deletes all benchmark items with one bulk delete statement.
+	 *
+	 * @param repository
+	 *            the repository
+	 */
+	public void deleteAllItems(final AbstractRepository<BenchmarkItem, Integer> repository)
+	{
+		inTransaction(() -> repository.deleteWhere(null));
+	}
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.benchmark;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import de.alpharogroup.db.entity.BaseEntity;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The entity class {@link BenchmarkItem} is the entity that is written and read in the repository
+ * benchmarks.
+ */
+@Entity
+@Table(name = "benchmark_items")
+@Getter
+@Setter
+@NoArgsConstructor
+public class BenchmarkItem extends BaseEntity<Integer>
+{
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The description. */
+	@Column(name = "description", length = 1024)
+	private String description;
+
+	/** The name. */
+	@Column(name = "name", length = 64)
+	private String name;
+
+	/** The quantity. */
+	@Column(name = "quantity")
+	private int quantity;
+
+	/**
+	 * Factory method for create a new {@link BenchmarkItem} with generated values from the given
+	 * sequence number.
+	 *
+	 * @param sequenceNumber
+	 *            the sequence number
+	 * @return the new {@link BenchmarkItem}
+	 */
+	public static BenchmarkItem newBenchmarkItem(final long sequenceNumber)
+	{
+		final BenchmarkItem item = new BenchmarkItem();
+		item.setName("item-" + sequenceNumber);
+		item.setDescription("description of the benchmark item " + sequenceNumber);
+		item.setQuantity((int)(sequenceNumber % 1000));
+		return item;
+	}
+
+}
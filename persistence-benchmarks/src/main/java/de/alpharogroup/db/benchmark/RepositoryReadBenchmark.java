@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+
+/**
+ * The benchmark class {@link RepositoryReadBenchmark} measures the read methods of the
+ * {@link AbstractRepository} against an embedded h2 database. Every benchmark method runs in its
+ * own transaction, so no entity is served from the persistence context of a previous call. The
+ * list variants take their number of ids from the separate state {@link IdBatch}, so the single id
+ * variants are not repeated for every batch size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryReadBenchmark
+{
+
+	/**
+	 * Benchmark for {@link AbstractRepository#exists(java.io.Serializable)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @return the result
+	 */
+	@Benchmark
+	public boolean exists(final Table table)
+	{
+		final Integer id = table.nextId();
+		return table.database.inTransaction(() -> table.repository.exists(id));
+	}
+
+	/**
+	 * Benchmark for {@link AbstractRepository#existsAll(java.util.Collection)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @param idBatch
+	 *            the id batch state
+	 * @return the result
+	 */
+	@Benchmark
+	public Set<Integer> existsAll(final Table table, final IdBatch idBatch)
+	{
+		final List<Integer> batch = idBatch.nextIds(table);
+		return table.database.inTransaction(() -> table.repository.existsAll(batch));
+	}
+
+	/**
+	 * Benchmark for {@link AbstractRepository#findAll()}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @return the result
+	 */
+	@Benchmark
+	public List<BenchmarkItem> findAll(final Table table)
+	{
+		return table.database.inTransaction(() -> table.repository.findAll());
+	}
+
+	/**
+	 * Benchmark for {@link AbstractRepository#get(java.io.Serializable)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @return the result
+	 */
+	@Benchmark
+	public BenchmarkItem get(final Table table)
+	{
+		final Integer id = table.nextId();
+		return table.database.inTransaction(() -> table.repository.get(id));
+	}
+
+	/**
+	 * Benchmark for {@link AbstractRepository#getAll(java.util.Collection)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @param idBatch
+	 *            the id batch state
+	 * @return the result
+	 */
+	@Benchmark
+	public List<BenchmarkItem> getAll(final Table table, final IdBatch idBatch)
+	{
+		final List<Integer> batch = idBatch.nextIds(table);
+		return table.database.inTransaction(() -> table.repository.getAll(batch));
+	}
+
+	/**
+	 * The state class {@link IdBatch} holds the number of ids of the list variants.
+	 */
+	@State(Scope.Benchmark)
+	public static class IdBatch
+	{
+
+		/** The number of ids of the list variants. */
+		@Param({ "1", "50", "500" })
+		private int batchSize;
+
+		/**
+		 * Gets the next ids in a round robin over all ids of the given table.
+		 *
+		 * @param table
+		 *            the table state
+		 * @return the next ids
+		 */
+		List<Integer> nextIds(final Table table)
+		{
+			final List<Integer> batch = new ArrayList<>(batchSize);
+			for (int i = 0; i < batchSize; i++)
+			{
+				batch.add(table.nextId());
+			}
+			return batch;
+		}
+
+	}
+
+	/**
+	 * The state class {@link Table} holds the database with the configured number of rows and the
+	 * benchmarked repository.
+	 */
+	@State(Scope.Benchmark)
+	public static class Table
+	{
+
+		/** The database. */
+		private BenchmarkDatabase database;
+
+		/** The ids of the inserted benchmark items. */
+		private List<Integer> ids;
+
+		/** The position of the next id. */
+		private int position;
+
+		/** The repository. */
+		private AbstractRepository<BenchmarkItem, Integer> repository;
+
+		/** The number of rows in the table. */
+		@Param({ "1000", "10000" })
+		private int rowCount;
+
+		/**
+		 * Sets up the database with the configured number of rows.
+		 */
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			database = new BenchmarkDatabase();
+			repository = database.newRepository(StrategyMode.BATCH);
+			ids = new ArrayList<>(rowCount);
+			for (final BenchmarkItem item : database.insertItems(repository, rowCount))
+			{
+				ids.add(item.getId());
+			}
+			repository = database.newRepository(StrategyMode.DEFAULT);
+		}
+
+		/**
+		 * Closes the database.
+		 */
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			database.close();
+		}
+
+		/**
+		 * Gets the next id in a round robin over all ids.
+		 *
+		 * @return the next id
+		 */
+		Integer nextId()
+		{
+			position = (position + 1) % ids.size();
+			return ids.get(position);
+		}
+
+	}
+
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import lombok.Getter;
+
+/**
+ * The benchmark class {@link RepositoryWriteBenchmark} measures the save, merge and delete methods
+ * of the {@link AbstractRepository} with the configured strategies against an embedded h2
+ * database. Every benchmark method runs in its own transaction. The table is reset to the
+ * configured number of rows before every iteration. The entities that are merged or deleted are
+ * inserted before every invocation and all rows that an invocation leaves behind are removed after
+ * it, so the table keeps its size during the iteration. Setup and cleanup are not measured. The
+ * list variants take their number of entities from the separate state {@link ItemBatch} and write
+ * them with a repository whose batch strategy uses the same batch size, so the single entity
+ * variants are not repeated for every batch size. The list variants report the time per batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryWriteBenchmark
+{
+
+	/**
+	 * Benchmark for {@link AbstractRepository#delete(de.alpharogroup.db.entity.BaseEntity)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @param items
+	 *            the items of the invocation
+	 */
+	@Benchmark
+	public void delete(final Table table, final SingleItem items)
+	{
+		final BenchmarkItem item = items.getPersistedItems().get(0);
+		table.database.inTransaction(() -> table.repository.delete(item));
+	}
+
+	/**
+	 * Benchmark for {@link AbstractRepository#delete(List)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @param items
+	 *            the items of the invocation
+	 */
+	@Benchmark
+	public void deleteList(final Table table, final ItemBatch items)
+	{
+		table.database.inTransaction(() -> items.repository.delete(items.getPersistedItems()));
+	}
+
+	/**
+	 * Benchmark for {@link AbstractRepository#merge(de.alpharogroup.db.entity.BaseEntity)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @param items
+	 *            the items of the invocation
+	 * @return the result
+	 */
+	@Benchmark
+	public BenchmarkItem merge(final Table table, final SingleItem items)
+	{
+		final BenchmarkItem item = items.getPersistedItems().get(0);
+		item.setQuantity(item.getQuantity() + 1);
+		return table.database.inTransaction(() -> table.repository.merge(item));
+	}
+
+	/**
+	 * Benchmark for {@link AbstractRepository#merge(List)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @param items
+	 *            the items of the invocation
+	 * @return the result
+	 */
+	@Benchmark
+	public List<BenchmarkItem> mergeList(final Table table, final ItemBatch items)
+	{
+		for (final BenchmarkItem item : items.getPersistedItems())
+		{
+			item.setQuantity(item.getQuantity() + 1);
+		}
+		return table.database
+			.inTransaction(() -> items.repository.merge(items.getPersistedItems()));
+	}
+
+	/**
+	 * Benchmark for {@link AbstractRepository#save(de.alpharogroup.db.entity.BaseEntity)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @param items
+	 *            the items of the invocation
+	 * @return the result
+	 */
+	@Benchmark
+	public Integer save(final Table table, final SingleItem items)
+	{
+		final BenchmarkItem item = items.getNewItems().get(0);
+		return table.database.inTransaction(() -> table.repository.save(item));
+	}
+
+	/**
+	 * Benchmark for {@link AbstractRepository#save(List)}.
+	 *
+	 * @param table
+	 *            the table state
+	 * @param items
+	 *            the items of the invocation
+	 * @return the result
+	 */
+	@Benchmark
+	public List<Integer> saveList(final Table table, final ItemBatch items)
+	{
+		return table.database.inTransaction(() -> items.repository.save(items.getNewItems()));
+	}
+
+	/**
+	 * The state class {@link Table} holds the database and the benchmarked repository and resets
+	 * the table before every iteration.
+	 */
+	@State(Scope.Benchmark)
+	public static class Table
+	{
+
+		/** The database. */
+		private BenchmarkDatabase database;
+
+		/** The highest id of the rows that are inserted before the iteration. */
+		private Integer lastIterationId;
+
+		/** The repository. */
+		private AbstractRepository<BenchmarkItem, Integer> repository;
+
+		/** The number of rows in the table before every iteration. */
+		@Param({ "1000", "10000" })
+		private int rowCount;
+
+		/** The strategies of the repository. */
+		@Param({ "NONE", "DEFAULT", "BATCH" })
+		private StrategyMode strategyMode;
+
+		/**
+		 * Removes all rows that are inserted after the setup of the iteration.
+		 */
+		public void removeInvocationRows()
+		{
+			final Integer lastId = lastIterationId;
+			final String idAttributeName = repository.getEntityMetadata().getIdAttributeName();
+			database.inTransaction(() -> repository.deleteWhere(
+				(root, builder) -> builder.greaterThan(root.get(idAttributeName), lastId)));
+		}
+
+		/**
+		 * Resets the table to the configured number of rows before every iteration.
+		 */
+		@Setup(Level.Iteration)
+		public void setUpIteration()
+		{
+			database.deleteAllItems(repository);
+			final List<BenchmarkItem> items = database
+				.insertItems(database.newRepository(StrategyMode.BATCH), rowCount);
+			lastIterationId = items.get(items.size() - 1).getId();
+		}
+
+		/**
+		 * Sets up the database and the repository with the configured strategies.
+		 */
+		@Setup(Level.Trial)
+		public void setUpTrial()
+		{
+			database = new BenchmarkDatabase();
+			repository = database.newRepository(strategyMode);
+		}
+
+		/**
+		 * Closes the database.
+		 */
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			database.close();
+		}
+
+	}
+
+	/**
+	 * The state class {@link ItemBatch} holds the configured number of new and persisted entities
+	 * for one invocation of a list variant and the repository with the same batch size.
+	 */
+	@State(Scope.Benchmark)
+	public static class ItemBatch extends InvocationItems
+	{
+
+		/** The number of entities and the batch size of the batch strategy. */
+		@Param({ "20", "50", "200" })
+		private int batchSize;
+
+		/** The repository with the configured strategies and batch size. */
+		private AbstractRepository<BenchmarkItem, Integer> repository;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected int getCount()
+		{
+			return batchSize;
+		}
+
+		/**
+		 * Sets up the repository with the configured strategies and batch size.
+		 *
+		 * @param table
+		 *            the table state
+		 */
+		@Setup(Level.Trial)
+		public void setUpTrial(final Table table)
+		{
+			repository = table.database.newRepository(table.strategyMode, batchSize);
+		}
+
+	}
+
+	/**
+	 * The state class {@link SingleItem} holds one new and one persisted entity for one
+	 * invocation of a single entity variant.
+	 */
+	@State(Scope.Benchmark)
+	public static class SingleItem extends InvocationItems
+	{
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected int getCount()
+		{
+			return 1;
+		}
+
+	}
+
+	/**
+	 * The class {@link InvocationItems} prepares the new and persisted entities before every
+	 * invocation and removes the rows that the invocation leaves behind after it.
+	 */
+	public abstract static class InvocationItems
+	{
+
+		/** The new entities for the save benchmarks. */
+		@Getter
+		private List<BenchmarkItem> newItems;
+
+		/** The detached persisted entities for the merge and delete benchmarks. */
+		@Getter
+		private List<BenchmarkItem> persistedItems;
+
+		/**
+		 * Gets the number of entities of one invocation.
+		 *
+		 * @return the number of entities
+		 */
+		protected abstract int getCount();
+
+		/**
+		 * Prepares the entities for the next invocation. The persisted entities are inserted with
+		 * the batch strategy regardless of the benchmarked strategy.
+		 *
+		 * @param table
+		 *            the table state
+		 */
+		@Setup(Level.Invocation)
+		public void setUpInvocation(final Table table)
+		{
+			newItems = table.database.newItems(getCount());
+			persistedItems = table.database
+				.insertItems(table.database.newRepository(StrategyMode.BATCH), getCount());
+		}
+
+		/**
+		 * Removes the rows that the invocation leaves behind.
+		 *
+		 * @param table
+		 *            the table state
+		 */
+		@TearDown(Level.Invocation)
+		public void tearDownInvocation(final Table table)
+		{
+			table.removeInvocationRows();
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.db.benchmark;
+
+import de.alpharogroup.db.repository.AbstractRepository;
+import de.alpharogroup.db.strategies.BatchSaveOrUpdateStrategy;
+import de.alpharogroup.db.strategies.api.DeleteStrategy;
+import de.alpharogroup.db.strategies.api.MergeStrategy;
+import de.alpharogroup.db.strategies.api.SaveOrUpdateStrategy;
+
+/**
+ * The enum {@link StrategyMode} decides with which strategies the benchmarked repository is
+ * created.
+ */
+public enum StrategyMode
+{
+
+	/** The repository uses its built in behavior without any strategy. */
+	NONE {
+		@Override
+		public AbstractRepository<BenchmarkItem, Integer> newRepository(final int batchSize)
+		{
+			return new AbstractRepository<BenchmarkItem, Integer>()
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public DeleteStrategy<BenchmarkItem, Integer> newDeleteStrategy()
+				{
+					return null;
+				}
+
+				@Override
+				public MergeStrategy<BenchmarkItem, Integer> newMergeStrategy()
+				{
+					return null;
+				}
+
+				@Override
+				public SaveOrUpdateStrategy<BenchmarkItem, Integer> newSaveOrUpdateStrategy()
+				{
+					return null;
+				}
+			};
+		}
+	},
+
+	/** The repository uses the default delete, merge and save or update strategies. */
+	DEFAULT {
+		@Override
+		public AbstractRepository<BenchmarkItem, Integer> newRepository(final int batchSize)
+		{
+			return new AbstractRepository<BenchmarkItem, Integer>()
+			{
+				private static final long serialVersionUID = 1L;
+			};
+		}
+	},
+
+	/** The repository uses the batch save or update strategy. */
+	BATCH {
+		@Override
+		public AbstractRepository<BenchmarkItem, Integer> newRepository(final int batchSize)
+		{
+			return new AbstractRepository<BenchmarkItem, Integer>()
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public SaveOrUpdateStrategy<BenchmarkItem, Integer> newSaveOrUpdateStrategy()
+				{
+					return new BatchSaveOrUpdateStrategy<>(this, batchSize);
+				}
+			};
+		}
+	};
+
+	/**
+	 * Factory method for create a new repository with the strategies of this mode. The entity
+	 * manager, the data source and the jdbc template have to be set afterwards.
+	 *
+	 * @param batchSize
+	 *            the batch size of the batch save or update strategy
+	 * @return the new repository
+	 */
+	public abstract AbstractRepository<BenchmarkItem, Integer> newRepository(int batchSize);
+
+}